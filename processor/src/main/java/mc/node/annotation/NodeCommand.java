@@ -0,0 +1,49 @@
+package mc.node.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a Bukkit command for registration at enable time.
+ * <p>
+ * The annotation processor adds every annotated class to the generated
+ * {@code mc.node.objects.plugin.registry.NodeCommandTable}, so no class is scanned or looked up at runtime.
+ * The class needs a public constructor whose first parameter is the command name; any further parameters
+ * are taken by type from the {@code CommandContext} the table is created with.
+ * <p>
+ * Kept in the class files, so an incremental compile, which hands the unchanged commands to the processor as
+ * bytecode, still sees them and regenerates the complete table.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface NodeCommand {
+
+    /**
+     * @return The command name, also its label.
+     */
+    String value();
+
+    /**
+     * @return The aliases of the command.
+     */
+    String[] aliases() default {};
+
+    /**
+     * @return The description shown in /help, or empty to keep the constructor's.
+     */
+    String description() default "";
+
+    /**
+     * @return The usage message, or empty to keep the constructor's.
+     */
+    String usage() default "";
+
+    /**
+     * @return The permission required to run the command, or empty for none.
+     */
+    String permission() default "";
+}
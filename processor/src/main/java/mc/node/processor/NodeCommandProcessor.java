@@ -0,0 +1,260 @@
+package mc.node.processor;
+
+import mc.node.annotation.NodeCommand;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates {@code mc.node.objects.plugin.registry.NodeCommandTable} from the {@link NodeCommand} classes.
+ * <p>
+ * The table is written in the first round, from the annotated classes of the compiled sources. Each command
+ * is checked here instead of at enable time: it has to be a concrete, public {@code org.bukkit.command.Command}
+ * with a public constructor taking the name first, and its name and aliases must not collide with another
+ * command's.
+ */
+@SupportedAnnotationTypes("mc.node.annotation.NodeCommand")
+public class NodeCommandProcessor extends AbstractProcessor {
+
+    static final String TABLE_PACKAGE = "mc.node.objects.plugin.registry";
+    static final String TABLE_NAME = "NodeCommandTable";
+    private static final String COMMAND_TYPE = "org.bukkit.command.Command";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(NodeCommand.class)) {
+                error(element, "@NodeCommand classes generated by other processors are not supported");
+            }
+            return false;
+        }
+        generated = true;
+
+        List<Entry> entries = new ArrayList<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(NodeCommand.class)) {
+            Entry entry = entry(element);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparing(entry -> entry.name));
+        if (checkLabels(entries)) {
+            write(entries);
+        }
+        return false;
+    }
+
+    /**
+     * Checks an annotated class and reads its command.
+     *
+     * @return The entry, or null if the class was reported as invalid.
+     */
+    private Entry entry(Element element) {
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)
+                || !element.getModifiers().contains(Modifier.PUBLIC)) {
+            error(element, "@NodeCommand requires a public, non-abstract class");
+            return null;
+        }
+        TypeElement type = (TypeElement) element;
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(element, "@NodeCommand requires a top-level or static nested class");
+            return null;
+        }
+        TypeElement command = processingEnv.getElementUtils().getTypeElement(COMMAND_TYPE);
+        if (command != null && !processingEnv.getTypeUtils().isSubtype(type.asType(), command.asType())) {
+            error(element, "@NodeCommand requires a subclass of " + COMMAND_TYPE);
+            return null;
+        }
+
+        ExecutableElement constructor = constructor(type);
+        if (constructor == null) {
+            error(element, "@NodeCommand requires a public constructor taking the command name as its first (String) parameter");
+            return null;
+        }
+        List<String> dependencies = new ArrayList<>();
+        List<? extends VariableElement> parameters = constructor.getParameters();
+        for (VariableElement parameter : parameters.subList(1, parameters.size())) {
+            TypeMirror parameterType = parameter.asType();
+            if (parameterType.getKind() != TypeKind.DECLARED) {
+                error(parameter, "@NodeCommand constructor parameters after the name must be object types, resolved from the CommandContext");
+                return null;
+            }
+            dependencies.add(processingEnv.getTypeUtils().erasure(parameterType).toString());
+        }
+
+        NodeCommand annotation = type.getAnnotation(NodeCommand.class);
+        String name = annotation.value().toLowerCase(Locale.ENGLISH);
+        if (name.isEmpty() || name.indexOf(' ') >= 0 || name.indexOf(':') >= 0) {
+            error(element, "@NodeCommand name '" + annotation.value() + "' must be a single word without ':'");
+            return null;
+        }
+        List<String> aliases = new ArrayList<>();
+        for (String alias : annotation.aliases()) {
+            aliases.add(alias.toLowerCase(Locale.ENGLISH));
+        }
+        return new Entry(type, type.getQualifiedName().toString(), name, aliases, dependencies,
+                annotation.description(), annotation.usage(), annotation.permission());
+    }
+
+    private ExecutableElement constructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (constructor.getModifiers().contains(Modifier.PUBLIC) && !parameters.isEmpty()
+                    && parameters.get(0).asType().toString().equals(String.class.getName())) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reports names and aliases claimed by more than one command.
+     *
+     * @return True if every label is unique.
+     */
+    private boolean checkLabels(List<Entry> entries) {
+        Map<String, Entry> owners = new HashMap<>();
+        boolean unique = true;
+        for (Entry entry : entries) {
+            List<String> labels = new ArrayList<>(entry.aliases);
+            labels.add(0, entry.name);
+            for (String label : labels) {
+                Entry owner = owners.putIfAbsent(label, entry);
+                if (owner != null && owner != entry) {
+                    error(entry.type, "@NodeCommand label '" + label + "' is already used by " + owner.className);
+                    unique = false;
+                }
+            }
+        }
+        return unique;
+    }
+
+    private void write(List<Entry> entries) {
+        Filer filer = processingEnv.getFiler();
+        Element[] originating = entries.stream().map(entry -> entry.type).toArray(Element[]::new);
+        try {
+            JavaFileObject file = filer.createSourceFile(TABLE_PACKAGE + "." + TABLE_NAME, originating);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source(entries));
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + TABLE_NAME + ": " + e.getMessage());
+        }
+    }
+
+    private String source(List<Entry> entries) {
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(TABLE_PACKAGE).append(";\n\n")
+                .append("import org.bukkit.command.Command;\n\n")
+                .append("import java.util.Arrays;\n\n")
+                .append("/**\n")
+                .append(" * The commands annotated with {@code @NodeCommand}, generated at compile time by ")
+                .append(getClass().getSimpleName()).append(".\n")
+                .append(" */\n")
+                .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("public final class ").append(TABLE_NAME).append(" {\n\n")
+                .append("    /**\n")
+                .append("     * The number of commands in the table.\n")
+                .append("     */\n")
+                .append("    public static final int SIZE = ").append(entries.size()).append(";\n\n")
+                .append("    private ").append(TABLE_NAME).append("() {\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Creates every command, in name order.\n")
+                .append("     *\n")
+                .append("     * @param context The dependencies of the commands' constructors.\n")
+                .append("     * @return The commands, not yet registered.\n")
+                .append("     */\n")
+                .append("    public static Command[] create(CommandContext context) {\n")
+                .append("        Command[] commands = new Command[SIZE];\n");
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            source.append("        commands[").append(i).append("] = configure(new ").append(entry.className)
+                    .append('(').append(literal(entry.name));
+            for (String dependency : entry.dependencies) {
+                source.append(", context.require(").append(dependency).append(".class)");
+            }
+            source.append("), ").append(literal(entry.description)).append(", ").append(literal(entry.usage))
+                    .append(", ").append(literal(entry.permission));
+            for (String alias : entry.aliases) {
+                source.append(", ").append(literal(alias));
+            }
+            source.append(");\n");
+        }
+        return source.append("        return commands;\n")
+                .append("    }\n\n")
+                .append("    private static Command configure(Command command, String description, String usage, String permission, String... aliases) {\n")
+                .append("        if (!description.isEmpty()) command.setDescription(description);\n")
+                .append("        if (!usage.isEmpty()) command.setUsage(usage);\n")
+                .append("        if (!permission.isEmpty()) command.setPermission(permission);\n")
+                .append("        if (aliases.length > 0) command.setAliases(Arrays.asList(aliases));\n")
+                .append("        return command;\n")
+                .append("    }\n")
+                .append("}\n")
+                .toString();
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+                }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        Messager messager = processingEnv.getMessager();
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * One annotated command.
+     */
+    private record Entry(TypeElement type, String className, String name, List<String> aliases, List<String> dependencies,
+                         String description, String usage, String permission) {
+    }
+}
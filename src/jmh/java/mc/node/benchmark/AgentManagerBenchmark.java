@@ -0,0 +1,89 @@
+package mc.node.benchmark;
+
+import mc.node.agent.Agent;
+import mc.node.agent.AgentManager;
+import mc.node.benchmark.stub.Stubs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup and update throughput of {@link AgentManager}.
+ * <p>
+ * The plain benchmarks use the thread count of the run, so contention is measured by repeating them with
+ * {@code -PjmhThreads=N}. The {@code mixed} group runs readers against a concurrent writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentManagerBenchmark {
+
+    @Param({"100", "1000"})
+    private int agents;
+
+    private AgentManager agentManager;
+    private Agent[] online;
+
+    @Setup
+    public void setup() {
+        agentManager = new AgentManager();
+        online = new Agent[agents];
+        for (int i = 0; i < agents; i++) {
+            UUID uuid = UUID.randomUUID();
+            String name = "Agent" + i;
+            online[i] = new Agent(uuid, name, Stubs.player(uuid, name), agentManager.getCoinStore().account(uuid));
+            agentManager.addAgent(uuid, online[i]);
+        }
+    }
+
+    @Benchmark
+    public Optional<Agent> findByUUID() {
+        return agentManager.findByUUID(next().uniqueId());
+    }
+
+    @Benchmark
+    public Agent getOrNull() {
+        return agentManager.getOrNull(next().uniqueId());
+    }
+
+    @Benchmark
+    public void updateAgent() {
+        agentManager.updateAgent(next());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Optional<Agent> mixedFind() {
+        return agentManager.findByUUID(next().uniqueId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedUpdate() {
+        agentManager.updateAgent(next());
+    }
+
+    private Agent next() {
+        return online[ThreadLocalRandom.current().nextInt(online.length)];
+    }
+}
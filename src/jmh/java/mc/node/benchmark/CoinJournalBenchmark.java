@@ -0,0 +1,66 @@
+package mc.node.benchmark;
+
+import mc.node.agent.economy.CoinAccount;
+import mc.node.agent.economy.CoinJournal;
+import mc.node.agent.economy.CoinStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Cost of a coin change with and without the write-ahead journal. The journal's group commit runs in the
+ * background, so this measures what the calling (main) thread pays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoinJournalBenchmark {
+
+    private Path directory;
+    private CoinJournal journal;
+    private CoinAccount plain;
+    private CoinAccount journaled;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("mc-node-journal");
+        journal = new CoinJournal(directory.resolve("coins.wal"), 10L, Logger.getLogger("CoinJournalBenchmark"));
+        plain = new CoinStore().account(UUID.randomUUID());
+        journaled = new CoinStore(uuid -> 0L, journal).account(UUID.randomUUID());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(directory.resolve("coins.wal"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long addPlain() {
+        return plain.add(1);
+    }
+
+    @Benchmark
+    public long addJournaled() {
+        return journaled.add(1);
+    }
+}
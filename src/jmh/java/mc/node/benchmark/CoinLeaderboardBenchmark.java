@@ -0,0 +1,115 @@
+package mc.node.benchmark;
+
+import mc.node.agent.economy.CoinAccount;
+import mc.node.agent.economy.CoinLeaderboard;
+import mc.node.agent.economy.CoinSnapshot;
+import mc.node.agent.economy.CoinStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-N and rank queries of {@link CoinLeaderboard} against copying and sorting every balance, and the cost
+ * the leaderboard adds to a coin change. The {@code mixed} group queries while three threads add coins to the
+ * accounts of {@value #ONLINE} online agents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoinLeaderboardBenchmark {
+
+    private static final int ONLINE = 500;
+
+    @Param({"10000", "100000"})
+    private int agents;
+
+    private CoinStore plainStore;
+    private CoinStore rankedStore;
+    private CoinLeaderboard leaderboard;
+    private UUID[] ids;
+    private CoinAccount[] plain;
+    private CoinAccount[] ranked;
+
+    @Setup
+    public void setup() {
+        plainStore = new CoinStore();
+        rankedStore = new CoinStore();
+        leaderboard = rankedStore.enableLeaderboard();
+        ids = new UUID[agents];
+        plain = new CoinAccount[agents];
+        ranked = new CoinAccount[agents];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < agents; i++) {
+            ids[i] = UUID.randomUUID();
+            long coins = random.nextLong(1_000_000L);
+            plain[i] = plainStore.account(ids[i]);
+            plain[i].set(coins);
+            ranked[i] = rankedStore.account(ids[i]);
+            ranked[i].set(coins);
+        }
+        leaderboard.size(); // Applies the initial placements
+    }
+
+    @Benchmark
+    public List<CoinLeaderboard.Entry> top10() {
+        return leaderboard.top(10);
+    }
+
+    @Benchmark
+    public long[] top10Sorted() {
+        CoinSnapshot snapshot = plainStore.snapshot();
+        long[] balances = Arrays.copyOf(snapshot.balances(), snapshot.size());
+        Arrays.sort(balances);
+        return Arrays.copyOfRange(balances, Math.max(0, balances.length - 10), balances.length);
+    }
+
+    @Benchmark
+    public int rankOf() {
+        return leaderboard.rankOf(ids[ThreadLocalRandom.current().nextInt(agents)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long addPlain() {
+        return plain[ThreadLocalRandom.current().nextInt(agents)].add(1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long addRanked() {
+        return ranked[ThreadLocalRandom.current().nextInt(agents)].add(1);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<CoinLeaderboard.Entry> mixedTop10() {
+        return leaderboard.top(10);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public long mixedAdd() {
+        return ranked[ThreadLocalRandom.current().nextInt(ONLINE)].add(1);
+    }
+}
@@ -0,0 +1,81 @@
+package mc.node.benchmark;
+
+import mc.node.agent.storage.AgentRecord;
+import mc.node.agent.storage.FileAgentStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opening the memory-mapped agent store (mapping plus index build) and reading single offline records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileAgentStoreBenchmark {
+
+    @Param({"100000", "500000"})
+    private int agents;
+
+    private Path file;
+    private UUID[] ids;
+    private FileAgentStore store;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempDirectory("mc-node-store").resolve("agents.dat");
+        ids = new UUID[agents];
+        List<AgentRecord> records = new ArrayList<>(agents);
+        for (int i = 0; i < agents; i++) {
+            ids[i] = UUID.randomUUID();
+            records.add(new AgentRecord(ids[i], "Agent" + i, i, System.currentTimeMillis(), 0L));
+        }
+        try (FileAgentStore writer = new FileAgentStore(file)) {
+            writer.saveAll(records);
+        }
+        store = new FileAgentStore(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.getParent());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int open() throws IOException {
+        try (FileAgentStore opened = new FileAgentStore(file)) {
+            return opened.size();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public AgentRecord load() {
+        cursor = (cursor + 1) % agents;
+        return store.load(ids[cursor]);
+    }
+}
@@ -0,0 +1,78 @@
+package mc.node.benchmark;
+
+import mc.node.objects.chat.LegacyMessageBuilder;
+import mc.node.objects.chat.MessageBuilder;
+import net.md_5.bungee.api.chat.ClickEvent;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering cost of {@link MessageBuilder} for templates with a growing number of placeholders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBuilderBenchmark {
+
+    @Param({"0", "5", "20"})
+    private int placeholders;
+
+    private String message;
+    private LegacyMessageBuilder builder;
+
+    @Setup
+    public void setup() {
+        StringBuilder template = new StringBuilder("&a&lAgent &7report:");
+        for (int i = 0; i < placeholders; i++) {
+            template.append(" &e%value").append(i).append("% &7|");
+        }
+        message = template.toString();
+        builder = prepare(MessageBuilder.legacy(message));
+    }
+
+    /**
+     * Renders a builder that is kept across calls.
+     */
+    @Benchmark
+    public String buildMessage() {
+        return builder.buildMessage();
+    }
+
+    /**
+     * Creates, fills and renders a builder, the way call sites use it.
+     */
+    @Benchmark
+    public String createAndBuildMessage() {
+        return prepare(MessageBuilder.legacy(message)).buildMessage();
+    }
+
+    /**
+     * Renders the message into a component with a click event.
+     */
+    @Benchmark
+    public TextComponent buildComponent() {
+        return builder.build();
+    }
+
+    private LegacyMessageBuilder prepare(LegacyMessageBuilder builder) {
+        for (int i = 0; i < placeholders; i++) {
+            builder.addPlaceholder("%value" + i + "%", "&b" + i);
+        }
+        return builder.setClickAction(ClickEvent.Action.RUN_COMMAND, "/example");
+    }
+}
@@ -0,0 +1,88 @@
+package mc.node.benchmark;
+
+import mc.node.objects.collection.PrefixTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tab completion of player names from the {@link PrefixTrie} kept by the AgentManager, compared with the scan
+ * of every online player's name that Bukkit's default completion does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameCompletionBenchmark {
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789_";
+    private static final int LIMIT = 100;
+
+    @Param({"100", "1000", "10000"})
+    private int players;
+
+    @Param({"2", "4"})
+    private int prefixLength;
+
+    private String[] names;
+    private String[] prefixes;
+    private PrefixTrie<String> trie;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        names = new String[players];
+        trie = new PrefixTrie<>();
+        for (int i = 0; i < players; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int length = 3 + random.nextInt(14); name.length() < length; ) {
+                name.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            names[i] = name.toString();
+            trie.put(names[i], names[i]);
+        }
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = names[random.nextInt(players)];
+            prefixes[i] = name.substring(0, Math.min(prefixLength, name.length())).toUpperCase();
+        }
+    }
+
+    @Benchmark
+    public List<String> trieComplete() {
+        return trie.complete(nextPrefix(), LIMIT);
+    }
+
+    @Benchmark
+    public List<String> linearScan() {
+        String prefix = nextPrefix();
+        List<String> matches = new ArrayList<>();
+        for (String name : names) {
+            if (name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                matches.add(name);
+            }
+        }
+        matches.sort(String.CASE_INSENSITIVE_ORDER);
+        return matches;
+    }
+
+    private String nextPrefix() {
+        return prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)];
+    }
+}
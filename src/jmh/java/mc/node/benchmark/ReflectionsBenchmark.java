@@ -0,0 +1,93 @@
+package mc.node.benchmark;
+
+import mc.node.objects.plugin.reflection.FieldAccessor;
+import mc.node.objects.plugin.reflection.Reflections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading and writing a private field through a {@link FieldAccessor}, against plain field access.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionsBenchmark {
+
+    private FieldAccessor<String> nameAccessor;
+    private FieldAccessor<Integer> countAccessor;
+    private Target target;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        nameAccessor = Reflections.getField(Target.class, "name", String.class);
+        countAccessor = Reflections.getField(Target.class, int.class, 0);
+        target = new Target();
+    }
+
+    @Benchmark
+    public String getField() {
+        return nameAccessor.get(target);
+    }
+
+    @Benchmark
+    public void setField() {
+        nameAccessor.set(target, "value");
+    }
+
+    @Benchmark
+    public Integer getPrimitiveField() {
+        return countAccessor.get(target);
+    }
+
+    @Benchmark
+    public void setPrimitiveField() {
+        countAccessor.set(target, ++counter);
+    }
+
+    @Benchmark
+    public int getInt() {
+        return countAccessor.getInt(target);
+    }
+
+    @Benchmark
+    public void setInt() {
+        countAccessor.setInt(target, ++counter);
+    }
+
+    @Benchmark
+    public FieldAccessor<String> lookup() {
+        return Reflections.getField(Target.class, "name", String.class);
+    }
+
+    @Benchmark
+    public String getFieldDirect() {
+        return target.name;
+    }
+
+    @Benchmark
+    public void setFieldDirect() {
+        target.name = "value";
+    }
+
+    /**
+     * Field holder standing in for an NMS packet.
+     */
+    static final class Target {
+        private String name = "name";
+        private int count;
+    }
+}
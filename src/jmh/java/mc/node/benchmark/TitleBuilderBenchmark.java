@@ -0,0 +1,77 @@
+package mc.node.benchmark;
+
+import mc.node.adapter.NmsAdapter;
+import mc.node.objects.packet.ChatComponents;
+import mc.node.objects.screen.title.LegacyTitleBuilder;
+import mc.node.objects.screen.title.TitleBuilder;
+import net.minecraft.server.v1_8_R3.ChatComponentText;
+import net.minecraft.server.v1_8_R3.IChatBaseComponent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering cost of {@link TitleBuilder} and of turning the rendered text into a chat component,
+ * comparing the former JSON round trip through {@code ChatSerializer} with {@link ChatComponents}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleBuilderBenchmark {
+
+    private LegacyTitleBuilder builder;
+    private String text;
+
+    @Setup
+    public void setup() {
+        builder = TitleBuilder.legacy("&a&lWelcome %player%", "&b&lMC-Node &7- &e%coins% coins")
+                .addPlaceholder("%player%", "Notch")
+                .addPlaceholder("%coins%", "1250");
+        text = builder.buildTitle();
+    }
+
+    @Benchmark
+    public String buildTitle() {
+        return builder.buildTitle();
+    }
+
+    @Benchmark
+    public String buildSubtitle() {
+        return builder.buildSubtitle();
+    }
+
+    /**
+     * The component creation TitleBuilder used before: concatenate JSON and parse it back.
+     */
+    @Benchmark
+    public IChatBaseComponent componentFromJson() {
+        return IChatBaseComponent.ChatSerializer.a("{\"text\": \"" + text + "\"}");
+    }
+
+    @Benchmark
+    public IChatBaseComponent componentDirect() {
+        return new ChatComponentText(text);
+    }
+
+    @Benchmark
+    public Object componentAdapter() {
+        return NmsAdapter.text(text);
+    }
+
+    @Benchmark
+    public Object componentFresh() {
+        return ChatComponents.text(text);
+    }
+}
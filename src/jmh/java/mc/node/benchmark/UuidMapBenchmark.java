@@ -0,0 +1,77 @@
+package mc.node.benchmark;
+
+import mc.node.objects.collection.UuidMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in {@link UuidMap} compared with the {@link ConcurrentHashMap} it replaced in the agent registry.
+ * Keys are probed through fresh {@link UUID} copies, as they arrive from events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UuidMapBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private UUID[] keys;
+    private UuidMap<Object> uuidMap;
+    private Map<UUID, Object> concurrentMap;
+
+    @Setup
+    public void setup() {
+        keys = new UUID[size];
+        uuidMap = new UuidMap<>();
+        concurrentMap = new ConcurrentHashMap<>();
+        for (int i = 0; i < size; i++) {
+            UUID uuid = UUID.randomUUID();
+            keys[i] = new UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            uuidMap.put(uuid, uuid);
+            concurrentMap.put(uuid, uuid);
+        }
+    }
+
+    @Benchmark
+    public Object uuidMapGet() {
+        return uuidMap.getOrNull(next());
+    }
+
+    @Benchmark
+    public Object concurrentHashMapGet() {
+        return concurrentMap.get(next());
+    }
+
+    @Benchmark
+    public Object uuidMapMiss() {
+        return uuidMap.getOrNull(ThreadLocalRandom.current().nextLong(), ThreadLocalRandom.current().nextLong());
+    }
+
+    @Benchmark
+    public Object concurrentHashMapMiss() {
+        return concurrentMap.get(new UUID(ThreadLocalRandom.current().nextLong(), ThreadLocalRandom.current().nextLong()));
+    }
+
+    private UUID next() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
@@ -0,0 +1,57 @@
+package mc.node.benchmark.stub;
+
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+/**
+ * Headless stand-ins for Bukkit types, so benchmarks run without a server.
+ * Stubs only answer identity calls; every other method returns the type's default value.
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * Creates an online player stub.
+     *
+     * @param uniqueId The player's unique id.
+     * @param name     The player's name.
+     * @return The player stub.
+     */
+    public static Player player(UUID uniqueId, String name) {
+        return (Player) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{Player.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uniqueId;
+                case "getName":
+                case "getDisplayName":
+                    return name;
+                case "isOnline":
+                    return true;
+                case "hashCode":
+                    return uniqueId.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "StubPlayer{" + name + '}';
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0F;
+        if (type == double.class) return 0D;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+}
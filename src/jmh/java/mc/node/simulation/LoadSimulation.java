@@ -0,0 +1,353 @@
+package mc.node.simulation;
+
+import mc.node.agent.Agent;
+import mc.node.agent.AgentManager;
+import mc.node.agent.cache.DepartedAgentCache;
+import mc.node.agent.event.AgentEventBus;
+import mc.node.agent.event.CoinMessageSubscriber;
+import mc.node.agent.preload.AgentPreloader;
+import mc.node.bukkit.listeners.BlockListener;
+import mc.node.bukkit.listeners.UserListener;
+import mc.node.objects.packet.ChannelFlusher;
+import mc.node.objects.packet.OutboundQueues;
+import mc.node.objects.screen.scoreboard.LegacySidebarBuilder;
+import mc.node.objects.screen.scoreboard.SidebarBuilder;
+import mc.node.objects.screen.scoreboard.Sidebars;
+import mc.node.objects.scheduler.NodeScheduler;
+import org.bukkit.block.Block;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Headless load simulation of the listener pipeline.
+ * <p>
+ * Every simulated tick runs the due scheduler tasks (the callback drain and the outbound flush), then fires
+ * the join events of the players whose pre-login finished, the block breaks and the quits through the real
+ * {@link UserListener} and {@link BlockListener}, wired like {@code Node} wires them. Pre-logins run on
+ * login threads, one tick ahead, as they would on a server. For every tick the main thread's CPU time and
+ * allocated bytes are read from the {@link com.sun.management.ThreadMXBean}, together with the packets
+ * and flushes the fake connections received.
+ * <p>
+ * Run with {@code ./gradlew simulate [-PsimulationArgs="--joins=5000 --ticks=1200"]}, see {@link Options}.
+ */
+public final class LoadSimulation {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final Options options;
+    private final SimulatedServer server;
+    private final Random random;
+    private final Block block = (Block) Proxy.newProxyInstance(LoadSimulation.class.getClassLoader(),
+            new Class<?>[]{Block.class}, (proxy, method, args) -> null); // The listener never looks at the block
+    private final ArrayDeque<SimulatedPlayer> departed = new ArrayDeque<>(); // Recently quit, for rejoins
+    private final List<Sample> samples = new ArrayList<>();
+    private int joined;
+    private long kicks;
+
+    private NodeScheduler scheduler;
+    private AgentManager agentManager;
+    private AgentEventBus eventBus;
+    private AgentPreloader preloader;
+    private ExecutorService login;
+    private UserListener userListener;
+    private BlockListener blockListener;
+
+    private LoadSimulation(Options options, SimulatedServer server) {
+        this.options = options;
+        this.server = server;
+        this.random = new Random(options.seed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Path dataFolder = Files.createTempDirectory("mc-node-simulation");
+        LoadSimulation simulation = new LoadSimulation(options, SimulatedServer.install(dataFolder.toFile()));
+        simulation.start();
+        try {
+            simulation.run();
+        } finally {
+            simulation.stop();
+        }
+        simulation.report();
+    }
+
+    /**
+     * Creates the components with the defaults of config.yml.
+     */
+    private void start() {
+        scheduler = new NodeScheduler(server.getPlugin(), 4, 1024, 2.0D, server.getLogger());
+        scheduler.start();
+
+        agentManager = new AgentManager();
+        agentManager.setDepartedCache(new DepartedAgentCache(1000, 300L, 512L * 1024L));
+
+        eventBus = new AgentEventBus(8192, server.getLogger());
+        eventBus.subscribe("coin-messages", new CoinMessageSubscriber(scheduler, agentManager));
+        agentManager.setEventBus(eventBus);
+
+        preloader = new AgentPreloader(agentManager.getCoinStore()::account, 2, 1500L, 30L, false, server.getLogger());
+        if (options.coalesce) {
+            OutboundQueues.enable(server.getPlugin());
+        }
+        if (options.flushOncePerTick) {
+            ChannelFlusher.enable(server.getPlugin());
+        }
+
+        AtomicInteger created = new AtomicInteger();
+        login = Executors.newFixedThreadPool(options.loginThreads, runnable -> {
+            Thread thread = new Thread(runnable, "Simulated Login #" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        userListener = new UserListener(scheduler, agentManager, preloader);
+        blockListener = new BlockListener(agentManager, eventBus);
+
+        if (options.sidebarLines > 0) {
+            LegacySidebarBuilder sidebar = SidebarBuilder.legacy("&6&lMC-NODE")
+                    .addLine("&7Online: &f%online%")
+                    .addLine("&eCoins: &f%coins%")
+                    .addPlaceholder("%online%", player -> String.valueOf(server.getOnlineCount()))
+                    .addPlaceholder("%coins%", player -> {
+                        Agent agent = agentManager.getOrNull(player.getUniqueId());
+                        return agent != null ? String.valueOf(agent.coins()) : "-";
+                    });
+            for (int line = 2; line < options.sidebarLines; line++) {
+                sidebar.addLine("&7Static line " + line);
+            }
+            sidebar.schedule(server.getPlugin(), options.sidebarPeriod);
+        }
+    }
+
+    private void run() {
+        CompletableFuture<List<SimulatedPlayer>> preLogins = preLogin(options.joins);
+        for (int tick = 0; tick < options.warmup + options.ticks; tick++) {
+            List<SimulatedPlayer> joining = preLogins.join(); // The server only joins players whose pre-login finished
+            preLogins = preLogin(options.joins);
+
+            long cpu = THREADS.getCurrentThreadCpuTime();
+            long allocated = THREADS.getCurrentThreadAllocatedBytes();
+            long mainPackets = server.getMainThreadPackets();
+            long otherPackets = server.getOtherThreadPackets();
+            long mainFlushes = server.getMainThreadFlushes();
+            long otherFlushes = server.getOtherThreadFlushes();
+            long wall = System.nanoTime();
+
+            server.tick();
+            for (SimulatedPlayer player : joining) {
+                server.join(player);
+                userListener.onPlayerJoin(new PlayerJoinEvent(player, null));
+            }
+            int breaks = 0;
+            for (int i = 0; i < options.breaks; i++) {
+                SimulatedPlayer player = server.randomPlayer(random);
+                if (player == null) break;
+                blockListener.onBlockBreak(new BlockBreakEvent(block, player));
+                breaks++;
+            }
+            int quits = 0;
+            SimulatedPlayer kicked;
+            while ((kicked = server.pollKicked()) != null) {
+                quit(kicked);
+                quits++;
+                kicks++;
+            }
+            int leaving = server.getOnlineCount() > options.population ? options.quits : 0;
+            for (int i = 0; i < leaving; i++) {
+                quit(server.randomPlayer(random));
+                quits++;
+            }
+
+            wall = System.nanoTime() - wall;
+            cpu = THREADS.getCurrentThreadCpuTime() - cpu;
+            allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+            if (tick >= options.warmup) {
+                samples.add(new Sample(tick - options.warmup + 1, server.getOnlineCount(), joining.size(), quits, breaks,
+                        cpu, wall, allocated, server.getMainThreadPackets() - mainPackets,
+                        server.getOtherThreadPackets() - otherPackets, server.getMainThreadFlushes() - mainFlushes,
+                        server.getOtherThreadFlushes() - otherFlushes));
+            }
+        }
+        preLogins.join();
+    }
+
+    /**
+     * Starts the pre-logins of the next tick's joiners, some of them players who quit recently.
+     */
+    private CompletableFuture<List<SimulatedPlayer>> preLogin(int count) {
+        List<CompletableFuture<SimulatedPlayer>> logins = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SimulatedPlayer player;
+            SimulatedPlayer previous = departed.isEmpty() || random.nextInt(100) >= options.rejoinPercent ? null : departed.pollLast(); // Relogs come soon after the quit
+            if (previous != null) {
+                player = server.createPlayer(previous.getUniqueId(), previous.getName());
+            } else {
+                int id = ++joined;
+                player = server.createPlayer(new UUID(random.nextLong(), random.nextLong()), "Sim" + id);
+            }
+            logins.add(CompletableFuture.supplyAsync(() -> {
+                AsyncPlayerPreLoginEvent event = new AsyncPlayerPreLoginEvent(player.getName(), InetAddress.getLoopbackAddress(), player.getUniqueId());
+                userListener.onPlayerPreLogin(event);
+                return event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED ? player : null;
+            }, login));
+        }
+        return CompletableFuture.allOf(logins.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<SimulatedPlayer> allowed = new ArrayList<>(logins.size());
+            for (CompletableFuture<SimulatedPlayer> future : logins) {
+                SimulatedPlayer player = future.join();
+                if (player != null) allowed.add(player);
+            }
+            return allowed;
+        });
+    }
+
+    private void quit(SimulatedPlayer player) {
+        userListener.onPlayerQuit(new PlayerQuitEvent(player, null));
+        server.quit(player);
+        departed.addLast(player);
+        if (departed.size() > options.population) {
+            departed.pollFirst();
+        }
+    }
+
+    private void stop() {
+        login.shutdownNow();
+        OutboundQueues.disable();
+        ChannelFlusher.disable();
+        scheduler.close();
+        eventBus.close();
+        preloader.close();
+    }
+
+    private void report() throws IOException {
+        System.out.printf("Simulated %d ticks after %d warm-up ticks: %d joins, %d quits above %d online, %d block breaks per tick%n",
+                options.ticks, options.warmup, options.joins, options.quits, options.population, options.breaks);
+        System.out.printf("%-22s %12s %12s %12s %12s%n", "per tick", "mean", "p50", "p99", "max");
+        row("main cpu (us)", Sample::cpuNanos, 1_000L);
+        row("main wall (us)", Sample::wallNanos, 1_000L);
+        row("main allocated (KB)", Sample::allocatedBytes, 1024L);
+        row("packets main thread", Sample::mainPackets, 1L);
+        row("packets other threads", Sample::otherPackets, 1L);
+        row("flushes main thread", Sample::mainFlushes, 1L);
+        row("flushes other threads", Sample::otherFlushes, 1L);
+        row("joins", Sample::joins, 1L);
+        row("quits", Sample::quits, 1L);
+        row("online", Sample::online, 1L);
+        System.out.println("Kicks: " + kicks + ", console messages: " + server.getConsoleMessages());
+        System.out.println("Scheduler: " + scheduler.stats());
+        System.out.println("Channel flushes: " + ChannelFlusher.stats());
+        System.out.println("Sidebars: " + Sidebars.stats());
+        System.out.println("Agent events: " + eventBus.stats());
+        System.out.println("Agent preload: " + preloader.stats());
+        System.out.println("Departed agent cache: " + agentManager.getDepartedCache().stats());
+
+        if (options.csv != null) {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(options.csv))) {
+                writer.println("tick,online,joins,quits,breaks,cpu_ns,wall_ns,allocated_bytes,packets_main,packets_other,flushes_main,flushes_other");
+                for (Sample sample : samples) {
+                    writer.println(sample.tick + "," + sample.online + "," + sample.joins + "," + sample.quits + "," + sample.breaks
+                            + "," + sample.cpuNanos + "," + sample.wallNanos + "," + sample.allocatedBytes
+                            + "," + sample.mainPackets + "," + sample.otherPackets + "," + sample.mainFlushes + "," + sample.otherFlushes);
+                }
+            }
+            System.out.println("Per-tick samples written to " + options.csv.toAbsolutePath());
+        }
+    }
+
+    private void row(String name, ToLongFunction<Sample> metric, long unit) {
+        long[] values = samples.stream().mapToLong(metric).sorted().toArray();
+        if (values.length == 0) {
+            return;
+        }
+        long mean = Arrays.stream(values).sum() / values.length;
+        System.out.printf("%-22s %12d %12d %12d %12d%n", name, mean / unit, values[(values.length - 1) / 2] / unit,
+                values[(int) Math.ceil(values.length * 0.99D) - 1] / unit, values[values.length - 1] / unit);
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)
+                || !bean.isCurrentThreadCpuTimeSupported() || !bean.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("The JVM does not measure thread CPU time and allocations");
+        }
+        bean.setThreadCpuTimeEnabled(true);
+        bean.setThreadAllocatedMemoryEnabled(true);
+        return bean;
+    }
+
+    /**
+     * The measurements of one simulated tick.
+     */
+    private record Sample(long tick, long online, long joins, long quits, long breaks, long cpuNanos, long wallNanos,
+                          long allocatedBytes, long mainPackets, long otherPackets, long mainFlushes, long otherFlushes) {
+    }
+
+    /**
+     * The scenario, from {@code --name=value} arguments.
+     */
+    private static final class Options {
+        private int ticks = 600;           // Measured ticks
+        private int warmup = 200;          // Ticks run before measuring, for the JIT and a full server
+        private int joins = 2000;          // Joins per tick
+        private int quits = 2000;          // Quits per tick once more than the population is online
+        private int breaks = 5000;         // Block breaks per tick, by random online players
+        private int population = 10000;    // Players online before quits start
+        private int rejoinPercent = 10;    // Joins by players who quit recently, hitting the departed cache
+        private int loginThreads = 4;      // Threads running the asynchronous pre-logins
+        private boolean coalesce = true;   // network.coalesce-outbound
+        private boolean flushOncePerTick = true; // network.flush-once-per-tick
+        private int sidebarLines = 0;      // Lines of a sidebar shown to every player, at most 15, 0 for none
+        private int sidebarPeriod = 20;    // Ticks between two sidebar refreshes
+        private long seed = 42L;
+        private Path csv;                  // Per-tick samples, or null
+
+        private static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+
+            Options options = new Options();
+            options.ticks = Integer.parseInt(values.getOrDefault("ticks", String.valueOf(options.ticks)));
+            options.warmup = Integer.parseInt(values.getOrDefault("warmup", String.valueOf(options.warmup)));
+            options.joins = Integer.parseInt(values.getOrDefault("joins", String.valueOf(options.joins)));
+            options.quits = Integer.parseInt(values.getOrDefault("quits", String.valueOf(options.quits)));
+            options.breaks = Integer.parseInt(values.getOrDefault("breaks", String.valueOf(options.breaks)));
+            options.population = Integer.parseInt(values.getOrDefault("population", String.valueOf(options.population)));
+            options.rejoinPercent = Integer.parseInt(values.getOrDefault("rejoin-percent", String.valueOf(options.rejoinPercent)));
+            options.loginThreads = Integer.parseInt(values.getOrDefault("login-threads", String.valueOf(options.loginThreads)));
+            options.coalesce = Boolean.parseBoolean(values.getOrDefault("coalesce", String.valueOf(options.coalesce)));
+            options.flushOncePerTick = Boolean.parseBoolean(values.getOrDefault("flush-once-per-tick", String.valueOf(options.flushOncePerTick)));
+            options.sidebarLines = Integer.parseInt(values.getOrDefault("sidebar-lines", String.valueOf(options.sidebarLines)));
+            options.sidebarPeriod = Integer.parseInt(values.getOrDefault("sidebar-period", String.valueOf(options.sidebarPeriod)));
+            options.seed = Long.parseLong(values.getOrDefault("seed", String.valueOf(options.seed)));
+            options.csv = values.containsKey("csv") ? Path.of(values.get("csv")) : null;
+            return options;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package mc.node.simulation;
+
+import io.netty.channel.Channel;
+import net.minecraft.server.v1_8_R3.NetworkManager;
+import net.minecraft.server.v1_8_R3.Packet;
+import net.minecraft.server.v1_8_R3.PlayerConnection;
+
+import java.lang.reflect.Field;
+
+/**
+ * A PlayerConnection that counts packets and flushes instead of encoding them. Its network manager carries a
+ * channel stand-in, see {@link SimulatedServer#createChannel()}, so the plugin's channel writes are counted too.
+ */
+final class SimulatedConnection extends PlayerConnection {
+
+    private static final Field NETWORK_MANAGER = networkManagerField();
+
+    private SimulatedServer server; // Set after allocation, no constructor runs
+
+    private SimulatedConnection() {
+        super(null, null, null); // Never called, see SimulatedServer#allocate(Class)
+    }
+
+    /**
+     * Creates a connection without running the NMS constructor.
+     *
+     * @param server The server counting the packets.
+     * @return The connection.
+     */
+    static SimulatedConnection create(SimulatedServer server) {
+        SimulatedConnection connection = SimulatedServer.allocate(SimulatedConnection.class);
+        connection.server = server;
+        NetworkManager networkManager = SimulatedServer.allocate(NetworkManager.class);
+        networkManager.channel = server.createChannel();
+        try {
+            NETWORK_MANAGER.set(connection, networkManager);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return connection;
+    }
+
+    /**
+     * Writes and flushes, like NetworkManager#handle does on the server.
+     */
+    @Override
+    public void sendPacket(Packet packet) {
+        server.countPacket();
+        server.countFlush();
+    }
+
+    private static Field networkManagerField() {
+        try {
+            Field field = PlayerConnection.class.getDeclaredField("networkManager");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
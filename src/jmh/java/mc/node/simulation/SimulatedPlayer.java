@@ -0,0 +1,122 @@
+package mc.node.simulation;
+
+import net.minecraft.server.v1_8_R3.EntityPlayer;
+import org.bukkit.craftbukkit.v1_8_R3.entity.CraftPlayer;
+
+import java.util.UUID;
+
+/**
+ * A CraftPlayer without a world or entity behind it. The plugin reaches the connection through
+ * CraftPlayer#getHandle, so the player has to be a real CraftPlayer; every method the listener pipeline
+ * calls is answered here, the rest would fail on the missing entity.
+ */
+public final class SimulatedPlayer extends CraftPlayer {
+
+    // Set after allocation, no constructor runs
+    private SimulatedServer server;
+    private UUID uniqueId;
+    private String name;
+    private EntityPlayer handle;
+    private volatile double health;
+    private volatile String kickMessage;
+    int slot; // Index in the server's online list, main thread only
+
+    private SimulatedPlayer() {
+        super(null, null); // Never called, see SimulatedServer#allocate(Class)
+    }
+
+    /**
+     * Creates a player with a packet-counting connection. It is online once the server joined it.
+     *
+     * @param server   The server the player connects to.
+     * @param uniqueId The player's unique id.
+     * @param name     The player's name.
+     * @return The player.
+     */
+    static SimulatedPlayer create(SimulatedServer server, UUID uniqueId, String name) {
+        SimulatedPlayer player = SimulatedServer.allocate(SimulatedPlayer.class);
+        player.server = server;
+        player.uniqueId = uniqueId;
+        player.name = name;
+        player.health = 20.0D;
+        player.handle = SimulatedServer.allocate(EntityPlayer.class);
+        player.handle.playerConnection = SimulatedConnection.create(server);
+        return player;
+    }
+
+    @Override
+    public EntityPlayer getHandle() {
+        return handle;
+    }
+
+    @Override
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return name;
+    }
+
+    @Override
+    public boolean isOnline() {
+        return server.getPlayer(uniqueId) == this;
+    }
+
+    @Override
+    public void kickPlayer(String message) {
+        kickMessage = message;
+        server.kick(this);
+    }
+
+    /**
+     * @return The message the player was kicked with, or null.
+     */
+    public String getKickMessage() {
+        return kickMessage;
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        getHandle().playerConnection.sendPacket(null);
+    }
+
+    @Override
+    public void setHealth(double health) {
+        this.health = health;
+    }
+
+    @Override
+    public double getHealth() {
+        return health;
+    }
+
+    @Override
+    public void setFoodLevel(int value) {
+    }
+
+    @Override
+    public void setFireTicks(int ticks) {
+    }
+
+    @Override
+    public int hashCode() {
+        return uniqueId.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedPlayer{" + name + '}';
+    }
+}
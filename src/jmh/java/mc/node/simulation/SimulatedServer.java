@@ -0,0 +1,419 @@
+package mc.node.simulation;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPipeline;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * An in-memory Bukkit server for headless load simulations.
+ * <p>
+ * The server is installed with {@link Bukkit#setServer(Server)} and answers the calls the plugin makes from
+ * its listeners: online players, the console, the primary thread and the scheduler. Scheduled tasks run when
+ * the simulation calls {@link #tick()} on the thread that installed the server, which is the primary thread.
+ * Any other server call fails, so a new dependency of the pipeline shows up instead of silently returning null.
+ */
+public final class SimulatedServer {
+
+    private static final Unsafe UNSAFE = unsafe();
+
+    private final Thread mainThread = Thread.currentThread();
+    private final Logger logger = Logger.getLogger("MC-NODE Simulation");
+    private final Map<UUID, SimulatedPlayer> online = new ConcurrentHashMap<>();
+    private final List<SimulatedPlayer> onlineList = new ArrayList<>(); // Main thread only, for random picks
+    private final Queue<SimulatedPlayer> kicked = new ConcurrentLinkedQueue<>();
+    private final Queue<Task> scheduled = new ConcurrentLinkedQueue<>(); // Scheduled since the last tick, from any thread
+    private final List<Task> tasks = new ArrayList<>();                  // Main thread only
+    private final Plugin plugin;
+    private final ConsoleCommandSender console;
+    private final BukkitScheduler scheduler;
+    private final AtomicInteger nextTaskId = new AtomicInteger(1);
+    private volatile long currentTick;
+
+    private final LongAdder mainThreadPackets = new LongAdder();
+    private final LongAdder otherThreadPackets = new LongAdder();
+    private final LongAdder mainThreadFlushes = new LongAdder();
+    private final LongAdder otherThreadFlushes = new LongAdder();
+    private final LongAdder consoleMessages = new LongAdder();
+
+    private SimulatedServer(File dataFolder) {
+        this.plugin = proxy(Plugin.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "MC-NODE";
+            case "getLogger" -> logger;
+            case "getDataFolder" -> dataFolder;
+            case "isEnabled" -> true;
+            default -> unsupported(Plugin.class, method.getName());
+        });
+        this.console = proxy(ConsoleCommandSender.class, (proxy, method, args) -> switch (method.getName()) {
+            case "sendMessage" -> {
+                consoleMessages.increment(); // Dropped, the simulation would spend its time printing
+                yield null;
+            }
+            case "getName" -> "CONSOLE";
+            case "isOp", "hasPermission" -> true;
+            default -> unsupported(ConsoleCommandSender.class, method.getName());
+        });
+        this.scheduler = proxy(BukkitScheduler.class, (proxy, method, args) -> switch (method.getName()) {
+            case "runTask" -> schedule((Runnable) args[1], 0L, -1L, false).handle;
+            case "runTaskLater" -> schedule((Runnable) args[1], (long) args[2], -1L, false).handle;
+            case "runTaskTimer" -> schedule((Runnable) args[1], (long) args[2], (long) args[3], false).handle;
+            case "runTaskAsynchronously" -> schedule((Runnable) args[1], 0L, -1L, true).handle;
+            case "runTaskLaterAsynchronously" -> schedule((Runnable) args[1], (long) args[2], -1L, true).handle;
+            case "runTaskTimerAsynchronously" -> schedule((Runnable) args[1], (long) args[2], (long) args[3], true).handle;
+            case "cancelTask" -> {
+                cancel(task -> task.id == (int) args[0]);
+                yield null;
+            }
+            case "cancelTasks" -> {
+                cancel(task -> true);
+                yield null;
+            }
+            default -> unsupported(BukkitScheduler.class, method.getName());
+        });
+    }
+
+    /**
+     * Creates the server and installs it as the Bukkit server. Bukkit accepts one server per JVM, so this is
+     * called once, from the thread that will run the ticks.
+     *
+     * @param dataFolder The plugin's data folder.
+     * @return The server.
+     */
+    public static SimulatedServer install(File dataFolder) {
+        SimulatedServer server = new SimulatedServer(dataFolder);
+        Bukkit.setServer(proxy(Server.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "MC-NODE Simulation";
+            case "getVersion", "getBukkitVersion" -> "1.8.8-R0.1-SNAPSHOT";
+            case "getLogger" -> server.logger;
+            case "getOnlinePlayers" -> Collections.unmodifiableCollection(server.online.values());
+            case "getPlayer" -> args[0] instanceof UUID uuid ? server.online.get(uuid) : null;
+            case "getConsoleSender" -> server.console;
+            case "getScheduler" -> server.scheduler;
+            case "isPrimaryThread" -> Thread.currentThread() == server.mainThread;
+            default -> unsupported(Server.class, method.getName());
+        }));
+        return server;
+    }
+
+    /**
+     * Creates a player that is not online yet.
+     *
+     * @param uniqueId The player's unique id.
+     * @param name     The player's name.
+     * @return The player.
+     */
+    public SimulatedPlayer createPlayer(UUID uniqueId, String name) {
+        return SimulatedPlayer.create(this, uniqueId, name);
+    }
+
+    /**
+     * Puts a player online, right before its join event. Main thread only.
+     *
+     * @param player The player.
+     */
+    public void join(SimulatedPlayer player) {
+        if (online.putIfAbsent(player.getUniqueId(), player) == null) {
+            player.slot = onlineList.size();
+            onlineList.add(player);
+        }
+    }
+
+    /**
+     * Takes a player offline, right after its quit event. Main thread only.
+     *
+     * @param player The player.
+     */
+    public void quit(SimulatedPlayer player) {
+        if (online.remove(player.getUniqueId(), player)) {
+            SimulatedPlayer moved = onlineList.remove(onlineList.size() - 1);
+            if (moved != player) {
+                moved.slot = player.slot;
+                onlineList.set(player.slot, moved);
+            }
+        }
+    }
+
+    /**
+     * @param random The source of randomness.
+     * @return A random online player, or null if nobody is online. Main thread only.
+     */
+    public SimulatedPlayer randomPlayer(Random random) {
+        return onlineList.isEmpty() ? null : onlineList.get(random.nextInt(onlineList.size()));
+    }
+
+    /**
+     * @param uniqueId The player's unique id.
+     * @return The online player, or null.
+     */
+    public SimulatedPlayer getPlayer(UUID uniqueId) {
+        return online.get(uniqueId);
+    }
+
+    /**
+     * @return The number of online players.
+     */
+    public int getOnlineCount() {
+        return online.size();
+    }
+
+    /**
+     * @return The next player kicked since the last call, or null. The simulation sends their quit.
+     */
+    public SimulatedPlayer pollKicked() {
+        return kicked.poll();
+    }
+
+    void kick(SimulatedPlayer player) {
+        kicked.offer(player);
+    }
+
+    void countPacket() {
+        if (Thread.currentThread() == mainThread) {
+            mainThreadPackets.increment();
+        } else {
+            otherThreadPackets.increment();
+        }
+    }
+
+    void countFlush() {
+        if (Thread.currentThread() == mainThread) {
+            mainThreadFlushes.increment();
+        } else {
+            otherThreadFlushes.increment();
+        }
+    }
+
+    /**
+     * Creates a channel stand-in that counts writes and flushes and drops the packets. It is always open and
+     * its pipeline accepts and ignores handlers.
+     *
+     * @return The channel.
+     */
+    Channel createChannel() {
+        ChannelFuture closeFuture = proxy(ChannelFuture.class, (proxy, method, args) -> switch (method.getName()) {
+            case "addListener" -> proxy; // Never closes
+            default -> unsupported(ChannelFuture.class, method.getName());
+        });
+        ChannelPipeline pipeline = proxy(ChannelPipeline.class, (proxy, method, args) -> switch (method.getName()) {
+            case "addFirst", "addLast" -> proxy;
+            case "remove", "get" -> null;
+            default -> unsupported(ChannelPipeline.class, method.getName());
+        });
+        return proxy(Channel.class, (proxy, method, args) -> switch (method.getName()) {
+            case "write" -> {
+                countPacket();
+                yield null;
+            }
+            case "flush" -> {
+                countFlush();
+                yield proxy;
+            }
+            case "writeAndFlush" -> {
+                countPacket();
+                countFlush();
+                yield null;
+            }
+            case "isOpen", "isActive", "isWritable" -> true;
+            case "voidPromise" -> null; // Only passed back to write
+            case "pipeline" -> pipeline;
+            case "closeFuture" -> closeFuture;
+            default -> unsupported(Channel.class, method.getName());
+        });
+    }
+
+    /**
+     * Runs the scheduled tasks that are due, in the order they were scheduled, and advances the tick.
+     * Asynchronous tasks are started on the common pool. Main thread only.
+     */
+    public void tick() {
+        currentTick++;
+        Task added;
+        while ((added = scheduled.poll()) != null) {
+            tasks.add(added);
+        }
+        for (Iterator<Task> iterator = tasks.iterator(); iterator.hasNext(); ) {
+            Task task = iterator.next();
+            if (task.cancelled) {
+                iterator.remove();
+                continue;
+            }
+            if (task.nextTick > currentTick) {
+                continue;
+            }
+            if (task.period < 0) {
+                iterator.remove();
+            } else {
+                task.nextTick = currentTick + Math.max(1L, task.period);
+            }
+            if (task.async) {
+                CompletableFuture.runAsync(task.runnable);
+            } else {
+                task.runnable.run();
+            }
+        }
+    }
+
+    private Task schedule(Runnable runnable, long delay, long period, boolean async) {
+        Task task = new Task(nextTaskId.getAndIncrement(), runnable, currentTick + Math.max(1L, delay), period, async);
+        scheduled.offer(task);
+        return task;
+    }
+
+    private void cancel(Predicate<Task> filter) {
+        for (Task task : scheduled) {
+            task.cancelled |= filter.test(task);
+        }
+        for (Task task : tasks) {
+            task.cancelled |= filter.test(task);
+        }
+    }
+
+    /**
+     * @return The plugin the components are created for.
+     */
+    public Plugin getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * @return The server's logger.
+     */
+    public Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * @return The packets and messages sent from the main thread so far.
+     */
+    public long getMainThreadPackets() {
+        return mainThreadPackets.sum();
+    }
+
+    /**
+     * @return The packets and messages sent from any other thread so far, e.g. event subscribers.
+     */
+    public long getOtherThreadPackets() {
+        return otherThreadPackets.sum();
+    }
+
+    /**
+     * @return The channel flushes made from the main thread so far.
+     */
+    public long getMainThreadFlushes() {
+        return mainThreadFlushes.sum();
+    }
+
+    /**
+     * @return The channel flushes made from any other thread so far.
+     */
+    public long getOtherThreadFlushes() {
+        return otherThreadFlushes.sum();
+    }
+
+    /**
+     * @return The console messages dropped so far.
+     */
+    public long getConsoleMessages() {
+        return consoleMessages.sum();
+    }
+
+    /**
+     * Creates an instance without running any constructor, for server classes that need a running server.
+     *
+     * @param type The class.
+     * @param <T>  The type of the instance.
+     * @return The instance, with every field at its default value.
+     */
+    static <T> T allocate(Class<T> type) {
+        try {
+            return type.cast(UNSAFE.allocateInstance(type));
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("Cannot allocate " + type.getName(), e);
+        }
+    }
+
+    private static Unsafe unsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SimulatedServer.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "Simulated" + type.getSimpleName();
+                default:
+                    return handler.invoke(proxy, method, args);
+            }
+        }));
+    }
+
+    private static Object unsupported(Class<?> type, String method) {
+        throw new UnsupportedOperationException(type.getSimpleName() + "#" + method + " is not simulated");
+    }
+
+    /**
+     * A task scheduled through the simulated scheduler.
+     */
+    private final class Task {
+        private final int id;
+        private final Runnable runnable;
+        private final long period; // Negative for a single run
+        private final boolean async;
+        private final BukkitTask handle;
+        private long nextTick;
+        private volatile boolean cancelled;
+
+        private Task(int id, Runnable runnable, long nextTick, long period, boolean async) {
+            this.id = id;
+            this.runnable = runnable;
+            this.nextTick = nextTick;
+            this.period = period;
+            this.async = async;
+            this.handle = proxy(BukkitTask.class, (proxy, method, args) -> switch (method.getName()) {
+                case "getTaskId" -> id;
+                case "isSync" -> !async;
+                case "cancel" -> {
+                    cancelled = true;
+                    yield null;
+                }
+                default -> unsupported(BukkitTask.class, method.getName());
+            });
+        }
+    }
+}
@@ -1,13 +1,43 @@
 package mc.node;
 
 import lombok.Getter;
-import mc.node.bukkit.commands.ExampleCommand;
+import mc.node.adapter.NmsAdapter;
+import mc.node.agent.AgentManager;
+import mc.node.agent.cache.DepartedAgentCache;
+import mc.node.agent.economy.CoinAccount;
+import mc.node.agent.economy.CoinJournal;
+import mc.node.agent.economy.CoinLeaderboard;
+import mc.node.agent.event.AgentEventBus;
+import mc.node.agent.event.CoinMessageSubscriber;
+import mc.node.agent.preload.AgentPreloader;
+import mc.node.agent.repository.PersistentAgentRepository;
+import mc.node.agent.storage.FileAgentStore;
 import mc.node.bukkit.listeners.BlockListener;
 import mc.node.bukkit.listeners.UserListener;
-import mc.node.agent.AgentManager;
+import mc.node.objects.jfr.NodeEvents;
+import mc.node.objects.packet.ChannelFlusher;
+import mc.node.objects.packet.OutboundQueues;
+import mc.node.objects.plugin.registry.CommandContext;
+import mc.node.objects.plugin.registry.NodeCommandTable;
 import mc.node.objects.plugin.registry.Registry;
+import mc.node.objects.screen.scoreboard.Sidebars;
+import mc.node.objects.scheduler.NodeScheduler;
+import mc.node.objects.timing.Timings;
+import mc.node.replication.NioReplicationTransport;
+import mc.node.replication.ReplicationPeer;
+import mc.node.replication.ReplicationService;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.event.HandlerList;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Getter
 public enum Node {
 
@@ -15,17 +45,186 @@ public enum Node {
 
     private NodePlugin plugin;
 
-    private final AgentManager agentManager = new AgentManager();
+    private NodeScheduler scheduler;
+
+    private PersistentAgentRepository agentManager;
+
+    private AgentPreloader preloader;
+
+    private AgentEventBus eventBus;
+
+    private ReplicationService replication;
 
     public void start(NodePlugin plugin) {
         this.plugin = plugin;
+        plugin.saveDefaultConfig();
+        FileConfiguration config = plugin.getConfig();
+
+        // Detects the server version and binds the packet handles once, before anything is sent
+        plugin.getLogger().info("Using NMS adapter for " + NmsAdapter.version());
+
+        // Flight recorder events stay disabled until a recording enables them with this settings file
+        NodeEvents.register();
+        if (!new File(plugin.getDataFolder(), NodeEvents.SETTINGS_FILE).exists()) {
+            plugin.saveResource(NodeEvents.SETTINGS_FILE, false); // Keeps a settings file the admin edited
+        }
+
+        this.scheduler = new NodeScheduler(
+                plugin,
+                config.getInt("scheduler.worker-threads", 4),
+                config.getInt("scheduler.worker-queue", 1024),
+                config.getDouble("scheduler.main-thread-budget-millis", 2.0D),
+                plugin.getLogger()
+        );
+        scheduler.start();
+
+        try {
+            CoinJournal journal = config.getBoolean("storage.journal.enabled", true)
+                    ? new CoinJournal(
+                            plugin.getDataFolder().toPath().resolve(config.getString("storage.journal.file", "coins.wal")),
+                            config.getLong("storage.journal.commit-interval-millis", 10L),
+                            config.getInt("storage.journal.capacity", CoinJournal.DEFAULT_CAPACITY),
+                            plugin.getLogger())
+                    : null;
+            FileAgentStore store = new FileAgentStore(plugin.getDataFolder().toPath().resolve(config.getString("storage.file", "agents.dat")));
+            plugin.getLogger().info("Indexed " + store.size() + " stored agents");
+            this.agentManager = new PersistentAgentRepository(
+                    store,
+                    journal,
+                    config.getLong("storage.flush-interval-seconds", 5L),
+                    plugin.getLogger()
+            );
+            if (config.getBoolean("leaderboard.enabled", true)) {
+                CoinLeaderboard leaderboard = agentManager.getCoinStore().enableLeaderboard();
+                if (config.getBoolean("leaderboard.include-offline", true)) {
+                    store.forEachBalance(leaderboard::seed);
+                }
+                scheduler.repeatAsync(leaderboard::refresh, config.getLong("leaderboard.refresh-ticks", 1L));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load the agent storage", e);
+        }
+
+        if (config.getBoolean("cache.departed.enabled", true)) {
+            DepartedAgentCache departedCache = new DepartedAgentCache(
+                    config.getInt("cache.departed.max-entries", 1000),
+                    config.getLong("cache.departed.ttl-seconds", 300L),
+                    config.getLong("cache.departed.max-memory-kb", 512L) * 1024L
+            );
+            agentManager.setDepartedCache(departedCache);
+            scheduler.repeatAsync(departedCache::cleanUp, 1200L); // Every minute
+        }
 
-        Registry.registerListeners(plugin, new UserListener(agentManager), new BlockListener(agentManager));
-        Registry.registerCommand("example", new ExampleCommand("example", "nothing", "ex", "ee"));
+        Function<UUID, CoinAccount> loader = agentManager.getCoinStore()::account;
+        if (config.getBoolean("replication.enabled", false)) {
+            this.replication = startReplication(config);
+            loader = uuid -> {
+                replication.claim(uuid).join(); // The previous node ships the agent's last changes first
+                return agentManager.getCoinStore().account(uuid);
+            };
+        }
+
+        this.eventBus = new AgentEventBus(config.getInt("events.ring-size", 8192), plugin.getLogger());
+        eventBus.subscribe("coin-messages", new CoinMessageSubscriber(scheduler, agentManager));
+        agentManager.setEventBus(eventBus);
+
+        this.preloader = new AgentPreloader(
+                loader,
+                config.getInt("join.preload-threads", 2),
+                config.getLong("join.preload-timeout-millis", 1500L),
+                config.getLong("join.pending-ttl-seconds", 30L),
+                config.getBoolean("join.deny-on-timeout", false),
+                plugin.getLogger()
+        );
+
+        if (config.getBoolean("network.coalesce-outbound", false)) {
+            OutboundQueues.enable(plugin);
+        }
+        if (config.getBoolean("network.flush-once-per-tick", false)) {
+            ChannelFlusher.enable(plugin);
+        }
+
+        Timings.configure(config.getBoolean("timings.enabled", true), config.getInt("timings.allocation-sample-rate", 16));
+        Registry.registerListeners(plugin, new UserListener(scheduler, agentManager, preloader), new BlockListener(agentManager, eventBus));
+        Registry.registerCommands(NodeCommandTable.create(new CommandContext()
+                .with(NodeScheduler.class, scheduler)
+                .with(AgentManager.class, agentManager)
+                .with(Path.class, plugin.getDataFolder().toPath())));
     }
 
     public void stop() {
         HandlerList.unregisterAll(plugin);
+        Registry.unregisterCommands();
+        Sidebars.hideAll(Bukkit.getOnlinePlayers()); // Before the queues and flusher stop, so the removals are flushed
+        plugin.getLogger().info("Sidebars: " + Sidebars.stats());
+        OutboundQueues.disable();
+        if (ChannelFlusher.isEnabled()) {
+            ChannelFlusher.disable();
+            plugin.getLogger().info("Channel flushes: " + ChannelFlusher.stats());
+        }
+
+        if (scheduler != null) {
+            scheduler.close();
+            plugin.getLogger().info("Scheduler: " + scheduler.stats());
+        }
+
+        if (replication != null) {
+            replication.close();
+            plugin.getLogger().info("Replication: " + replication.stats());
+        }
+
+        if (eventBus != null) {
+            eventBus.close();
+            plugin.getLogger().info("Agent events: " + eventBus.stats());
+        }
+
+        if (preloader != null) {
+            plugin.getLogger().info("Agent preload: " + preloader.stats());
+            preloader.close();
+        }
+
+        if (agentManager != null) {
+            DepartedAgentCache departedCache = agentManager.getDepartedCache();
+            if (departedCache != null) {
+                plugin.getLogger().info("Departed agent cache: " + departedCache.stats());
+                departedCache.clear();
+            }
+            agentManager.close();
+        }
+    }
+
+    private ReplicationService startReplication(FileConfiguration config) {
+        String nodeId = config.getString("replication.node-id", "");
+        if (nodeId.isEmpty()) {
+            throw new IllegalStateException("replication.node-id must be set when replication is enabled");
+        }
+        List<ReplicationPeer> peers = config.getStringList("replication.peers").stream()
+                .map(ReplicationPeer::parse)
+                .collect(Collectors.toList());
+        NioReplicationTransport transport = new NioReplicationTransport(
+                nodeId,
+                ReplicationPeer.address(config.getString("replication.bind", "0.0.0.0:25590")),
+                peers,
+                config.getLong("replication.reconnect-seconds", 5L),
+                config.getLong("replication.max-pending-kb", 16384L) * 1024L,
+                plugin.getLogger()
+        );
+        ReplicationService service = new ReplicationService(
+                transport,
+                agentManager.getCoinStore(),
+                peers.stream().map(ReplicationPeer::nodeId).collect(Collectors.toList()),
+                config.getLong("replication.handoff-timeout-millis", 1000L),
+                config.getInt("replication.max-retained-batches", 12000),
+                plugin.getLogger()
+        );
+        try {
+            service.start();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start replication", e);
+        }
+        scheduler.repeatAsync(service::flush, config.getLong("replication.batch-ticks", 1L));
+        plugin.getLogger().info("Replicating coins as " + nodeId + " with " + peers.size() + " peers");
+        return service;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,294 @@
+package mc.node.adapter;
+
+import io.netty.channel.Channel;
+import lombok.experimental.UtilityClass;
+import mc.node.objects.plugin.reflection.Reflections;
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.entity.Player;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.UUID;
+
+/**
+ * Version-independent access to the NMS packets the plugin sends.
+ * <p>
+ * The server version is detected once, when this class is first used (see {@link #version()}), and every
+ * constructor, field and method needed on the hot path is bound to a {@link MethodHandle} held in a static
+ * final field. Each send is then a direct invocation the JIT can inline, with no lookups or reflection.
+ * Supports the versioned NMS packages of 1.8 to 1.16. NMS objects are passed around as {@link Object}.
+ */
+@UtilityClass
+public class NmsAdapter {
+
+    private final byte CHAT = 0;
+    private final byte ACTION_BAR = 2;
+
+    private final ServerVersion version;
+    private final MethodHandle getHandle;        // (Player)Object: CraftPlayer#getHandle()
+    private final MethodHandle playerConnection; // (Object)Object: EntityPlayer#playerConnection
+    private final MethodHandle networkManager;   // (Object)Object: PlayerConnection#networkManager
+    private final MethodHandle channel;          // (Object)Channel: NetworkManager#channel
+    private final MethodHandle sendPacket;       // (Object, Object)void: PlayerConnection#sendPacket(Packet)
+    private final MethodHandle textComponent;    // (String)Object: new ChatComponentText(String)
+    private final MethodHandle chatPacket;       // (Object, byte)Object: new PacketPlayOutChat(component, position)
+    private final MethodHandle getComponents;    // (Object)BaseComponent[]: PacketPlayOutChat#components (Spigot)
+    private final MethodHandle setComponents;    // (Object, BaseComponent[])void
+    private final MethodHandle titlePacket;      // (Object)Object: new PacketPlayOutTitle(TITLE, component)
+    private final MethodHandle subtitlePacket;   // (Object)Object: new PacketPlayOutTitle(SUBTITLE, component)
+    private final MethodHandle timesPacket;      // (int, int, int)Object: new PacketPlayOutTitle(fadeIn, stay, fadeOut)
+
+    static {
+        version = ServerVersion.detect();
+        if (!version.isAtLeast(8) || version.isAtLeast(17)) {
+            throw new IllegalStateException("Unsupported server version: " + version);
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> craftPlayerClass = requireClass(version.craftBukkit("entity.CraftPlayer"));
+            Class<?> entityPlayerClass = requireClass(version.nms("EntityPlayer"));
+            Class<?> connectionClass = requireClass(version.nms("PlayerConnection"));
+            Class<?> networkManagerClass = requireClass(version.nms("NetworkManager"));
+            Class<?> packetClass = requireClass(version.nms("Packet"));
+            Class<?> componentClass = requireClass(version.nms("IChatBaseComponent"));
+            Class<?> chatClass = requireClass(version.nms("PacketPlayOutChat"));
+            Class<?> titleClass = requireClass(version.nms("PacketPlayOutTitle"));
+
+            getHandle = lookup.unreflect(requireMethod(craftPlayerClass, "getHandle"))
+                    .asType(MethodType.methodType(Object.class, Player.class));
+            playerConnection = getter(lookup, entityPlayerClass, "playerConnection", connectionClass);
+            networkManager = getter(lookup, connectionClass, "networkManager", networkManagerClass);
+            channel = getter(lookup, networkManagerClass, null, Channel.class)
+                    .asType(MethodType.methodType(Channel.class, Object.class));
+            sendPacket = lookup.unreflect(requireMethod(connectionClass, "sendPacket", packetClass))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+            textComponent = constructor(lookup, requireClass(version.nms("ChatComponentText")), String.class)
+                    .asType(MethodType.methodType(Object.class, String.class));
+            chatPacket = chatConstructor(lookup, chatClass, componentClass);
+
+            Field components = chatClass.getField("components");
+            getComponents = lookup.unreflectGetter(components).asType(MethodType.methodType(BaseComponent[].class, Object.class));
+            setComponents = lookup.unreflectSetter(components).asType(MethodType.methodType(void.class, Object.class, BaseComponent[].class));
+
+            Class<?> titleActionClass = Reflections.getClass(version.nms("PacketPlayOutTitle$EnumTitleAction"));
+            if (titleActionClass == null) {
+                titleActionClass = requireClass(version.nms("EnumTitleAction")); // Top-level class in v1_8_R1
+            }
+            MethodHandle title = constructor(lookup, titleClass, titleActionClass, componentClass);
+            titlePacket = MethodHandles.insertArguments(title, 0, enumConstant(titleActionClass, "TITLE"))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            subtitlePacket = MethodHandles.insertArguments(title, 0, enumConstant(titleActionClass, "SUBTITLE"))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            timesPacket = constructor(lookup, titleClass, int.class, int.class, int.class)
+                    .asType(MethodType.methodType(Object.class, int.class, int.class, int.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Failed to bind NMS handles for " + version, e);
+        }
+    }
+
+    /**
+     * @return The detected server version. The first call binds every handle, so it should happen at enable time.
+     */
+    public ServerVersion version() {
+        return version;
+    }
+
+    /**
+     * @param player The player.
+     * @return The player's PlayerConnection, or null if the player is not (or no longer) connected.
+     */
+    public Object connection(Player player) {
+        try {
+            return (Object) playerConnection.invokeExact((Object) getHandle.invokeExact(player));
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * @param connection The PlayerConnection.
+     * @return The connection's Netty channel, or null if it is not set up yet.
+     */
+    public Channel channel(Object connection) {
+        try {
+            Object manager = (Object) networkManager.invokeExact(connection);
+            return manager != null ? (Channel) channel.invokeExact(manager) : null;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Sends a packet through the connection, flushing it.
+     *
+     * @param connection The PlayerConnection.
+     * @param packet     The NMS packet.
+     */
+    public void sendPacket(Object connection, Object packet) {
+        try {
+            sendPacket.invokeExact(connection, packet);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * @param text The text, with legacy color codes.
+     * @return A new NMS ChatComponentText.
+     */
+    public Object text(String text) {
+        try {
+            return (Object) textComponent.invokeExact(text);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Creates a chat packet serializing the given components, the same way {@code Player.Spigot#sendMessage} does.
+     *
+     * @param components The components to send.
+     * @return The PacketPlayOutChat.
+     */
+    public Object chat(BaseComponent... components) {
+        try {
+            Object packet = (Object) chatPacket.invokeExact((Object) null, CHAT);
+            setComponents.invokeExact(packet, components);
+            return packet;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * @param chatPacket A PacketPlayOutChat.
+     * @return The packet's Spigot components, or null if it carries an NMS component.
+     */
+    public BaseComponent[] components(Object chatPacket) {
+        try {
+            return (BaseComponent[]) getComponents.invokeExact(chatPacket);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * @param component The NMS component, see {@link #text(String)}.
+     * @return A PacketPlayOutChat showing the component above the hotbar.
+     */
+    public Object actionBar(Object component) {
+        try {
+            return (Object) chatPacket.invokeExact(component, ACTION_BAR);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * @param component The NMS component, see {@link #text(String)}.
+     * @return A PacketPlayOutTitle setting the title.
+     */
+    public Object title(Object component) {
+        try {
+            return (Object) titlePacket.invokeExact(component);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * @param component The NMS component, see {@link #text(String)}.
+     * @return A PacketPlayOutTitle setting the subtitle.
+     */
+    public Object subtitle(Object component) {
+        try {
+            return (Object) subtitlePacket.invokeExact(component);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * @param fadeIn  The fade-in duration in ticks.
+     * @param stay    The stay duration in ticks.
+     * @param fadeOut The fade-out duration in ticks.
+     * @return A PacketPlayOutTitle setting the title timings.
+     */
+    public Object times(int fadeIn, int stay, int fadeOut) {
+        try {
+            return (Object) timesPacket.invokeExact(fadeIn, stay, fadeOut);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Binds the chat packet constructor as {@code (Object component, byte position)Object}. The position is a byte
+     * up to 1.11, a ChatMessageType from 1.12, and 1.16 additionally takes the sender's UUID.
+     */
+    private MethodHandle chatConstructor(MethodHandles.Lookup lookup, Class<?> chatClass, Class<?> componentClass) throws ReflectiveOperationException {
+        MethodType type = MethodType.methodType(Object.class, Object.class, byte.class);
+
+        Constructor<?> legacy = Reflections.getConstructor(chatClass, componentClass, byte.class);
+        if (legacy != null) {
+            return lookup.unreflectConstructor(legacy).asType(type);
+        }
+
+        Class<?> messageTypeClass = requireClass(version.nms("ChatMessageType"));
+        MethodHandle fromByte = lookup.unreflect(requireMethod(messageTypeClass, "a", byte.class));
+
+        MethodHandle constructor;
+        Constructor<?> withSender = Reflections.getConstructor(chatClass, componentClass, messageTypeClass, UUID.class);
+        if (withSender != null) {
+            constructor = MethodHandles.insertArguments(lookup.unreflectConstructor(withSender), 2, new UUID(0L, 0L));
+        } else {
+            constructor = constructor(lookup, chatClass, componentClass, messageTypeClass);
+        }
+        return MethodHandles.filterArguments(constructor, 1, fromByte).asType(type);
+    }
+
+    private MethodHandle constructor(MethodHandles.Lookup lookup, Class<?> clazz, Class<?>... parameters) throws ReflectiveOperationException {
+        Constructor<?> constructor = Reflections.getConstructor(clazz, parameters);
+        if (constructor == null) {
+            throw new NoSuchMethodException(clazz.getName() + ".<init>");
+        }
+        return lookup.unreflectConstructor(constructor);
+    }
+
+    private MethodHandle getter(MethodHandles.Lookup lookup, Class<?> clazz, String name, Class<?> type) throws IllegalAccessException {
+        Field field = Reflections.findField(clazz, name, type, 0);
+        field.setAccessible(true);
+        return lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+    }
+
+    private Method requireMethod(Class<?> clazz, String name, Class<?>... parameters) throws NoSuchMethodException {
+        Method method = clazz.getMethod(name, parameters);
+        method.setAccessible(true);
+        return method;
+    }
+
+    private Class<?> requireClass(String name) throws ClassNotFoundException {
+        Class<?> clazz = Reflections.getClass(name);
+        if (clazz == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return clazz;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object enumConstant(Class<?> enumClass, String name) {
+        return Enum.valueOf((Class<? extends Enum>) enumClass.asSubclass(Enum.class), name);
+    }
+
+    private RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new RuntimeException("NMS call failed", t);
+    }
+}
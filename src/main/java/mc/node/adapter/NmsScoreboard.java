@@ -0,0 +1,295 @@
+package mc.node.adapter;
+
+import lombok.experimental.UtilityClass;
+import mc.node.objects.plugin.reflection.Reflections;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Version-independent construction of the scoreboard packets behind a per-player sidebar.
+ * <p>
+ * Bound like {@link NmsAdapter}, on first use, but kept apart so a server whose scoreboard packets cannot be
+ * bound still sends chat and titles. The packets are created empty and filled through field setters, found by
+ * type and position since their constructors take a server-side Scoreboard. Up to 1.12 display names,
+ * prefixes and suffixes are strings and a team prefix or suffix holds at most 16 characters; from 1.13 they
+ * are chat components.
+ */
+@UtilityClass
+public class NmsScoreboard {
+
+    private final int SIDEBAR_SLOT = 1;
+    private final int CREATE = 0;
+    private final int REMOVE = 1;
+    private final int UPDATE = 2;
+    private final int LEGACY_AFFIX_LENGTH = 16;
+    private final int LEGACY_TITLE_LENGTH = 32;
+
+    private final boolean components; // Texts are NMS components (1.13+) instead of strings
+
+    private final MethodHandle objectivePacket;      // ()Object: new PacketPlayOutScoreboardObjective()
+    private final MethodHandle objectiveName;        // (Object, String)void
+    private final MethodHandle objectiveDisplayName; // (Object, Object)void: String or IChatBaseComponent
+    private final MethodHandle objectiveRenderType;  // (Object, Object)void: EnumScoreboardHealthDisplay
+    private final MethodHandle objectiveMode;        // (Object, int)void
+    private final Object integerRenderType;
+
+    private final MethodHandle displayPacket;        // ()Object: new PacketPlayOutScoreboardDisplayObjective()
+    private final MethodHandle displaySlot;          // (Object, int)void
+    private final MethodHandle displayObjective;     // (Object, String)void
+
+    private final MethodHandle scorePacket;          // ()Object: new PacketPlayOutScoreboardScore()
+    private final MethodHandle scoreEntry;           // (Object, String)void
+    private final MethodHandle scoreObjective;       // (Object, String)void
+    private final MethodHandle scoreValue;           // (Object, int)void
+    private final MethodHandle scoreAction;          // (Object, Object)void: CHANGE or REMOVE
+    private final Object changeAction;
+    private final Object removeAction;
+
+    private final MethodHandle teamPacket;           // ()Object: new PacketPlayOutScoreboardTeam()
+    private final MethodHandle teamName;             // (Object, String)void
+    private final MethodHandle teamDisplayName;      // (Object, Object)void: String or IChatBaseComponent
+    private final MethodHandle teamPrefix;           // (Object, Object)void
+    private final MethodHandle teamSuffix;           // (Object, Object)void
+    private final MethodHandle teamEntries;          // (Object, Collection)void
+    private final MethodHandle teamMode;             // (Object, int)void
+
+    static {
+        ServerVersion version = NmsAdapter.version();
+        components = version.isAtLeast(13);
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> textClass = components ? requireClass(version.nms("IChatBaseComponent")) : String.class;
+
+            Class<?> objectiveClass = requireClass(version.nms("PacketPlayOutScoreboardObjective"));
+            Class<?> renderTypeClass = requireClass(version.nms("IScoreboardCriteria$EnumScoreboardHealthDisplay"));
+            objectivePacket = constructor(lookup, objectiveClass);
+            objectiveName = setter(lookup, objectiveClass, String.class, 0, String.class);
+            objectiveDisplayName = setter(lookup, objectiveClass, textClass, components ? 0 : 1, Object.class);
+            objectiveRenderType = setter(lookup, objectiveClass, renderTypeClass, 0, Object.class);
+            objectiveMode = setter(lookup, objectiveClass, int.class, 0, int.class);
+            integerRenderType = enumConstant(renderTypeClass, "INTEGER");
+
+            Class<?> displayClass = requireClass(version.nms("PacketPlayOutScoreboardDisplayObjective"));
+            displayPacket = constructor(lookup, displayClass);
+            displaySlot = setter(lookup, displayClass, int.class, 0, int.class);
+            displayObjective = setter(lookup, displayClass, String.class, 0, String.class);
+
+            Class<?> scoreClass = requireClass(version.nms("PacketPlayOutScoreboardScore"));
+            Class<?> actionClass = Reflections.getClass(version.nms("PacketPlayOutScoreboardScore$EnumScoreboardAction"));
+            if (actionClass == null) {
+                actionClass = requireClass(version.nms("ScoreboardServer$Action")); // 1.13+
+            }
+            scorePacket = constructor(lookup, scoreClass);
+            scoreEntry = setter(lookup, scoreClass, String.class, 0, String.class);
+            scoreObjective = setter(lookup, scoreClass, String.class, 1, String.class);
+            scoreValue = setter(lookup, scoreClass, int.class, 0, int.class);
+            scoreAction = setter(lookup, scoreClass, actionClass, 0, Object.class);
+            changeAction = enumConstant(actionClass, "CHANGE");
+            removeAction = enumConstant(actionClass, "REMOVE");
+
+            Class<?> teamClass = requireClass(version.nms("PacketPlayOutScoreboardTeam"));
+            teamPacket = constructor(lookup, teamClass);
+            teamName = setter(lookup, teamClass, String.class, 0, String.class);
+            teamDisplayName = setter(lookup, teamClass, textClass, components ? 0 : 1, Object.class);
+            teamPrefix = setter(lookup, teamClass, textClass, components ? 1 : 2, Object.class);
+            teamSuffix = setter(lookup, teamClass, textClass, components ? 2 : 3, Object.class);
+            teamEntries = setter(lookup, teamClass, Collection.class, 0, Collection.class);
+            teamMode = setter(lookup, teamClass, int.class, components ? 0 : 1, int.class); // After the color up to 1.12
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Failed to bind scoreboard packets for " + version, e);
+        }
+    }
+
+    /**
+     * @return The maximum length of a team prefix or suffix, the two halves of a sidebar line.
+     */
+    public int maxAffixLength() {
+        return components ? Integer.MAX_VALUE : LEGACY_AFFIX_LENGTH;
+    }
+
+    /**
+     * @return The maximum length of an objective's display name, the sidebar title.
+     */
+    public int maxTitleLength() {
+        return components ? Integer.MAX_VALUE : LEGACY_TITLE_LENGTH;
+    }
+
+    /**
+     * @param name        The objective name, at most 16 characters.
+     * @param displayName The sidebar title, with section sign color codes.
+     * @return A packet creating the objective.
+     */
+    public Object createObjective(String name, String displayName) {
+        return objective(name, displayName, CREATE);
+    }
+
+    /**
+     * @param name        The objective name.
+     * @param displayName The new sidebar title.
+     * @return A packet changing the objective's title.
+     */
+    public Object updateObjective(String name, String displayName) {
+        return objective(name, displayName, UPDATE);
+    }
+
+    /**
+     * @param name The objective name.
+     * @return A packet removing the objective and its scores.
+     */
+    public Object removeObjective(String name) {
+        return objective(name, null, REMOVE);
+    }
+
+    /**
+     * @param objective The objective name.
+     * @return A packet showing the objective in the sidebar.
+     */
+    public Object displaySidebar(String objective) {
+        try {
+            Object packet = (Object) displayPacket.invokeExact();
+            displaySlot.invokeExact(packet, SIDEBAR_SLOT);
+            displayObjective.invokeExact(packet, objective);
+            return packet;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * @param objective The objective name.
+     * @param entry     The score holder, the text shown between the team prefix and suffix.
+     * @param score     The score; the sidebar lists the highest first.
+     * @return A packet setting the score.
+     */
+    public Object setScore(String objective, String entry, int score) {
+        return score(objective, entry, score, changeAction);
+    }
+
+    /**
+     * @param objective The objective name.
+     * @param entry     The score holder.
+     * @return A packet removing the entry's score, and its sidebar line.
+     */
+    public Object resetScore(String objective, String entry) {
+        return score(objective, entry, 0, removeAction);
+    }
+
+    /**
+     * @param name   The team name, at most 16 characters.
+     * @param prefix The text before the entry, see {@link #maxAffixLength()}.
+     * @param suffix The text after the entry.
+     * @param entry  The only member of the team.
+     * @return A packet creating the team.
+     */
+    public Object createTeam(String name, String prefix, String suffix, String entry) {
+        return team(name, prefix, suffix, Collections.singletonList(entry), CREATE);
+    }
+
+    /**
+     * @param name   The team name.
+     * @param prefix The new text before the entry.
+     * @param suffix The new text after the entry.
+     * @return A packet changing the team's prefix and suffix.
+     */
+    public Object updateTeam(String name, String prefix, String suffix) {
+        return team(name, prefix, suffix, null, UPDATE);
+    }
+
+    /**
+     * @param name The team name.
+     * @return A packet removing the team.
+     */
+    public Object removeTeam(String name) {
+        return team(name, null, null, null, REMOVE);
+    }
+
+    private Object objective(String name, String displayName, int mode) {
+        try {
+            Object packet = (Object) objectivePacket.invokeExact();
+            objectiveName.invokeExact(packet, name);
+            if (mode != REMOVE) {
+                objectiveDisplayName.invokeExact(packet, text(displayName));
+                objectiveRenderType.invokeExact(packet, integerRenderType);
+            }
+            objectiveMode.invokeExact(packet, mode);
+            return packet;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private Object score(String objective, String entry, int score, Object action) {
+        try {
+            Object packet = (Object) scorePacket.invokeExact();
+            scoreEntry.invokeExact(packet, entry);
+            scoreObjective.invokeExact(packet, objective);
+            scoreValue.invokeExact(packet, score);
+            scoreAction.invokeExact(packet, action);
+            return packet;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private Object team(String name, String prefix, String suffix, Collection<String> entries, int mode) {
+        try {
+            Object packet = (Object) teamPacket.invokeExact();
+            teamName.invokeExact(packet, name);
+            if (mode != REMOVE) {
+                teamDisplayName.invokeExact(packet, text(name));
+                teamPrefix.invokeExact(packet, text(prefix));
+                teamSuffix.invokeExact(packet, text(suffix));
+            }
+            if (entries != null) {
+                teamEntries.invokeExact(packet, entries);
+            }
+            teamMode.invokeExact(packet, mode);
+            return packet;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private Object text(String text) {
+        return components ? NmsAdapter.text(text) : text;
+    }
+
+    private MethodHandle constructor(MethodHandles.Lookup lookup, Class<?> clazz) throws ReflectiveOperationException {
+        return lookup.findConstructor(clazz, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+    }
+
+    /**
+     * Binds a setter of the index-th field assignable to the field type, as {@code (Object, valueType)void}.
+     */
+    private MethodHandle setter(MethodHandles.Lookup lookup, Class<?> clazz, Class<?> fieldType, int index, Class<?> valueType) throws IllegalAccessException {
+        Field field = Reflections.findField(clazz, null, fieldType, index);
+        field.setAccessible(true);
+        return lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, valueType));
+    }
+
+    private Class<?> requireClass(String name) throws ClassNotFoundException {
+        Class<?> clazz = Reflections.getClass(name);
+        if (clazz == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return clazz;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object enumConstant(Class<?> enumClass, String name) {
+        return Enum.valueOf((Class<? extends Enum>) enumClass.asSubclass(Enum.class), name);
+    }
+
+    private RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new RuntimeException("NMS call failed", t);
+    }
+}
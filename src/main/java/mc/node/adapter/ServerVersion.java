@@ -0,0 +1,82 @@
+package mc.node.adapter;
+
+import org.bukkit.Bukkit;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The versioned CraftBukkit and NMS package of the running server, e.g. {@code v1_8_R3}.
+ *
+ * @param packageVersion The package segment, e.g. {@code v1_8_R3}.
+ * @param minor          The minor Minecraft version, e.g. 8 for 1.8.
+ * @param revision       The NMS revision within the minor version.
+ */
+public record ServerVersion(String packageVersion, int minor, int revision) {
+
+    /**
+     * System property naming the package version when no server is running, e.g. for benchmarks.
+     */
+    public static final String PROPERTY = "mc.node.server-version";
+
+    private static final Pattern PACKAGE_VERSION = Pattern.compile("v1_(\\d+)_R(\\d+)");
+
+    /**
+     * Detects the version from the package of the running CraftServer, falling back to {@link #PROPERTY}.
+     *
+     * @return The detected version.
+     * @throws IllegalStateException if the server does not use versioned packages.
+     */
+    public static ServerVersion detect() {
+        String name = Bukkit.getServer() != null ? Bukkit.getServer().getClass().getPackage().getName() : "";
+        String packageVersion = name.substring(name.lastIndexOf('.') + 1);
+        if (!PACKAGE_VERSION.matcher(packageVersion).matches()) {
+            packageVersion = System.getProperty(PROPERTY, packageVersion); // No server, or one outside craftbukkit
+        }
+        return parse(packageVersion);
+    }
+
+    /**
+     * Parses a package version such as {@code v1_8_R3}.
+     *
+     * @param packageVersion The package segment.
+     * @return The version.
+     * @throws IllegalStateException if the segment is not a package version.
+     */
+    public static ServerVersion parse(String packageVersion) {
+        Matcher matcher = PACKAGE_VERSION.matcher(packageVersion);
+        if (!matcher.matches()) {
+            throw new IllegalStateException("Unsupported server version: '" + packageVersion + "'");
+        }
+        return new ServerVersion(packageVersion, Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    /**
+     * @param name The simple name of an NMS class, e.g. {@code PacketPlayOutChat}.
+     * @return The fully qualified class name for this version.
+     */
+    public String nms(String name) {
+        return "net.minecraft.server." + packageVersion + "." + name;
+    }
+
+    /**
+     * @param name The name of a CraftBukkit class relative to its root package, e.g. {@code entity.CraftPlayer}.
+     * @return The fully qualified class name for this version.
+     */
+    public String craftBukkit(String name) {
+        return "org.bukkit.craftbukkit." + packageVersion + "." + name;
+    }
+
+    /**
+     * @param minor The minor Minecraft version.
+     * @return True if this version is the given one or newer.
+     */
+    public boolean isAtLeast(int minor) {
+        return this.minor >= minor;
+    }
+
+    @Override
+    public String toString() {
+        return packageVersion;
+    }
+}
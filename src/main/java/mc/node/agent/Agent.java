@@ -1,6 +1,7 @@
 package mc.node.agent;
 
 import lombok.Setter;
+import mc.node.agent.economy.CoinAccount;
 import mc.node.objects.chat.LegacyMessageBuilder;
 import mc.node.objects.screen.actionbar.LegacyActionBarBuilder;
 import mc.node.objects.screen.title.LegacyTitleBuilder;
@@ -13,10 +14,25 @@ import org.bukkit.entity.Player;
 import java.util.Optional;
 import java.util.UUID;
 
-public record Agent(UUID uniqueId, String username, @Setter Player player, int coins) {
+public record Agent(UUID uniqueId, String username, @Setter Player player, CoinAccount account) {
 
-    public Agent(UUID uniqueId, String username) {
-        this(uniqueId, username, Bukkit.getPlayer(uniqueId), 0);
+    public Agent(UUID uniqueId, String username, CoinAccount account) {
+        this(uniqueId, username, Bukkit.getPlayer(uniqueId), account);
+    }
+
+    /**
+     * @return The agent's current coin balance.
+     */
+    public long coins() {
+        return account.get();
+    }
+
+    /**
+     * @return A copy of this agent without its player, e.g. to keep it after the player left without keeping
+     * the player's entity alive.
+     */
+    public Agent detach() {
+        return player == null ? this : new Agent(uniqueId, username, null, account);
     }
 
     public boolean isOnline() {
@@ -46,7 +62,7 @@ public record Agent(UUID uniqueId, String username, @Setter Player player, int c
     }
 
     public void textAgent(LegacyMessageBuilder messageBuilder) {
-        getPlayer().ifPresent(player -> player.spigot().sendMessage(messageBuilder.build()));
+        getPlayer().ifPresent(messageBuilder::build);
     }
 
     @Override
@@ -1,12 +1,19 @@
 package mc.node.agent;
 
 import lombok.Getter;
+import mc.node.agent.cache.DepartedAgentCache;
+import mc.node.agent.economy.CoinAccount;
+import mc.node.agent.economy.CoinStore;
+import mc.node.agent.event.AgentEventBus;
 import mc.node.agent.repository.AgentRepository;
+import mc.node.objects.collection.PrefixTrie;
+import mc.node.objects.collection.UuidMap;
+import mc.node.objects.jfr.AgentLifecycleEvent;
+import org.bukkit.entity.Player;
 
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages Agent instances using a unique UUID identifier.
@@ -16,12 +23,132 @@ import java.util.concurrent.ConcurrentHashMap;
 public class AgentManager implements AgentRepository {
 
     /**
-     * A thread-safe map storing agents by their UUID.
+     * A thread-safe map storing agents by their UUID, with lock-free and allocation-free lookups.
      */
-    private final Map<UUID, Agent> agents = new ConcurrentHashMap<>();
+    private final UuidMap<Agent> agents = new UuidMap<>();
 
     /**
-     * Adds an agent to the manager.
+     * The names of the managed agents, updated on add and remove, for tab completion and lookups by name.
+     */
+    private final PrefixTrie<UUID> names = new PrefixTrie<>();
+
+    /**
+     * The coin balances of all agents, updated in place without replacing the Agent records.
+     */
+    private final CoinStore coinStore;
+
+    /**
+     * Recently departed agents, kept for a quick rejoin, or null.
+     */
+    private volatile DepartedAgentCache departedCache;
+
+    /**
+     * The bus agent joins and departures are published to, or null.
+     */
+    private volatile AgentEventBus eventBus;
+
+    /**
+     * Creates a manager whose agents start with zero coins.
+     */
+    public AgentManager() {
+        this(new CoinStore());
+    }
+
+    /**
+     * Creates a manager backed by the given coin store.
+     *
+     * @param coinStore The store holding the agents' coin balances.
+     */
+    protected AgentManager(CoinStore coinStore) {
+        this.coinStore = coinStore;
+    }
+
+    /**
+     * Creates an agent for the given player, attached to its coin account.
+     *
+     * @param uuid     The unique identifier of the agent.
+     * @param username The username of the agent.
+     * @return The new Agent instance (not yet added to the manager).
+     */
+    public Agent createAgent(UUID uuid, String username) {
+        AgentLifecycleEvent event = new AgentLifecycleEvent();
+        event.begin();
+        Agent agent = new Agent(uuid, username, coinStore.account(uuid));
+        event.finish("created", uuid, username);
+        return agent;
+    }
+
+    /**
+     * Creates an agent for a joined player from its already loaded coin account.
+     *
+     * @param player  The player.
+     * @param account The agent's coin account, see {@link CoinStore#account(UUID)}.
+     * @return The new Agent instance (not yet added to the manager).
+     */
+    public Agent createAgent(Player player, CoinAccount account) {
+        AgentLifecycleEvent event = new AgentLifecycleEvent();
+        event.begin();
+        Agent agent = new Agent(player.getUniqueId(), player.getName(), player, account);
+        event.finish("created", agent.uniqueId(), agent.username());
+        return agent;
+    }
+
+    /**
+     * Keeps agents removed from the manager in the given cache, so a player who rejoins soon gets them back
+     * through {@link #restoreAgent(Player)}.
+     *
+     * @param departedCache The cache, or null to drop departed agents.
+     */
+    public void setDepartedCache(DepartedAgentCache departedCache) {
+        if (departedCache != null) {
+            departedCache.setDropListener(this::departedDropped);
+        }
+        this.departedCache = departedCache;
+    }
+
+    /**
+     * Publishes agent joins and departures to the given bus.
+     *
+     * @param eventBus The bus, or null to publish nothing.
+     */
+    public void setEventBus(AgentEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Takes the agent of a rejoining player out of the departed cache and attaches it to the player.
+     *
+     * @param player The joining player.
+     * @return The agent (not yet added to the manager), or null if it is not cached.
+     */
+    public Agent restoreAgent(Player player) {
+        DepartedAgentCache departedCache = this.departedCache;
+        Agent departed = departedCache != null ? departedCache.take(player.getUniqueId()) : null;
+        return departed != null ? createAgent(player, departed.account()) : null;
+    }
+
+    /**
+     * @param uuid The unique identifier of the player.
+     * @return True if the player's agent is in the departed cache.
+     */
+    public boolean isDeparted(UUID uuid) {
+        DepartedAgentCache departedCache = this.departedCache;
+        return departedCache != null && departedCache.contains(uuid);
+    }
+
+    /**
+     * Looks up an agent that recently left, detached from its player.
+     *
+     * @param uuid The unique identifier of the agent.
+     * @return The departed agent, or an empty Optional if it is not cached.
+     */
+    public Optional<Agent> findDeparted(UUID uuid) {
+        DepartedAgentCache departedCache = this.departedCache;
+        return Optional.ofNullable(departedCache != null ? departedCache.peek(uuid) : null);
+    }
+
+    /**
+     * Adds an agent to the manager and publishes that it joined.
      *
      * @param uuid  The unique identifier of the agent.
      * @param agent The Agent instance to be added.
@@ -29,16 +156,40 @@ public class AgentManager implements AgentRepository {
     @Override
     public void addAgent(UUID uuid, Agent agent) {
         agents.put(uuid, agent);
+        if (agent.account().isRetired()) { // Retired while the player joined, see CoinStore#retire
+            agent = new Agent(agent.uniqueId(), agent.username(), agent.player(), coinStore.account(uuid));
+            agents.put(uuid, agent);
+        }
+        names.put(agent.username(), uuid);
+        AgentEventBus eventBus = this.eventBus;
+        if (eventBus != null) {
+            eventBus.publishJoined(uuid, agent.username());
+        }
     }
 
     /**
-     * Removes an agent from the manager.
+     * Removes an agent from the manager, moving it to the departed cache if there is one, and publishes that it left.
      *
      * @param uuid The unique identifier of the agent to be removed.
      */
     @Override
     public void removeAgent(UUID uuid) {
-        agents.remove(uuid);
+        AgentLifecycleEvent event = new AgentLifecycleEvent();
+        event.begin();
+        Agent agent = agents.remove(uuid);
+        if (agent == null) {
+            return;
+        }
+        names.remove(agent.username(), uuid); // Unless a newer agent took the name
+        DepartedAgentCache departedCache = this.departedCache;
+        if (departedCache != null) {
+            departedCache.put(agent);
+        }
+        AgentEventBus eventBus = this.eventBus;
+        if (eventBus != null) {
+            eventBus.publishLeft(uuid, agent.username());
+        }
+        event.finish("removed", uuid, agent.username());
     }
 
     @Override
@@ -46,8 +197,69 @@ public class AgentManager implements AgentRepository {
         agents.put(agent.uniqueId(), agent);
     }
 
+    /**
+     * Called when the departed cache evicts an agent or the agent expires, while the cache is locked. The coin
+     * account is kept, as without persistence it holds the only copy of the balance.
+     *
+     * @param uuid The unique identifier of the dropped agent.
+     */
+    protected void departedDropped(UUID uuid) {
+    }
+
+    /**
+     * @param uuid The unique identifier of the agent.
+     * @return True if the agent is managed or in the departed cache, so its coin account must be kept.
+     */
+    protected boolean isInUse(UUID uuid) {
+        return agents.containsKey(uuid) || isDeparted(uuid);
+    }
+
     @Override
     public Optional<Agent> findByUUID(UUID uuid) {
-        return Optional.ofNullable(agents.get(uuid));
+        return Optional.ofNullable(agents.getOrNull(uuid));
+    }
+
+    /**
+     * Looks up a managed agent by its username, ignoring case.
+     *
+     * @param username The username of the agent.
+     * @return The agent, or an empty Optional if no managed agent has the name.
+     */
+    public Optional<Agent> findByName(String username) {
+        UUID uuid = names.get(username);
+        return uuid != null ? findByUUID(uuid) : Optional.empty();
+    }
+
+    /**
+     * Lists the usernames of the managed agents starting with a prefix, walking the name trie instead of
+     * every agent.
+     *
+     * @param prefix The prefix, in any case.
+     * @param limit  The maximum number of names.
+     * @return The usernames, in alphabetical order.
+     */
+    public List<String> completeNames(String prefix, int limit) {
+        return names.complete(prefix, limit);
+    }
+
+    /**
+     * Looks up an agent without wrapping the result, for event hot paths.
+     *
+     * @param uuid The unique identifier of the agent.
+     * @return The agent, or null if it is not managed.
+     */
+    public Agent getOrNull(UUID uuid) {
+        return agents.getOrNull(uuid);
+    }
+
+    /**
+     * Looks up an agent by the two halves of its UUID, without allocating.
+     *
+     * @param mostSigBits  The most significant bits of the agent's UUID.
+     * @param leastSigBits The least significant bits of the agent's UUID.
+     * @return The agent, or null if it is not managed.
+     */
+    public Agent getOrNull(long mostSigBits, long leastSigBits) {
+        return agents.getOrNull(mostSigBits, leastSigBits);
     }
 }
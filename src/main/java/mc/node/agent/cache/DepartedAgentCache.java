@@ -0,0 +1,232 @@
+package mc.node.agent.cache;
+
+import mc.node.agent.Agent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded cache of recently departed agents, so a player who relogs gets their agent back without a load.
+ * <p>
+ * Agents are stored detached from their {@link org.bukkit.entity.Player}, so a disconnected player's entity is
+ * not kept alive by the cache. Entries expire after a fixed time and are evicted least recently used first
+ * once either the entry limit or the estimated memory limit is exceeded. As a rejoin takes its entry out,
+ * the least recently used entry is usually the one that departed first. Lookups drop their own entry once
+ * expired; {@link #put(Agent)} and {@link #cleanUp()} drop every expired entry. Evicted and expired agents
+ * are reported to the drop listener, e.g. to release their coin accounts.
+ */
+public class DepartedAgentCache {
+
+    private static final int ENTRY_BYTES = 224; // Map entry, UUID, Agent record and an empty username, estimated
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long maxBytes;
+    private final Map<UUID, Entry> entries = new LinkedHashMap<>(16, 0.75F, true); // Access order, guarded by this
+    private long bytes; // Estimated size of the entries, guarded by this
+    private volatile Consumer<UUID> dropListener = uuid -> { };
+
+    private final LongAdder hits = new LongAdder();        // Rejoins that found their agent
+    private final LongAdder misses = new LongAdder();      // Rejoins that had to load their agent
+    private final LongAdder evictions = new LongAdder();   // Entries dropped for the size or memory limit
+    private final LongAdder expirations = new LongAdder(); // Entries dropped for their age
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries The maximum number of cached agents.
+     * @param ttlSeconds How long an agent is kept after it departed, in seconds.
+     * @param maxBytes   The maximum estimated memory used by the cached agents, in bytes.
+     */
+    public DepartedAgentCache(int maxEntries, long ttlSeconds, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Sets the listener told about every agent that is evicted or expires. It is called while the cache is
+     * locked, so it must be quick and must not call back into the cache.
+     *
+     * @param dropListener The listener, receiving the unique identifier of the dropped agent.
+     */
+    public void setDropListener(Consumer<UUID> dropListener) {
+        this.dropListener = dropListener;
+    }
+
+    /**
+     * Caches a departed agent, detached from its player.
+     *
+     * @param agent The agent.
+     */
+    public synchronized void put(Agent agent) {
+        long now = System.nanoTime();
+        expire(now);
+
+        Entry entry = new Entry(agent.detach(), now, estimate(agent));
+        Entry previous = entries.put(agent.uniqueId(), entry);
+        if (previous != null) {
+            bytes -= previous.bytes();
+        }
+        bytes += entry.bytes();
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            Entry evicted = iterator.next();
+            bytes -= evicted.bytes();
+            iterator.remove();
+            evictions.increment();
+            dropListener.accept(evicted.agent().uniqueId());
+        }
+    }
+
+    /**
+     * Takes the agent of a rejoining player out of the cache.
+     *
+     * @param uuid The unique identifier of the player.
+     * @return The detached agent, or null if it is not cached.
+     */
+    public synchronized Agent take(UUID uuid) {
+        Entry entry = entries.remove(uuid);
+        if (entry != null) {
+            bytes -= entry.bytes();
+            if (!expired(entry, System.nanoTime())) {
+                hits.increment();
+                return entry.agent();
+            }
+            expirations.increment();
+            dropListener.accept(uuid);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Looks up a departed agent without taking it out of the cache, e.g. to show an offline player's data.
+     *
+     * @param uuid The unique identifier of the player.
+     * @return The detached agent, or null if it is not cached.
+     */
+    public synchronized Agent peek(UUID uuid) {
+        Entry entry = entries.get(uuid);
+        if (entry == null) {
+            return null;
+        }
+        if (expired(entry, System.nanoTime())) {
+            entries.remove(uuid);
+            bytes -= entry.bytes();
+            expirations.increment();
+            dropListener.accept(uuid);
+            return null;
+        }
+        return entry.agent();
+    }
+
+    /**
+     * @param uuid The unique identifier of the player.
+     * @return True if the player's agent is cached.
+     */
+    public boolean contains(UUID uuid) {
+        return peek(uuid) != null;
+    }
+
+    /**
+     * Drops the expired entries.
+     */
+    public synchronized void cleanUp() {
+        expire(System.nanoTime());
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return The number of cached agents.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The estimated memory used by the cached agents, in bytes.
+     */
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Rejoins that found their agent in the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Rejoins whose agent was not cached.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Entries evicted for the entry or memory limit.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Entries dropped after their time to live.
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * @return The counters as a single line, for logging.
+     */
+    public String stats() {
+        return "size=" + size() + ", bytes=" + getEstimatedBytes() + ", hits=" + getHits() + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions() + ", expirations=" + getExpirations();
+    }
+
+    /**
+     * Drops the entries older than the time to live. Guarded by this.
+     */
+    private void expire(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (expired(entry, now)) {
+                bytes -= entry.bytes();
+                iterator.remove();
+                expirations.increment();
+                dropListener.accept(entry.agent().uniqueId());
+            }
+        }
+    }
+
+    private boolean expired(Entry entry, long now) {
+        return now - entry.departedAt() > ttlNanos;
+    }
+
+    private static int estimate(Agent agent) {
+        return ENTRY_BYTES + agent.username().length() * 2;
+    }
+
+    /**
+     * A cached agent.
+     */
+    private record Entry(Agent agent, long departedAt, int bytes) {
+    }
+}
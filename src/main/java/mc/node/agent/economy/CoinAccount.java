@@ -0,0 +1,267 @@
+package mc.node.agent.economy;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.UUID;
+
+/**
+ * Mutable, atomically updated coin balance of a single agent.
+ * All operations are lock-free and allocation-free; the balance lives in a plain {@code long} field
+ * updated through a {@link VarHandle} instead of a boxed or wrapped value. Accounts bound to a
+ * {@link CoinJournal} also record every change in its ring, which stays lock-free but waits while a snapshot
+ * is taken or the ring is full, and refuses changes once it is full while commits fail. Accounts watched by a
+ * {@link CoinChangeFeed} queue themselves in it on their first change since the feed last drained them, and
+ * accounts of a {@link CoinStore} queue themselves for persistence when they become dirty.
+ */
+public final class CoinAccount {
+
+    private static final VarHandle BALANCE;
+    private static final VarHandle DIRTY;
+    private static final VarHandle QUEUED;
+    private static final VarHandle UNSHIPPED;
+    private static final VarHandle RETIRED;
+    private static final CoinChangeFeed[] NO_FEEDS = new CoinChangeFeed[0];
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BALANCE = lookup.findVarHandle(CoinAccount.class, "balance", long.class);
+            DIRTY = lookup.findVarHandle(CoinAccount.class, "dirty", boolean.class);
+            QUEUED = lookup.findVarHandle(CoinAccount.class, "queued", int.class);
+            UNSHIPPED = lookup.findVarHandle(CoinAccount.class, "unshipped", long.class);
+            RETIRED = lookup.findVarHandle(CoinAccount.class, "retired", boolean.class);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Getter
+    private final UUID uniqueId;
+    private volatile long balance;
+    private volatile boolean dirty; // Set on every change, cleared once the change was persisted
+    private final CoinJournal journal; // Records every change, or null
+    private final Queue<CoinAccount> dirtyQueue; // Receives the account when it becomes dirty, or null
+    private volatile CoinChangeFeed[] feeds = NO_FEEDS; // Feeds watching the account
+    private volatile int queued;    // One bit per feed the account is queued in
+    private volatile long unshipped; // Local changes not yet taken by the delta feed
+    private volatile boolean retired; // Set once the account was dropped from its store, see CoinStore#retire
+
+    /**
+     * Creates an account with the given starting balance.
+     *
+     * @param uniqueId The unique identifier of the owning agent.
+     * @param balance  The starting balance.
+     */
+    public CoinAccount(UUID uniqueId, long balance) {
+        this(uniqueId, balance, null, null);
+    }
+
+    /**
+     * Creates an account with the given starting balance, recording its changes in the journal.
+     *
+     * @param uniqueId   The unique identifier of the owning agent.
+     * @param balance    The starting balance.
+     * @param journal    The journal, or null.
+     * @param dirtyQueue The queue the account adds itself to whenever it becomes dirty, or null.
+     */
+    CoinAccount(UUID uniqueId, long balance, CoinJournal journal, Queue<CoinAccount> dirtyQueue) {
+        this.uniqueId = uniqueId;
+        this.balance = balance;
+        this.journal = journal;
+        this.dirtyQueue = dirtyQueue;
+    }
+
+    /**
+     * @return The current balance.
+     */
+    public long get() {
+        return balance;
+    }
+
+    /**
+     * Atomically adds the given amount to the balance.
+     *
+     * @param delta The amount to add, may be negative.
+     * @return The balance after the addition.
+     * @throws IllegalStateException if the account's journal is full while its commits fail.
+     */
+    public long add(long delta) {
+        return journal != null ? journal.add(this, delta, true) : addUnlogged(delta, true);
+    }
+
+    /**
+     * Atomically adds a change made on another node. The change is journaled, persisted and ranked like any
+     * other, but not handed out by the delta feed, so it is not replicated back.
+     *
+     * @param delta The amount to add, may be negative.
+     * @return The balance after the addition.
+     */
+    public long applyRemote(long delta) {
+        return journal != null ? journal.add(this, delta, false) : addUnlogged(delta, false);
+    }
+
+    /**
+     * Atomically sets the balance to the given value if it currently equals the expected value.
+     *
+     * @param expect The expected current balance.
+     * @param update The new balance.
+     * @return True if the balance was updated.
+     * @throws IllegalStateException if the account's journal is full while its commits fail.
+     */
+    public boolean compareAndSet(long expect, long update) {
+        return journal != null ? journal.compareAndSet(this, expect, update) : compareAndSetUnlogged(expect, update);
+    }
+
+    /**
+     * Unconditionally sets the balance.
+     *
+     * @param update The new balance.
+     * @throws IllegalStateException if the account's journal is full while its commits fail.
+     */
+    public void set(long update) {
+        if (journal != null) {
+            journal.set(this, update);
+        } else {
+            getAndSetUnlogged(update);
+        }
+    }
+
+    /**
+     * @return True if the balance changed since the last {@link #clearDirty()}.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Clears the dirty flag.
+     *
+     * @return True if the flag was set.
+     */
+    public boolean clearDirty() {
+        return dirty && DIRTY.compareAndSet(this, true, false);
+    }
+
+    /**
+     * @return True if the account was dropped from its store; {@link CoinStore#account(UUID)} then returns a new one.
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Marks the account retired if it is clean, i.e. persisted and with every local change shipped.
+     *
+     * @return True if the account was retired, false if it changed since it was last persisted or shipped.
+     */
+    boolean retire() {
+        if (dirty || unshipped != 0 || !RETIRED.compareAndSet(this, false, true)) {
+            return false;
+        }
+        if (dirty || unshipped != 0) { // Changed while it was being retired
+            retired = false;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Takes back a retirement, e.g. because the agent rejoined meanwhile. The account is queued in its ranking
+     * feeds again, which skip retired accounts.
+     */
+    void unretire() {
+        retired = false;
+        for (CoinChangeFeed feed : feeds) {
+            if (!feed.tracksDeltas()) {
+                enqueue(feed);
+            }
+        }
+    }
+
+    long addUnlogged(long delta, boolean local) {
+        long updated = (long) BALANCE.getAndAdd(this, delta) + delta;
+        changed(local ? delta : 0L);
+        return updated;
+    }
+
+    boolean compareAndSetUnlogged(long expect, long update) {
+        if (BALANCE.compareAndSet(this, expect, update)) {
+            changed(update - expect);
+            return true;
+        }
+        return false;
+    }
+
+    long getAndSetUnlogged(long update) {
+        long previous = (long) BALANCE.getAndSet(this, update);
+        changed(update - previous);
+        return previous;
+    }
+
+    /**
+     * Starts queueing the account's changes in the feed.
+     *
+     * @param feed  The feed.
+     * @param queue True to queue the account right away, e.g. for its first placement in a ranking.
+     */
+    synchronized void watch(CoinChangeFeed feed, boolean queue) {
+        CoinChangeFeed[] watched = Arrays.copyOf(feeds, feeds.length + 1);
+        watched[feeds.length] = feed;
+        feeds = watched;
+        if (queue) {
+            enqueue(feed);
+        }
+    }
+
+    /**
+     * Clears the feed's queued bit, called by the feed before it reads the account.
+     */
+    void dequeued(int mask) {
+        QUEUED.getAndBitwiseAnd(this, ~mask);
+    }
+
+    long takeUnshipped() {
+        return unshipped == 0 ? 0L : (long) UNSHIPPED.getAndSet(this, 0L);
+    }
+
+    /**
+     * Marks the account dirty and queues it in every feed it is not queued in yet.
+     *
+     * @param localDelta The change made on this node, added to the unshipped sum; 0 for remote changes.
+     */
+    private void changed(long localDelta) {
+        markDirty();
+        for (CoinChangeFeed feed : feeds) {
+            if (localDelta != 0 && feed.tracksDeltas()) {
+                UNSHIPPED.getAndAdd(this, localDelta); // Before queueing, so the drain that dequeues it sees the delta
+            }
+            enqueue(feed);
+        }
+    }
+
+    private void enqueue(CoinChangeFeed feed) {
+        int mask = feed.mask();
+        if ((queued & mask) == 0 && ((int) QUEUED.getAndBitwiseOr(this, mask) & mask) == 0) {
+            feed.offer(this);
+        }
+    }
+
+    void markDirty() {
+        // Only write when the flag flips to avoid bouncing the cache line on every increment.
+        if (!dirty && DIRTY.compareAndSet(this, false, true) && dirtyQueue != null) {
+            dirtyQueue.offer(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CoinAccount{" +
+                "uniqueId=" + uniqueId +
+                ", balance=" + balance +
+                '}';
+    }
+}
@@ -0,0 +1,111 @@
+package mc.node.agent.economy;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Queue of the coin accounts that changed since a consumer last looked at them, see {@link CoinStore#openFeed()}.
+ * <p>
+ * Each feed owns one bit of every account's queued mask. The first change of an account sets the bit and queues
+ * the account, lock-free; further changes only read the mask until the consumer drains the account. A delta feed
+ * ({@link CoinStore#openDeltaFeed()}) additionally hands out the sum of the local changes since the last drain.
+ */
+public final class CoinChangeFeed {
+
+    private final int mask;                  // This feed's bit in CoinAccount's queued mask
+    private final boolean deltas;            // True if the feed hands out local deltas
+    private final Queue<CoinAccount> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger(); // Size of the queue
+
+    CoinChangeFeed(int bit, boolean deltas) {
+        this.mask = 1 << bit;
+        this.deltas = deltas;
+    }
+
+    /**
+     * Passes the accounts queued when the call started to the consumer, which reads their current state.
+     * Accounts that change again meanwhile are queued again for the next drain, so writers cannot keep a drain busy.
+     *
+     * @param consumer The consumer of changed accounts.
+     * @return The number of drained accounts.
+     */
+    public int drain(Consumer<CoinAccount> consumer) {
+        int drained = 0;
+        CoinAccount account;
+        for (int remaining = queued.get(); remaining > 0 && (account = queue.poll()) != null; remaining--) {
+            queued.decrementAndGet();
+            account.dequeued(mask); // Before reading, so a concurrent change queues the account again
+            consumer.accept(account);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Drains the queued accounts of a delta feed, passing the sum of each account's local changes since its
+     * last drain. Accounts whose changes add up to zero are skipped.
+     *
+     * @param consumer The consumer of agent UUIDs and deltas.
+     * @return The number of drained accounts.
+     */
+    public int drainDeltas(DeltaConsumer consumer) {
+        if (!deltas) {
+            throw new IllegalStateException("Not a delta feed");
+        }
+        return drain(account -> {
+            long delta = account.takeUnshipped();
+            if (delta != 0) {
+                consumer.accept(account.getUniqueId(), delta);
+            }
+        });
+    }
+
+    /**
+     * Takes the local changes of one account ahead of the next drain, e.g. to hand the agent over.
+     *
+     * @param account The account.
+     * @return The sum of the local changes since the last drain.
+     */
+    public long takeDelta(CoinAccount account) {
+        if (!deltas) {
+            throw new IllegalStateException("Not a delta feed");
+        }
+        return account.takeUnshipped();
+    }
+
+    /**
+     * @return The number of queued accounts.
+     */
+    public int size() {
+        return queued.get();
+    }
+
+    int mask() {
+        return mask;
+    }
+
+    boolean tracksDeltas() {
+        return deltas;
+    }
+
+    void offer(CoinAccount account) {
+        queue.offer(account);
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Receives the deltas of {@link #drainDeltas(DeltaConsumer)}.
+     */
+    @FunctionalInterface
+    public interface DeltaConsumer {
+
+        /**
+         * @param uniqueId The unique identifier of the agent.
+         * @param delta    The sum of the local changes since the last drain.
+         */
+        void accept(UUID uniqueId, long delta);
+    }
+}
@@ -0,0 +1,556 @@
+package mc.node.agent.economy;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of coin deltas with group commit.
+ * <p>
+ * Every change of a {@link CoinAccount} bound to the journal claims a sequence number with a single
+ * compare-and-set on the cursor, applies the change and publishes one {@code (uuid, delta)} entry into the
+ * claimed slot of a preallocated ring, so appending takes no lock and allocates nothing. A dedicated thread
+ * follows the ring at a fixed interval and writes the published entries with a single
+ * {@link FileChannel#force(boolean)}, so any number of changes share one fsync and only the committer
+ * serialises. A crash loses at most the changes of the last interval. A change that finds the ring full waits
+ * for an early commit; while commits fail, local changes are refused with an {@link IllegalStateException}
+ * instead, and only changes from other nodes keep waiting.
+ * <p>
+ * Snapshots taken through {@link #consistent(Runnable)} see exactly the changes up to a sequence number: the
+ * cursor is frozen, so no sequence is claimed meanwhile, and the action runs once every claimed change is
+ * applied. Recovery replays the entries after each snapshot record's sequence, and {@link #compact(long)} drops
+ * the entries a durable snapshot already contains by writing the later ones to a new file that atomically
+ * replaces the journal, so the live file is never rewritten in place. Entries carry a CRC, so a torn tail is
+ * cut off on open.
+ */
+public class CoinJournal implements Closeable {
+
+    /**
+     * The default number of changes that may wait for a commit.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 17;
+
+    private static final int MAGIC = 0x4D434E4A; // "MCNJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 40;      // msb, lsb, delta, sequence, crc, padding
+    private static final int CRC_OFFSET = 32;
+    private static final int WRITE_ENTRIES = 1024; // Entries per file write of a commit
+    private static final long FROZEN = 1L << 62;   // Cursor flag set while a snapshot runs
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50L);
+
+    private final Path file;
+    private final Logger logger;
+    private final Object commitLock = new Object(); // Serialises file writes, commits and compaction
+    private final ScheduledExecutorService committer;
+
+    private final long[] ring;               // msb, lsb and delta of each slot's change; delta 0 for none
+    private final AtomicLongArray published; // Sequence last published into each slot
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(); // Last claimed sequence, with FROZEN while a snapshot runs
+    private volatile long committed;         // Last sequence handed to the file; releases the slots up to it
+    private volatile boolean failing;        // True while the last commit failed
+    private volatile boolean closed;
+    private final AtomicBoolean nudged = new AtomicBoolean(); // True while an early commit is scheduled
+
+    private FileChannel channel;   // Replaced by compaction, guarded by commitLock after construction
+    private final ByteBuffer buffer = ByteBuffer.allocate(ENTRY_SIZE * WRITE_ENTRIES); // Guarded by commitLock
+    private long end;              // File size covered by intact entries, guarded by commitLock
+    @Getter
+    private volatile long durableSequence; // Highest sequence forced to disk
+
+    /**
+     * Opens (or creates) the journal with the default capacity, cuts off a torn tail and starts the group
+     * commit thread.
+     *
+     * @param file                 The journal file.
+     * @param commitIntervalMillis The interval between two group commits, in milliseconds.
+     * @param logger               The logger used to report failed commits.
+     * @throws IOException if the file cannot be opened or is not a coin journal.
+     */
+    public CoinJournal(Path file, long commitIntervalMillis, Logger logger) throws IOException {
+        this(file, commitIntervalMillis, DEFAULT_CAPACITY, logger);
+    }
+
+    /**
+     * Opens (or creates) the journal, cuts off a torn tail and starts the group commit thread.
+     *
+     * @param file                 The journal file.
+     * @param commitIntervalMillis The interval between two group commits, in milliseconds.
+     * @param capacity             The number of changes that may wait for a commit, rounded up to a power of two.
+     * @param logger               The logger used to report failed commits.
+     * @throws IOException if the file cannot be opened or is not a coin journal.
+     */
+    public CoinJournal(Path file, long commitIntervalMillis, int capacity, Logger logger) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.logger = logger;
+
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new long[size * 3];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1L);
+        }
+        this.mask = size - 1;
+
+        if (channel.size() < HEADER_SIZE) {
+            writeHeader();
+        } else {
+            readHeader();
+        }
+        long recovered = recover();
+        this.cursor.set(recovered);
+        this.committed = this.durableSequence = recovered;
+
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MC-NODE Coin Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.committer.scheduleWithFixedDelay(this::commitQuietly, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Passes every entry in the file to the consumer, in sequence order. Used for recovery at startup.
+     *
+     * @param consumer The entry consumer.
+     * @throws IOException if the file cannot be read.
+     */
+    public void replay(EntryConsumer consumer) throws IOException {
+        synchronized (commitLock) {
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            long replayed = 0;
+            for (long position = HEADER_SIZE; position + ENTRY_SIZE <= end; position += ENTRY_SIZE) {
+                readFully(entry.clear(), position);
+                long sequence = entry.getLong(24);
+                if (sequence <= replayed) {
+                    continue; // Left behind by the in-place compaction of older versions
+                }
+                replayed = sequence;
+                consumer.accept(new UUID(entry.getLong(0), entry.getLong(8)), entry.getLong(16), sequence);
+            }
+        }
+    }
+
+    /**
+     * Makes sure new entries are numbered after the given sequence, e.g. the highest one a snapshot contains.
+     * Changes made before keep their sequence and are committed first.
+     *
+     * @param sequence The sequence number.
+     * @throws IOException if the earlier changes cannot be committed.
+     */
+    public void advanceTo(long sequence) throws IOException {
+        synchronized (commitLock) {
+            long last = freeze();
+            try {
+                write(last);
+                if (sequence > last) {
+                    committed = durableSequence = last = sequence; // No slot is claimed, so the ring moves along
+                }
+            } finally {
+                cursor.set(last);
+            }
+        }
+    }
+
+    /**
+     * Runs the action while no balance changes, so it observes exactly the changes up to the returned sequence.
+     * The action must not block on I/O, as every coin change waits for it, and must not change a balance itself.
+     *
+     * @param action The action, e.g. reading the balances of a snapshot.
+     * @return The sequence of the last change the action observed.
+     */
+    public long consistent(Runnable action) {
+        long last = freeze();
+        try {
+            action.run();
+            return last;
+        } finally {
+            cursor.set(last);
+        }
+    }
+
+    /**
+     * @return The sequence of the last claimed change.
+     */
+    public long getLastSequence() {
+        return cursor.get() & ~FROZEN;
+    }
+
+    /**
+     * Writes the published entries with a single force. Called by the commit thread at the configured interval.
+     *
+     * @throws IOException if the entries cannot be written; they stay in the ring and are retried.
+     */
+    public void commit() throws IOException {
+        synchronized (commitLock) {
+            long last = committed;
+            while (published.get((int) (last + 1) & mask) == last + 1) {
+                last++;
+            }
+            write(last);
+        }
+    }
+
+    /**
+     * Drops the entries up to the given sequence, once a snapshot containing them is durable.
+     * Later entries are written to a temporary file, which is forced and then moved over the journal, so a crash
+     * leaves either the old or the new journal intact.
+     *
+     * @param sequence The highest sequence the snapshot contains.
+     * @throws IOException if the file cannot be rewritten; the journal is then left as it was.
+     */
+    public void compact(long sequence) throws IOException {
+        synchronized (commitLock) {
+            long size = end;
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            long keep = HEADER_SIZE;
+            while (keep + ENTRY_SIZE <= size) {
+                readFully(entry.clear(), keep);
+                if (entry.getLong(24) > sequence) break;
+                keep += ENTRY_SIZE;
+            }
+            if (keep == HEADER_SIZE) {
+                return; // Nothing to drop
+            }
+
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                readFully(header, 0);
+                header.flip();
+                while (header.hasRemaining()) {
+                    out.write(header, header.position());
+                }
+                long copied = 0;
+                while (copied < size - keep) {
+                    copied += channel.transferTo(keep + copied, size - keep - copied, out.position(HEADER_SIZE + copied));
+                }
+                out.force(true);
+            }
+
+            channel.close(); // Some platforms cannot replace an open file
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+                end = HEADER_SIZE + size - keep;
+            } finally {
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE); // The old journal if the move failed
+            }
+            forceDirectory();
+        }
+    }
+
+    /**
+     * Stops the commit thread, commits the remaining entries and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true; // Changes waiting for space fail instead of waiting forever
+        committer.shutdown();
+        try {
+            if (!committer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Coin journal did not stop in time, committing anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (commitLock) {
+            try {
+                commit();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    long add(CoinAccount account, long delta, boolean local) {
+        long sequence = claim(!local); // Changes of other nodes were made already, so they always wait for space
+        long applied = 0L;
+        try {
+            long balance = account.addUnlogged(delta, local);
+            applied = delta;
+            return balance;
+        } finally {
+            publish(sequence, account.getUniqueId(), applied);
+        }
+    }
+
+    boolean compareAndSet(CoinAccount account, long expect, long update) {
+        long sequence = claim(false);
+        long applied = 0L;
+        try {
+            if (!account.compareAndSetUnlogged(expect, update)) {
+                return false;
+            }
+            applied = update - expect;
+            return true;
+        } finally {
+            publish(sequence, account.getUniqueId(), applied);
+        }
+    }
+
+    void set(CoinAccount account, long update) {
+        long sequence = claim(false);
+        long applied = 0L;
+        try {
+            applied = update - account.getAndSetUnlogged(update);
+        } finally {
+            publish(sequence, account.getUniqueId(), applied);
+        }
+    }
+
+    /**
+     * Claims the next sequence once no snapshot runs and its slot was committed. A full ring schedules an
+     * early commit and waits for it.
+     *
+     * @param always True to wait while commits fail, false to refuse the change then.
+     * @return The sequence, whose slot must be published.
+     * @throws IllegalStateException if the ring is full while commits fail and the change does not always wait,
+     *                               or the journal is closed.
+     */
+    private long claim(boolean always) {
+        int idle = 0;
+        while (true) {
+            long current = cursor.get();
+            if ((current & FROZEN) == 0) {
+                long next = current + 1;
+                if (next - committed <= published.length()) {
+                    if (cursor.compareAndSet(current, next)) {
+                        return next;
+                    }
+                    continue;
+                }
+                if ((failing && !always) || closed) {
+                    throw new IllegalStateException("Coin journal is full, " + published.length() + " changes wait for a failing commit");
+                }
+                if (!nudged.get() && nudged.compareAndSet(false, true)) {
+                    try {
+                        committer.execute(this::commitQuietly);
+                    } catch (RejectedExecutionException e) {
+                        nudged.set(false); // Closing, the next round fails
+                    }
+                }
+            }
+            idle = idle(idle);
+        }
+    }
+
+    /**
+     * Fills the claimed slot; a delta of 0 marks a change that did not happen and is not written.
+     */
+    private void publish(long sequence, UUID uniqueId, long delta) {
+        int slot = (int) sequence & mask;
+        ring[slot * 3] = uniqueId.getMostSignificantBits();
+        ring[slot * 3 + 1] = uniqueId.getLeastSignificantBits();
+        ring[slot * 3 + 2] = delta;
+        published.set(slot, sequence); // The slot's entry is visible first
+    }
+
+    /**
+     * Stops new sequences from being claimed and waits until every claimed one is published.
+     * The caller unfreezes by setting the cursor back to the returned sequence.
+     *
+     * @return The last claimed sequence.
+     */
+    private long freeze() {
+        int idle = 0;
+        long last;
+        while (true) {
+            last = cursor.get();
+            if ((last & FROZEN) == 0 && cursor.compareAndSet(last, last | FROZEN)) {
+                break;
+            }
+            idle = idle(idle);
+        }
+        for (long sequence = committed + 1; sequence <= last; sequence++) {
+            idle = 0;
+            while (published.get((int) sequence & mask) != sequence) {
+                idle = idle(idle);
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Spins, then yields, then parks briefly.
+     */
+    private static int idle(int idle) {
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+            return idle;
+        }
+        return idle + 1;
+    }
+
+    /**
+     * Writes the published entries up to the given sequence after the file's intact ones and forces them, then
+     * releases their slots. Guarded by commitLock.
+     */
+    private void write(long last) throws IOException {
+        if (last <= committed) {
+            return;
+        }
+        long position = end; // Overwrites whatever a failed commit left behind
+        CRC32C crc = new CRC32C();
+        buffer.clear();
+        for (long sequence = committed + 1; sequence <= last; sequence++) {
+            int slot = (int) sequence & mask;
+            long delta = ring[slot * 3 + 2];
+            if (delta == 0) {
+                continue;
+            }
+            if (!buffer.hasRemaining()) {
+                position = writeBuffer(position);
+            }
+            int offset = buffer.position();
+            buffer.putLong(ring[slot * 3]).putLong(ring[slot * 3 + 1]).putLong(delta).putLong(sequence);
+            crc.reset();
+            crc.update(buffer.array(), offset, CRC_OFFSET);
+            buffer.putInt((int) crc.getValue()).putInt(0);
+        }
+        position = writeBuffer(position);
+        if (position != end) {
+            channel.force(false);
+        }
+
+        end = position;
+        committed = last;
+        durableSequence = last;
+    }
+
+    private long writeBuffer(long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return position;
+    }
+
+    private void commitQuietly() {
+        nudged.set(false);
+        try {
+            commit();
+            failing = false;
+        } catch (IOException e) {
+            failing = true;
+            logger.log(Level.SEVERE, "Failed to commit the coin journal, retrying on the next commit", e);
+        }
+    }
+
+    /**
+     * Validates the entries and cuts the file after the last intact one.
+     *
+     * @return The highest sequence in the file.
+     */
+    private long recover() throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        CRC32C crc = new CRC32C();
+        long highest = 0;
+        long position = HEADER_SIZE;
+        for (; position + ENTRY_SIZE <= channel.size(); position += ENTRY_SIZE) {
+            readFully(entry.clear(), position);
+            crc.reset();
+            crc.update(entry.array(), 0, CRC_OFFSET);
+            if (entry.getInt(CRC_OFFSET) != (int) crc.getValue()) {
+                break;
+            }
+            highest = Math.max(highest, entry.getLong(24));
+        }
+
+        if (position != channel.size()) {
+            logger.warning("Cutting " + (channel.size() - position) + " torn bytes off the coin journal");
+            channel.truncate(position);
+            channel.force(false);
+        }
+        end = position;
+        return highest;
+    }
+
+    /**
+     * Makes the rename of a compaction durable. Not every platform can force a directory, where the rename is
+     * left to the file system.
+     */
+    private void forceDirectory() {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Not supported here, e.g. on Windows
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(ENTRY_SIZE).putInt(0).flip();
+        channel.truncate(0);
+        end = HEADER_SIZE;
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a coin journal file");
+        }
+        int version = header.getInt(4);
+        int entrySize = header.getInt(8);
+        if (version != VERSION || entrySize != ENTRY_SIZE) {
+            throw new IOException("Unsupported coin journal version " + version + " (entry size " + entrySize + ")");
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of coin journal file");
+            }
+        }
+    }
+
+    /**
+     * Receives the entries of {@link #replay(EntryConsumer)}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * @param uniqueId The unique identifier of the agent.
+         * @param delta    The change of the agent's balance.
+         * @param sequence The sequence number of the change.
+         */
+        void accept(UUID uniqueId, long delta, long sequence);
+    }
+}
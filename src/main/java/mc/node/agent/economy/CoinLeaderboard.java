@@ -0,0 +1,165 @@
+package mc.node.agent.economy;
+
+import mc.node.objects.collection.UuidMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ranking of agents by coins, answering top-N, rank and rank range queries in O(log n).
+ * <p>
+ * Balance changes never touch the ranking or its lock: the first change of an account after it was ranked
+ * queues the account once in the leaderboard's {@link CoinChangeFeed}, lock-free. Queries apply the queued
+ * accounts at their current balance before answering, so they see the changes made before the call.
+ * Agents that never had an account this session are ranked at their stored balance, see {@link #seed(UUID, long)}.
+ * Ties are broken by UUID, so every agent has a distinct rank, starting at 1 for the highest balance.
+ */
+public class CoinLeaderboard {
+
+    private final RankedSkipList list = new RankedSkipList();
+    private final UuidMap<RankedSkipList.Node> nodes = new UuidMap<>(); // Current node per agent, guarded by this
+    private final CoinChangeFeed feed; // Accounts whose balance changed since they were last ranked
+    private boolean ranksOffline;      // True once offline agents were seeded, guarded by this
+
+    /**
+     * Creates an empty ranking fed by the given feed, see {@link CoinStore#enableLeaderboard()}.
+     *
+     * @param feed The feed of changed accounts.
+     */
+    CoinLeaderboard(CoinChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Ranks an agent at the given balance unless it is already ranked, e.g. an offline agent read from the store.
+     *
+     * @param uuid  The unique identifier of the agent.
+     * @param coins The agent's balance.
+     */
+    public synchronized void seed(UUID uuid, long coins) {
+        ranksOffline = true;
+        if (nodes.getOrNull(uuid) == null) {
+            nodes.put(uuid, list.insert(uuid, coins));
+        }
+    }
+
+    /**
+     * Returns the highest balances.
+     *
+     * @param count The maximum number of entries.
+     * @return The entries, highest balance first.
+     */
+    public List<Entry> top(int count) {
+        return range(1, count);
+    }
+
+    /**
+     * Returns the entries between two ranks.
+     *
+     * @param fromRank The first rank, inclusive, starting at 1.
+     * @param toRank   The last rank, inclusive.
+     * @return The entries, highest balance first. Empty if no rank is in range.
+     */
+    public synchronized List<Entry> range(int fromRank, int toRank) {
+        apply();
+        int from = Math.max(fromRank, 1);
+        int to = Math.min(toRank, list.size());
+        if (from > to) {
+            return Collections.emptyList();
+        }
+
+        List<Entry> entries = new ArrayList<>(to - from + 1);
+        RankedSkipList.Node node = list.byRank(from);
+        for (int rank = from; rank <= to; rank++, node = node.next()) {
+            entries.add(new Entry(rank, node.uniqueId, node.coins));
+        }
+        return entries;
+    }
+
+    /**
+     * @param uuid The unique identifier of the agent.
+     * @return The agent's 1-based rank, or -1 if it is not ranked.
+     */
+    public synchronized int rankOf(UUID uuid) {
+        apply();
+        RankedSkipList.Node node = nodes.getOrNull(uuid);
+        return node != null ? list.rank(node) : -1;
+    }
+
+    /**
+     * @param uuid The unique identifier of the agent.
+     * @return The agent's entry, or null if it is not ranked.
+     */
+    public synchronized Entry entryOf(UUID uuid) {
+        apply();
+        RankedSkipList.Node node = nodes.getOrNull(uuid);
+        return node != null ? new Entry(list.rank(node), uuid, node.coins) : null;
+    }
+
+    /**
+     * @return The number of ranked agents.
+     */
+    public synchronized int size() {
+        apply();
+        return list.size();
+    }
+
+    /**
+     * Applies the queued balance changes, e.g. from a background task, so queries only catch up on the
+     * changes made since.
+     */
+    public synchronized void refresh() {
+        apply();
+    }
+
+    /**
+     * Stops ranking an agent whose account was retired, see {@link CoinStore#retire}. Kept ranked at its last
+     * balance if the leaderboard ranks offline agents, as that is the stored balance.
+     *
+     * @param uuid The unique identifier of the agent.
+     */
+    synchronized void forget(UUID uuid) {
+        if (ranksOffline) {
+            return;
+        }
+        RankedSkipList.Node node = nodes.remove(uuid);
+        if (node != null) {
+            list.remove(node);
+        }
+    }
+
+    /**
+     * Re-ranks the queued accounts at their current balance. Guarded by this.
+     */
+    private void apply() {
+        feed.drain(this::rank);
+    }
+
+    private void rank(CoinAccount account) {
+        if (account.isRetired()) {
+            return; // Queued before it was retired, its replacement is queued on creation
+        }
+        long coins = account.get();
+        RankedSkipList.Node node = nodes.getOrNull(account.getUniqueId());
+        if (node == null) {
+            nodes.put(account.getUniqueId(), list.insert(account.getUniqueId(), coins));
+        } else if (node.coins != coins) {
+            RankedSkipList.Node updated = list.update(node, coins);
+            if (updated != node) {
+                nodes.put(account.getUniqueId(), updated);
+            }
+        }
+    }
+
+    /**
+     * One ranked agent.
+     *
+     * @param rank     The 1-based rank.
+     * @param uniqueId The unique identifier of the agent.
+     * @param coins    The agent's balance when the query ran.
+     */
+    public record Entry(int rank, UUID uniqueId, long coins) {
+    }
+}
@@ -0,0 +1,22 @@
+package mc.node.agent.economy;
+
+import java.util.UUID;
+
+/**
+ * A point-in-time copy of many coin balances, stored in parallel primitive arrays.
+ *
+ * @param mostSigBits  The most significant bits of each agent UUID.
+ * @param leastSigBits The least significant bits of each agent UUID.
+ * @param balances     The balance of each agent.
+ * @param size         The number of valid entries in the arrays.
+ */
+public record CoinSnapshot(long[] mostSigBits, long[] leastSigBits, long[] balances, int size) {
+
+    /**
+     * @param index The entry index.
+     * @return The UUID of the entry.
+     */
+    public UUID uniqueId(int index) {
+        return new UUID(mostSigBits[index], leastSigBits[index]);
+    }
+}
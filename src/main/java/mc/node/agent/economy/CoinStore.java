@@ -0,0 +1,303 @@
+package mc.node.agent.economy;
+
+import mc.node.objects.collection.UuidMap;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Holds the coin accounts of all agents, separate from the immutable {@link mc.node.agent.Agent} records.
+ * Balance updates go straight to the account and never allocate or replace the agent.
+ */
+public class CoinStore {
+
+    private final UuidMap<CoinAccount> accounts = new UuidMap<>();
+    private final ToLongFunction<UUID> initialBalance; // Balance of an account that is created on first use
+    private final CoinJournal journal;                 // Records every change, or null
+    private final Queue<CoinAccount> dirty = new ConcurrentLinkedQueue<>(); // Accounts that became dirty since they were last drained
+    private volatile CoinChangeFeed[] feeds = new CoinChangeFeed[0]; // Feeds watching every account
+    private volatile CoinLeaderboard leaderboard;      // Ranks every account, or null
+
+    /**
+     * Creates a store in which new accounts start at zero coins.
+     */
+    public CoinStore() {
+        this(uuid -> 0L);
+    }
+
+    /**
+     * Creates a store in which new accounts start at the balance given by the loader (e.g. persisted coins).
+     *
+     * @param initialBalance The function providing the starting balance of a new account.
+     */
+    public CoinStore(ToLongFunction<UUID> initialBalance) {
+        this(initialBalance, null);
+    }
+
+    /**
+     * Creates a store whose accounts record every change in the given journal.
+     *
+     * @param initialBalance The function providing the starting balance of a new account.
+     * @param journal        The write-ahead journal, or null.
+     */
+    public CoinStore(ToLongFunction<UUID> initialBalance, CoinJournal journal) {
+        this.initialBalance = initialBalance;
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the account of the given agent, creating it on first use. A retired account is replaced by a new
+     * one, starting at the balance given by the loader, so a caller never receives an account that was dropped.
+     *
+     * @param uuid The unique identifier of the agent.
+     * @return The account.
+     */
+    public CoinAccount account(UUID uuid) {
+        CoinAccount account = accounts.computeIfAbsent(uuid, this::create);
+        if (!account.isRetired()) {
+            return account;
+        }
+        synchronized (accounts) { // The map's own lock, as computeIfAbsent takes it
+            account = accounts.getOrNull(uuid);
+            if (account == null || account.isRetired()) {
+                account = create(uuid);
+                accounts.put(uuid, account);
+            }
+            return account;
+        }
+    }
+
+    /**
+     * Drops the account of an agent that is no longer played here, if it is clean: persisted and with every
+     * local change shipped. Its ranking is dropped too unless the leaderboard ranks offline agents. The next
+     * {@link #account(UUID)} creates a new account from the stored balance.
+     *
+     * @param uuid  The unique identifier of the agent.
+     * @param inUse Checked once the account is marked retired; returning true keeps the account, e.g. because
+     *              the agent rejoined meanwhile.
+     * @return True if the account was dropped, false if there is none, it is not clean or it is in use.
+     */
+    public boolean retire(UUID uuid, BooleanSupplier inUse) {
+        CoinAccount account = accounts.getOrNull(uuid);
+        if (account == null || !account.retire()) {
+            return false;
+        }
+        if (inUse.getAsBoolean()) {
+            account.unretire();
+            return false;
+        }
+        accounts.remove(uuid, account);
+        CoinLeaderboard leaderboard = this.leaderboard;
+        if (leaderboard != null) {
+            leaderboard.forget(uuid);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the account of the given agent without creating it.
+     *
+     * @param uuid The unique identifier of the agent.
+     * @return The account, or null if the agent has none yet.
+     */
+    public CoinAccount findAccount(UUID uuid) {
+        return accounts.getOrNull(uuid);
+    }
+
+    /**
+     * Opens a feed of the accounts whose balance changed. Every existing account is queued once, so the
+     * consumer sees all of them; later accounts are queued on creation.
+     *
+     * @return The feed.
+     */
+    public synchronized CoinChangeFeed openFeed() {
+        return open(false);
+    }
+
+    /**
+     * Opens the feed of local balance changes, e.g. to replicate them. Changes made before the feed was opened
+     * and changes applied through {@link CoinAccount#applyRemote(long)} are not handed out. Only one delta feed
+     * can be open.
+     *
+     * @return The feed.
+     * @throws IllegalStateException if a delta feed is already open.
+     */
+    public synchronized CoinChangeFeed openDeltaFeed() {
+        for (CoinChangeFeed feed : feeds) {
+            if (feed.tracksDeltas()) {
+                throw new IllegalStateException("A delta feed is already open");
+            }
+        }
+        return open(true);
+    }
+
+    /**
+     * Starts ranking every account, existing and future ones, by balance.
+     *
+     * @return The leaderboard, the same instance on every call.
+     */
+    public synchronized CoinLeaderboard enableLeaderboard() {
+        if (leaderboard == null) {
+            leaderboard = new CoinLeaderboard(openFeed());
+        }
+        return leaderboard;
+    }
+
+    /**
+     * @return The leaderboard, or null if it was not enabled.
+     */
+    public CoinLeaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Atomically adds coins to the given agent's balance.
+     *
+     * @param uuid  The unique identifier of the agent.
+     * @param delta The amount to add, may be negative.
+     * @return The balance after the addition.
+     */
+    public long addCoins(UUID uuid, long delta) {
+        return account(uuid).add(delta);
+    }
+
+    /**
+     * Atomically sets the given agent's balance if it currently equals the expected value.
+     *
+     * @param uuid   The unique identifier of the agent.
+     * @param expect The expected current balance.
+     * @param update The new balance.
+     * @return True if the balance was updated.
+     */
+    public boolean compareAndSet(UUID uuid, long expect, long update) {
+        return account(uuid).compareAndSet(expect, update);
+    }
+
+    /**
+     * @param uuid The unique identifier of the agent.
+     * @return The agent's current balance.
+     */
+    public long getCoins(UUID uuid) {
+        return account(uuid).get();
+    }
+
+    /**
+     * Copies every balance into primitive arrays in a single pass.
+     * Balances are read individually, so concurrent updates may or may not be included.
+     *
+     * @return The snapshot.
+     */
+    public CoinSnapshot snapshot() {
+        SnapshotBuilder builder = new SnapshotBuilder(accounts.size());
+        accounts.forEachValue(builder);
+        return builder.build();
+    }
+
+    /**
+     * Passes every account whose balance changed since the last drain to the consumer, clearing its dirty flag.
+     * Only the accounts queued when they became dirty are visited, never every account; an account that changes
+     * again meanwhile is queued again for the next drain.
+     *
+     * @param consumer The consumer of changed accounts.
+     */
+    public void drainDirty(Consumer<CoinAccount> consumer) {
+        CoinAccount account;
+        for (int remaining = dirty.size(); remaining > 0 && (account = dirty.poll()) != null; remaining--) {
+            if (account.clearDirty()) {
+                consumer.accept(account);
+            }
+        }
+    }
+
+    /**
+     * Runs the action while no journaled balance changes, see {@link CoinJournal#consistent(Runnable)}.
+     *
+     * @param action The action reading the balances.
+     * @return The journal sequence the observed balances include, or 0 without a journal.
+     */
+    public long consistent(Runnable action) {
+        if (journal == null) {
+            action.run();
+            return 0L;
+        }
+        return journal.consistent(action);
+    }
+
+    /**
+     * Marks the given account as changed again and queues it for the next drain, e.g. after persisting it failed.
+     *
+     * @param account The account.
+     */
+    public void markDirty(CoinAccount account) {
+        account.markDirty();
+    }
+
+    /**
+     * @return The number of accounts held in memory.
+     */
+    public int size() {
+        return accounts.size();
+    }
+
+    private CoinAccount create(UUID uuid) {
+        CoinAccount account = new CoinAccount(uuid, initialBalance.applyAsLong(uuid), journal, dirty);
+        for (CoinChangeFeed feed : feeds) {
+            account.watch(feed, !feed.tracksDeltas());
+        }
+        return account;
+    }
+
+    /**
+     * Creates a feed, published before existing accounts are watched so accounts created meanwhile watch it too.
+     */
+    private CoinChangeFeed open(boolean deltas) {
+        if (feeds.length == Integer.SIZE) {
+            throw new IllegalStateException("Too many coin change feeds");
+        }
+        CoinChangeFeed feed = new CoinChangeFeed(feeds.length, deltas);
+        CoinChangeFeed[] opened = Arrays.copyOf(feeds, feeds.length + 1);
+        opened[feeds.length] = feed;
+        feeds = opened;
+        accounts.forEachValue(account -> account.watch(feed, !deltas));
+        return feed;
+    }
+
+    /**
+     * Accumulates accounts into growable primitive arrays.
+     */
+    private static final class SnapshotBuilder implements Consumer<CoinAccount> {
+        private long[] mostSigBits;
+        private long[] leastSigBits;
+        private long[] balances;
+        private int size;
+
+        private SnapshotBuilder(int capacity) {
+            this.mostSigBits = new long[capacity];
+            this.leastSigBits = new long[capacity];
+            this.balances = new long[capacity];
+        }
+
+        @Override
+        public void accept(CoinAccount account) {
+            if (size == balances.length) { // Accounts were added while copying
+                int capacity = size + (size >> 1) + 1;
+                mostSigBits = Arrays.copyOf(mostSigBits, capacity);
+                leastSigBits = Arrays.copyOf(leastSigBits, capacity);
+                balances = Arrays.copyOf(balances, capacity);
+            }
+            mostSigBits[size] = account.getUniqueId().getMostSignificantBits();
+            leastSigBits[size] = account.getUniqueId().getLeastSignificantBits();
+            balances[size] = account.get();
+            size++;
+        }
+
+        private CoinSnapshot build() {
+            return new CoinSnapshot(mostSigBits, leastSigBits, balances, size);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package mc.node.agent.economy;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Indexable skip list of (coins, uuid) keys, ordered by coins descending and then by UUID.
+ * <p>
+ * Every forward link stores its span, the number of level-0 nodes it skips, so ranks are summed on the way
+ * down: insertion, removal, rank lookup and access by rank are all O(log n) expected. A balance change that
+ * keeps a node between its neighbours updates it in place in O(1). Not thread-safe, see
+ * {@link CoinLeaderboard}.
+ */
+final class RankedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+    private static final int PROMOTION = 0x3FFF; // One in four nodes is promoted to the next level
+
+    private final Node head = new Node(null, 0L, MAX_LEVEL);
+    private final Node[] update = new Node[MAX_LEVEL]; // Search path, reused by every operation
+    private final int[] rank = new int[MAX_LEVEL];     // Rank of each node of the search path
+    private int level = 1;
+    private int size;
+
+    /**
+     * Inserts a key. The key must not be present.
+     *
+     * @param uniqueId The unique identifier of the agent.
+     * @param coins    The agent's balance.
+     * @return The inserted node, needed to remove the key again.
+     */
+    Node insert(UUID uniqueId, long coins) {
+        long mostSigBits = uniqueId.getMostSignificantBits();
+        long leastSigBits = uniqueId.getLeastSignificantBits();
+
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && x.next[i].before(coins, mostSigBits, leastSigBits)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(uniqueId, coins, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        node.previous = update[0] == head ? null : update[0];
+        if (node.next[0] != null) {
+            node.next[0].previous = node;
+        }
+        size++;
+        return node;
+    }
+
+    /**
+     * Changes the balance of a node. The node is updated in place while the new balance keeps it between its
+     * neighbours, which is the common case for small changes; otherwise it is moved.
+     *
+     * @param node  The node.
+     * @param coins The new balance.
+     * @return The node holding the new balance, a new one if it was moved.
+     */
+    Node update(Node node, long coins) {
+        Node previous = node.previous;
+        Node next = node.next[0];
+        if ((previous == null || previous.before(coins, node.mostSigBits, node.leastSigBits))
+                && (next == null || !next.before(coins, node.mostSigBits, node.leastSigBits))) {
+            node.coins = coins;
+            return node;
+        }
+        remove(node);
+        return insert(node.uniqueId, coins);
+    }
+
+    /**
+     * Removes a node returned by {@link #insert(UUID, long)}.
+     *
+     * @param node The node.
+     */
+    void remove(Node node) {
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].before(node.coins, node.mostSigBits, node.leastSigBits)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        if (update[0].next[0] != node) {
+            throw new IllegalStateException("Node is not in the list");
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        if (node.next[0] != null) {
+            node.next[0].previous = node.previous;
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+    }
+
+    /**
+     * @param node A node of the list.
+     * @return The 1-based rank of the node.
+     */
+    int rank(Node node) {
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == node || x.next[i].before(node.coins, node.mostSigBits, node.leastSigBits))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return rank;
+            }
+        }
+        throw new IllegalStateException("Node is not in the list");
+    }
+
+    /**
+     * @param rank The 1-based rank.
+     * @return The node at the rank, or null if the rank is out of range.
+     */
+    Node byRank(int rank) {
+        if (rank < 1 || rank > size) {
+            return null;
+        }
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && (random.nextInt() & 0xFFFF) < PROMOTION) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * One key of the list.
+     */
+    static final class Node {
+        final UUID uniqueId;
+        final long mostSigBits;
+        final long leastSigBits;
+        long coins;
+        final Node[] next;
+        final int[] span;
+        Node previous; // Level-0 predecessor, null for the first node
+
+        private Node(UUID uniqueId, long coins, int level) {
+            this.uniqueId = uniqueId;
+            this.mostSigBits = uniqueId != null ? uniqueId.getMostSignificantBits() : 0L;
+            this.leastSigBits = uniqueId != null ? uniqueId.getLeastSignificantBits() : 0L;
+            this.coins = coins;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+
+        /**
+         * @return True if this node sorts strictly before the given key.
+         */
+        private boolean before(long coins, long mostSigBits, long leastSigBits) {
+            if (this.coins != coins) {
+                return this.coins > coins;
+            }
+            if (this.mostSigBits != mostSigBits) {
+                return this.mostSigBits < mostSigBits;
+            }
+            return this.leastSigBits < leastSigBits;
+        }
+
+        Node next() {
+            return next[0];
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package mc.node.agent.event;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * A slot of the {@link AgentEventBus} ring, reused for every event published into it.
+ * <p>
+ * Subscribers read the slot while handling it and must copy what they keep: once every subscriber moved on,
+ * the slot is overwritten by a later event. Fields that do not apply to the event's type keep their defaults.
+ */
+@Getter
+public final class AgentEvent {
+
+    private Type type;
+    private UUID uniqueId;
+    private String username; // Joined and left events
+    private String reason;   // Coins changed events, e.g. "Break Block"
+    private long delta;      // Coins changed events
+    private long balance;    // Coins changed events, the balance after the change
+
+    AgentEvent() {
+    }
+
+    void joined(UUID uniqueId, String username) {
+        set(Type.AGENT_JOINED, uniqueId, username, null, 0L, 0L);
+    }
+
+    void left(UUID uniqueId, String username) {
+        set(Type.AGENT_LEFT, uniqueId, username, null, 0L, 0L);
+    }
+
+    void coinsChanged(UUID uniqueId, String reason, long delta, long balance) {
+        set(Type.COINS_CHANGED, uniqueId, null, reason, delta, balance);
+    }
+
+    private void set(Type type, UUID uniqueId, String username, String reason, long delta, long balance) {
+        this.type = type;
+        this.uniqueId = uniqueId;
+        this.username = username;
+        this.reason = reason;
+        this.delta = delta;
+        this.balance = balance;
+    }
+
+    @Override
+    public String toString() {
+        return "AgentEvent{" +
+                "type=" + type +
+                ", uniqueId=" + uniqueId +
+                (type == Type.COINS_CHANGED ? ", reason='" + reason + "', delta=" + delta + ", balance=" + balance : ", username='" + username + '\'') +
+                '}';
+    }
+
+    /**
+     * The kinds of agent events.
+     */
+    public enum Type {
+        AGENT_JOINED,
+        AGENT_LEFT,
+        COINS_CHANGED
+    }
+}
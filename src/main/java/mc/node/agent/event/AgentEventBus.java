@@ -0,0 +1,352 @@
+package mc.node.agent.event;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process bus of agent domain events, so listeners only publish and every consumer subscribes on its own.
+ * <p>
+ * Events are written into a preallocated ring of mutable {@link AgentEvent} slots, so publishing allocates
+ * nothing. Publishers claim a sequence number with a single compare-and-set and mark the slot published;
+ * every subscription follows the ring on its own thread and hands each event to its subscriber in order,
+ * in batches of whatever is available. The publisher never waits: if the slowest subscription is a full ring
+ * behind, the event is dropped and counted against that subscription, see {@link Subscription#getBackpressure()}.
+ */
+public class AgentEventBus implements AutoCloseable {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L); // Upper bound on a missed wakeup
+    private static final long NO_SUBSCRIBERS = -1L;
+    private static final long FULL = -2L;
+
+    private final AgentEvent[] slots;
+    private final AtomicLongArray published; // Sequence last published into each slot
+    private final int mask;
+    private final Logger logger;
+    private final AtomicLong cursor = new AtomicLong(-1L); // Last claimed sequence
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile long gatingCache = -1L; // Lowest subscription sequence when last computed
+    private volatile boolean running = true;
+
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * Creates the ring.
+     *
+     * @param ringSize The number of slots, rounded up to a power of two; the most events subscribers may lag behind.
+     * @param logger   The logger used to report failing subscribers.
+     */
+    public AgentEventBus(int ringSize, Logger logger) {
+        int size = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        this.slots = new AgentEvent[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AgentEvent();
+            published.set(i, -1L);
+        }
+        this.mask = size - 1;
+        this.logger = logger;
+    }
+
+    /**
+     * Starts a subscription at the next published event.
+     *
+     * @param name       The name of the subscription, used for its thread and metrics.
+     * @param subscriber The subscriber.
+     * @return The subscription.
+     */
+    public synchronized Subscription subscribe(String name, AgentEventSubscriber subscriber) {
+        Subscription subscription = new Subscription(name, subscriber, cursor.get());
+        subscriptions.add(subscription);
+        gatingCache = Math.min(gatingCache, subscription.sequence.get());
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Publishes that an agent joined.
+     *
+     * @param uuid     The unique identifier of the agent.
+     * @param username The username of the agent.
+     * @return False if the event was dropped because a subscription is a full ring behind.
+     */
+    public boolean publishJoined(UUID uuid, String username) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return sequence == NO_SUBSCRIBERS;
+        }
+        slots[(int) sequence & mask].joined(uuid, username);
+        publish(sequence);
+        return true;
+    }
+
+    /**
+     * Publishes that an agent left.
+     *
+     * @param uuid     The unique identifier of the agent.
+     * @param username The username of the agent.
+     * @return False if the event was dropped because a subscription is a full ring behind.
+     */
+    public boolean publishLeft(UUID uuid, String username) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return sequence == NO_SUBSCRIBERS;
+        }
+        slots[(int) sequence & mask].left(uuid, username);
+        publish(sequence);
+        return true;
+    }
+
+    /**
+     * Publishes a change of an agent's balance.
+     *
+     * @param uuid    The unique identifier of the agent.
+     * @param reason  What caused the change, e.g. "Break Block".
+     * @param delta   The amount added, may be negative.
+     * @param balance The balance after the change.
+     * @return False if the event was dropped because a subscription is a full ring behind.
+     */
+    public boolean publishCoinsChanged(UUID uuid, String reason, long delta, long balance) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return sequence == NO_SUBSCRIBERS;
+        }
+        slots[(int) sequence & mask].coinsChanged(uuid, reason, delta, balance);
+        publish(sequence);
+        return true;
+    }
+
+    /**
+     * Claims the next sequence if its slot was handled by every subscription.
+     *
+     * @return The sequence, {@link #NO_SUBSCRIBERS} or {@link #FULL}.
+     */
+    private long claim() {
+        if (subscriptions.isEmpty()) {
+            return NO_SUBSCRIBERS;
+        }
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - slots.length;
+            if (wrapPoint > gatingCache) {
+                long gating = gatingSequence();
+                gatingCache = gating;
+                if (wrapPoint > gating) {
+                    droppedEvents.increment();
+                    slowest().backpressure.increment();
+                    return FULL;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private void publish(long sequence) {
+        published.set((int) sequence & mask, sequence); // The slot's fields are visible first
+        publishedEvents.increment();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.parked) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+    }
+
+    private long gatingSequence() {
+        long gating = cursor.get();
+        for (Subscription subscription : subscriptions) {
+            gating = Math.min(gating, subscription.sequence.get());
+        }
+        return gating;
+    }
+
+    private Subscription slowest() {
+        Subscription slowest = null;
+        for (Subscription subscription : subscriptions) {
+            if (slowest == null || subscription.sequence.get() < slowest.sequence.get()) {
+                slowest = subscription;
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * @return The sequence of the last published event, -1 before the first.
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * @return The subscriptions.
+     */
+    public List<Subscription> getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * @return The counters of the bus and every subscription, for logging.
+     */
+    public String stats() {
+        StringBuilder builder = new StringBuilder()
+                .append("published=").append(publishedEvents.sum())
+                .append(", dropped=").append(droppedEvents.sum());
+        for (Subscription subscription : subscriptions) {
+            builder.append(", ").append(subscription.name).append("={").append(subscription.stats()).append('}');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Stops the subscriptions once they handled the published events, waiting at most a few seconds.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Subscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.thread);
+            try {
+                subscription.thread.join(TimeUnit.SECONDS.toMillis(5L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A subscriber and the thread following the ring for it.
+     */
+    public final class Subscription {
+        private final String name;
+        private final AgentEventSubscriber subscriber;
+        private final AtomicLong sequence; // Last handled sequence
+        private final Thread thread;
+        private volatile boolean parked;
+
+        private final LongAdder backpressure = new LongAdder(); // Events dropped while this was the slowest
+        private volatile long handled;
+        private volatile long batches;
+        private volatile long failures;
+        private volatile long maxLag;
+
+        private Subscription(String name, AgentEventSubscriber subscriber, long sequence) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.sequence = new AtomicLong(sequence);
+            this.thread = new Thread(this::run, "MC-NODE Events " + name);
+            thread.setDaemon(true);
+        }
+
+        private void run() {
+            int idle = 0;
+            while (true) {
+                long next = sequence.get() + 1;
+                long available = next;
+                while (published.get((int) available & mask) == available) {
+                    available++;
+                }
+
+                if (available == next) {
+                    if (!running) {
+                        return; // Every published event is handled
+                    }
+                    idle = idle(idle);
+                    continue;
+                }
+                idle = 0;
+
+                long lag = cursor.get() - next + 1;
+                if (lag > maxLag) {
+                    maxLag = lag;
+                }
+                for (long current = next; current < available; current++) {
+                    try {
+                        subscriber.onEvent(slots[(int) current & mask], current, current == available - 1);
+                    } catch (Throwable t) {
+                        failures++;
+                        logger.log(Level.SEVERE, "Agent event subscriber " + name + " failed on sequence " + current, t);
+                    }
+                }
+                handled += available - next;
+                batches++;
+                sequence.lazySet(available - 1); // Releases the slots to the publishers
+            }
+        }
+
+        /**
+         * Spins, then yields, then parks until a publisher wakes it.
+         */
+        private int idle(int idle) {
+            if (idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                parked = true;
+                if (published.get((int) (sequence.get() + 1) & mask) != sequence.get() + 1 && running) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                parked = false;
+                return idle;
+            }
+            return idle + 1;
+        }
+
+        /**
+         * @return The name of the subscription.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The events published but not yet handled.
+         */
+        public long getLag() {
+            return cursor.get() - sequence.get();
+        }
+
+        /**
+         * @return The highest lag seen when a batch started.
+         */
+        public long getMaxLag() {
+            return maxLag;
+        }
+
+        /**
+         * @return The events dropped because this subscription was a full ring behind.
+         */
+        public long getBackpressure() {
+            return backpressure.sum();
+        }
+
+        /**
+         * @return The events handled.
+         */
+        public long getHandled() {
+            return handled;
+        }
+
+        /**
+         * @return The counters as a single line.
+         */
+        public String stats() {
+            long batchCount = batches;
+            return "handled=" + handled + ", batches=" + batchCount + ", avg-batch=" + (batchCount == 0 ? 0 : handled / batchCount)
+                    + ", lag=" + getLag() + ", max-lag=" + maxLag + ", backpressure=" + getBackpressure() + ", failures=" + failures;
+        }
+    }
+}
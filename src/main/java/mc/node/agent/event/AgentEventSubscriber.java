@@ -0,0 +1,17 @@
+package mc.node.agent.event;
+
+/**
+ * Handles the events of an {@link AgentEventBus}, on the subscription's own thread.
+ */
+@FunctionalInterface
+public interface AgentEventSubscriber {
+
+    /**
+     * Handles one event. The event is a reused slot, valid only during the call.
+     *
+     * @param event      The event.
+     * @param sequence   The event's sequence number in the bus.
+     * @param endOfBatch True if no further event is available right now, e.g. to flush batched work.
+     */
+    void onEvent(AgentEvent event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,64 @@
+package mc.node.agent.event;
+
+import lombok.RequiredArgsConstructor;
+import mc.node.agent.Agent;
+import mc.node.agent.AgentManager;
+import mc.node.objects.chat.MessageBuilder;
+import mc.node.objects.scheduler.NodeScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tells online agents about their coin changes.
+ * <p>
+ * Events are handled on the subscription thread, but the messages are sent from the main thread: the changes
+ * of one batch of events are collected and handed to a single {@link NodeScheduler#runSync(Runnable)}. The
+ * messages then go through the outbound queues like every other main-thread send, in the order of the changes.
+ */
+@RequiredArgsConstructor
+public class CoinMessageSubscriber implements AgentEventSubscriber {
+
+    private static final int MAX_BATCH = 1024; // Changes handed to the main thread at once, at most
+
+    private final NodeScheduler scheduler;
+    private final AgentManager agentManager;
+    private List<Change> pending = new ArrayList<>(); // Subscription thread only
+
+    @Override
+    public void onEvent(AgentEvent event, long sequence, boolean endOfBatch) {
+        if (event.getType() == AgentEvent.Type.COINS_CHANGED) {
+            pending.add(new Change(event.getUniqueId(), event.getReason(), event.getDelta(), event.getBalance()));
+        }
+        if (!pending.isEmpty() && (endOfBatch || pending.size() >= MAX_BATCH)) {
+            List<Change> changes = pending;
+            pending = new ArrayList<>();
+            scheduler.runSync(() -> send(changes));
+        }
+    }
+
+    /**
+     * Sends the messages of the changes, on the main thread.
+     */
+    private void send(List<Change> changes) {
+        for (Change change : changes) {
+            Agent agent = agentManager.getOrNull(change.uniqueId());
+            if (agent == null) {
+                continue;
+            }
+
+            agent.textAgent(MessageBuilder.legacy("&a[MC-NODE] %reason% by %player% and add %delta% coin")
+                    .addPlaceholder("%reason%", change.reason())
+                    .addPlaceholder("%player%", agent.username())
+                    .addPlaceholder("%delta%", String.valueOf(change.delta())));
+            agent.textAgent(MessageBuilder.legacy("&a[MC-NODE] You have now %coins% coins.").addPlaceholder("%coins%", String.valueOf(change.balance())));
+        }
+    }
+
+    /**
+     * A coin change copied out of its reused event slot.
+     */
+    private record Change(UUID uniqueId, String reason, long delta, long balance) {
+    }
+}
@@ -0,0 +1,198 @@
+package mc.node.agent.preload;
+
+import lombok.Getter;
+import mc.node.agent.economy.CoinAccount;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads agent data ahead of the join, so the main thread never waits for the storage backend.
+ * <p>
+ * {@link #preload(UUID)} runs during the asynchronous pre-login: it starts the load on a worker pool and waits
+ * for it up to a timeout. The result stays in a short-lived pending cache until {@link #claim(UUID)} takes it
+ * on join. A load that is not finished by then is still returned as a future and completes later, so a slow
+ * backend delays the agent instead of the tick. Pending entries of players that never join expire.
+ */
+public class AgentPreloader {
+
+    private final Function<UUID, CoinAccount> loader;
+    private final long timeoutMillis;
+    private final long pendingTtlNanos;
+    @Getter
+    private final boolean denyOnTimeout;
+    private final Logger logger;
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService workers;
+
+    private final LongAdder hits = new LongAdder();     // Joins whose data was loaded in time
+    private final LongAdder misses = new LongAdder();   // Joins that had to wait for (or start) the load
+    private final LongAdder timeouts = new LongAdder(); // Pre-logins that gave up waiting
+    private final LongAdder failures = new LongAdder(); // Loads that threw
+
+    /**
+     * Starts the worker pool.
+     *
+     * @param loader            The function loading an agent's coin account from the backend; called on a worker.
+     * @param threads           The number of worker threads.
+     * @param timeoutMillis     How long the pre-login waits for a load, in milliseconds.
+     * @param pendingTtlSeconds How long a preloaded agent is kept for a player that does not join, in seconds, at least 1.
+     * @param denyOnTimeout     True to deny the login when the load does not finish in time.
+     * @param logger            The logger used to report failed loads.
+     */
+    public AgentPreloader(Function<UUID, CoinAccount> loader, int threads, long timeoutMillis, long pendingTtlSeconds,
+                          boolean denyOnTimeout, Logger logger) {
+        if (pendingTtlSeconds < 1L) {
+            logger.warning("join.pending-ttl-seconds must be at least 1, got " + pendingTtlSeconds + ", using 1");
+            pendingTtlSeconds = 1L;
+        }
+        this.loader = loader;
+        this.timeoutMillis = timeoutMillis;
+        this.pendingTtlNanos = TimeUnit.SECONDS.toNanos(pendingTtlSeconds);
+        this.denyOnTimeout = denyOnTimeout;
+        this.logger = logger;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newScheduledThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "MC-NODE Agent Preloader #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers.scheduleWithFixedDelay(this::expire, pendingTtlSeconds, pendingTtlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts loading the agent and waits for it up to the timeout. Called from the asynchronous pre-login.
+     *
+     * @param uuid The unique identifier of the joining player.
+     * @return True if the agent was loaded in time.
+     */
+    public boolean preload(UUID uuid) {
+        Pending entry = pending.computeIfAbsent(uuid, id -> new Pending(load(id), System.nanoTime()));
+        try {
+            entry.account().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            logger.warning("Loading agent " + uuid + " took longer than " + timeoutMillis + "ms");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false; // Already reported by load
+        }
+    }
+
+    /**
+     * Takes the preloaded account of a joining player. If no load was started or it failed, a new one is started.
+     *
+     * @param uuid The unique identifier of the joining player.
+     * @return The account, already completed on a preload hit.
+     */
+    public CompletableFuture<CoinAccount> claim(UUID uuid) {
+        Pending entry = pending.remove(uuid);
+        if (entry != null && entry.account().isDone() && !entry.account().isCompletedExceptionally()) {
+            hits.increment();
+            return entry.account();
+        }
+
+        misses.increment();
+        return entry != null && !entry.account().isCompletedExceptionally() ? entry.account() : load(uuid);
+    }
+
+    /**
+     * Drops a pending agent, e.g. when the login was denied or the player left.
+     *
+     * @param uuid The unique identifier of the player.
+     */
+    public void discard(UUID uuid) {
+        pending.remove(uuid);
+    }
+
+    /**
+     * Drops a pending agent that was started before the given time, e.g. when a session ends. A preload started
+     * since, by a new login of the same player, is kept.
+     *
+     * @param uuid  The unique identifier of the player.
+     * @param nanos The {@link System#nanoTime()} the session began at.
+     */
+    public void discardBefore(UUID uuid, long nanos) {
+        pending.computeIfPresent(uuid, (id, entry) -> entry.createdAt() - nanos < 0L ? null : entry);
+    }
+
+    /**
+     * @return Joins whose agent was loaded before the join.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Joins whose agent was still loading, or was not preloaded at all.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Pre-logins that stopped waiting for the load.
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return Loads that failed.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return The counters as a single line, for logging.
+     */
+    public String stats() {
+        return "hits=" + getHits() + ", misses=" + getMisses() + ", timeouts=" + getTimeouts() + ", failures=" + getFailures();
+    }
+
+    /**
+     * Stops the worker pool and drops every pending agent.
+     */
+    public void close() {
+        workers.shutdownNow();
+        pending.clear();
+    }
+
+    private CompletableFuture<CoinAccount> load(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> loader.apply(uuid), workers).whenComplete((account, error) -> {
+            if (error != null) {
+                failures.increment();
+                logger.log(Level.SEVERE, "Failed to load agent " + uuid, error);
+            }
+        });
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        pending.values().removeIf(entry -> now - entry.createdAt() > pendingTtlNanos);
+    }
+
+    /**
+     * A load started for a player that has not joined yet.
+     */
+    private record Pending(CompletableFuture<CoinAccount> account, long createdAt) {
+    }
+}
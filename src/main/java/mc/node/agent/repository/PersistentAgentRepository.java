@@ -0,0 +1,314 @@
+package mc.node.agent.repository;
+
+import mc.node.agent.Agent;
+import mc.node.agent.AgentManager;
+import mc.node.agent.economy.CoinJournal;
+import mc.node.agent.economy.CoinStore;
+import mc.node.agent.storage.AgentRecord;
+import mc.node.agent.storage.AgentStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link AgentManager} that persists agents through an {@link AgentStore} with write-behind semantics.
+ * <p>
+ * Mutations only record the latest agent state in a dirty set, so they never touch the disk on the calling
+ * (main) thread. Coin changes made directly on a {@link mc.node.agent.economy.CoinAccount} are picked up
+ * through the queue an account joins when it becomes dirty. A single background writer flushes both as one
+ * batch at a fixed interval, and {@link #close()} performs a final flush on shutdown. Coin accounts start at
+ * their persisted balance, read from the store on first use, so offline agents are never held in memory.
+ * <p>
+ * With a {@link CoinJournal}, every coin change is also logged and group-committed within milliseconds. Each
+ * flush is a consistent snapshot: records carry the journal sequence their balance includes, so startup
+ * replays exactly the logged changes a record misses, and the journal is compacted after every flush.
+ * <p>
+ * Accounts of agents that are no longer played here, because they left the departed cache or only received
+ * changes from other nodes, are retired after a flush persisted them, so memory stays bounded by the active
+ * agents. See {@link CoinStore#retire}.
+ */
+public class PersistentAgentRepository extends AgentManager {
+
+    private final AgentStore store;
+    private final CoinJournal journal; // Write-ahead log of coin changes, or null
+    private final Logger logger;
+    private final Map<UUID, Agent> dirty = new ConcurrentHashMap<>();      // Latest unflushed state per agent
+    private final Set<UUID> retirable = ConcurrentHashMap.newKeySet();     // Accounts to retire once persisted
+    private final ScheduledExecutorService writer;
+
+    /**
+     * Opens the repository and starts the background writer.
+     *
+     * @param store                The storage backend.
+     * @param flushIntervalSeconds The interval between two flushes of the dirty set, in seconds, at least 1.
+     * @param logger               The logger used to report failed flushes.
+     * @throws IOException if the store cannot be read.
+     */
+    public PersistentAgentRepository(AgentStore store, long flushIntervalSeconds, Logger logger) throws IOException {
+        this(store, null, flushIntervalSeconds, logger);
+    }
+
+    /**
+     * Replays the coin changes the store misses from the journal and starts the background writer.
+     *
+     * @param store                The storage backend.
+     * @param journal              The write-ahead log of coin changes, or null.
+     * @param flushIntervalSeconds The interval between two flushes of the dirty set, in seconds, at least 1.
+     * @param logger               The logger used to report failed flushes.
+     * @throws IOException if the stored agents cannot be recovered.
+     */
+    public PersistentAgentRepository(AgentStore store, CoinJournal journal, long flushIntervalSeconds, Logger logger) throws IOException {
+        super(new CoinStore(uuid -> storedCoins(store, uuid), journal));
+        this.store = store;
+        this.journal = journal;
+        this.logger = logger;
+
+        if (journal != null) {
+            recover();
+        }
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MC-NODE Agent Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (flushIntervalSeconds < 1L) {
+            logger.warning("storage.flush-interval-seconds must be at least 1, got " + flushIntervalSeconds + ", using 1");
+            flushIntervalSeconds = 1L;
+        }
+        this.writer.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reads the last flushed state of an agent from the store, e.g. for a player that is offline.
+     * Unflushed changes of the agent are not included.
+     *
+     * @param uuid The unique identifier of the agent.
+     * @return The stored record, or an empty Optional if the agent was never stored.
+     * @throws UncheckedIOException if the store cannot be read.
+     */
+    public Optional<AgentRecord> findStored(UUID uuid) {
+        try {
+            return Optional.ofNullable(store.load(uuid));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load agent " + uuid, e);
+        }
+    }
+
+    /**
+     * Adds an agent, storing it on the next flush.
+     *
+     * @param uuid  The unique identifier of the agent.
+     * @param agent The Agent instance to be added.
+     */
+    @Override
+    public void addAgent(UUID uuid, Agent agent) {
+        super.addAgent(uuid, agent);
+        dirty.put(uuid, agent);
+    }
+
+    /**
+     * Removes an agent, keeping its last state in the dirty set until the next flush.
+     *
+     * @param uuid The unique identifier of the agent to be removed.
+     */
+    @Override
+    public void removeAgent(UUID uuid) {
+        findByUUID(uuid).ifPresent(agent -> dirty.put(uuid, agent.detach()));
+        super.removeAgent(uuid);
+    }
+
+    @Override
+    public void updateAgent(Agent agent) {
+        super.updateAgent(agent);
+        dirty.put(agent.uniqueId(), agent);
+    }
+
+    /**
+     * Queues the account of the dropped agent to be retired after the next flush.
+     *
+     * @param uuid The unique identifier of the dropped agent.
+     */
+    @Override
+    protected void departedDropped(UUID uuid) {
+        retirable.add(uuid);
+    }
+
+    /**
+     * Writes every dirty agent and changed coin account to the store as one batch. Called by the background writer.
+     * If the batch fails, the drained agents and accounts are marked dirty again and retried on the next flush.
+     */
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        Map<UUID, Agent> agents = new HashMap<>();
+        Map<UUID, Long> balances = new HashMap<>();
+
+        // Balances are read while no coin changes, so they include exactly the journal entries up to sequence.
+        // Only the agents and accounts queued since the last flush are visited, as every coin change waits meanwhile.
+        long sequence = getCoinStore().consistent(() -> {
+            Iterator<Map.Entry<UUID, Agent>> iterator = dirty.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, Agent> entry = iterator.next();
+                Agent agent = entry.getValue();
+                if (dirty.remove(entry.getKey(), agent)) {
+                    agents.put(agent.uniqueId(), agent);
+                    balances.put(agent.uniqueId(), agent.coins());
+                }
+            }
+            getCoinStore().drainDirty(account -> balances.put(account.getUniqueId(), account.get()));
+        });
+
+        if (balances.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<AgentRecord> batch = new ArrayList<>(balances.size());
+            for (Map.Entry<UUID, Long> entry : balances.entrySet()) {
+                UUID uuid = entry.getKey();
+                Agent agent = agents.containsKey(uuid) ? agents.get(uuid) : getOrNull(uuid);
+                String username;
+                if (agent != null) {
+                    username = agent.username();
+                } else {
+                    AgentRecord record = store.load(uuid); // Offline account, keep the stored name
+                    username = record != null ? record.username() : "";
+                }
+                batch.add(new AgentRecord(uuid, username, entry.getValue(), now, sequence));
+            }
+            store.saveAll(batch);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to flush " + balances.size() + " agents, retrying on the next flush", e);
+            for (Map.Entry<UUID, Agent> entry : agents.entrySet()) {
+                dirty.putIfAbsent(entry.getKey(), entry.getValue()); // A newer state queued meanwhile wins
+            }
+            for (UUID uuid : balances.keySet()) {
+                getCoinStore().markDirty(getCoinStore().account(uuid));
+            }
+            return;
+        }
+
+        for (UUID uuid : balances.keySet()) {
+            if (getOrNull(uuid) == null) {
+                retirable.add(uuid); // E.g. an agent playing on another node, or one that just left
+            }
+        }
+        retire();
+
+        if (journal != null) {
+            try {
+                journal.compact(sequence);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to compact the coin journal", e);
+            }
+        }
+    }
+
+    /**
+     * Retires the queued accounts that are persisted and shipped. Agents still in use are left to be queued
+     * again when they leave the departed cache; accounts that changed since the flush are retried after the next.
+     */
+    private void retire() {
+        CoinStore coinStore = getCoinStore();
+        Iterator<UUID> iterator = retirable.iterator();
+        while (iterator.hasNext()) {
+            UUID uuid = iterator.next();
+            if (isInUse(uuid) || coinStore.findAccount(uuid) == null || coinStore.retire(uuid, () -> isInUse(uuid))) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Applies the journal entries each stored record misses. Recovered records are written back at once,
+     * after which the journal is compacted. Only the records of agents in the journal are read.
+     */
+    private void recover() throws IOException {
+        Map<UUID, AgentRecord> records = new HashMap<>(); // Stored records of the agents in the journal
+        Set<UUID> recovered = new HashSet<>();
+        IOException[] failure = new IOException[1];
+        journal.replay((uuid, delta, sequence) -> {
+            AgentRecord record = records.get(uuid);
+            if (record == null) {
+                try {
+                    record = store.load(uuid);
+                } catch (IOException e) {
+                    failure[0] = e;
+                    return;
+                }
+                if (record == null) {
+                    record = new AgentRecord(uuid, "", 0L, System.currentTimeMillis(), 0L);
+                }
+            }
+            if (sequence > record.sequence()) {
+                record = record.withDelta(delta, sequence);
+                recovered.add(uuid);
+            }
+            records.put(uuid, record);
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        journal.advanceTo(store.highestSequence());
+
+        long sequence = journal.getLastSequence();
+        if (!recovered.isEmpty()) {
+            logger.info("Recovered coin changes of " + recovered.size() + " agents from the journal");
+            records.keySet().retainAll(recovered);
+            store.saveAll(records.values());
+        }
+        journal.compact(sequence);
+    }
+
+    private static long storedCoins(AgentStore store, UUID uuid) {
+        try {
+            AgentRecord record = store.load(uuid);
+            return record != null ? record.coins() : 0L;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load the coins of " + uuid, e);
+        }
+    }
+
+    /**
+     * Stops the background writer, flushes the remaining dirty agents and closes the store.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Agent writer did not stop in time, flushing anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+        try {
+            store.close();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to close the agent store", e);
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to close the coin journal", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package mc.node.agent.storage;
+
+import mc.node.agent.Agent;
+
+import java.util.UUID;
+
+/**
+ * The persisted state of an agent.
+ *
+ * @param uniqueId The unique identifier of the agent.
+ * @param username The last known username.
+ * @param coins    The coin balance.
+ * @param lastSeen The time the record was written, in epoch milliseconds.
+ * @param sequence The coin journal sequence the balance includes, 0 without a journal.
+ */
+public record AgentRecord(UUID uniqueId, String username, long coins, long lastSeen, long sequence) {
+
+    /**
+     * Captures the persisted state of the given agent.
+     *
+     * @param agent    The agent to capture.
+     * @param lastSeen The capture time, in epoch milliseconds.
+     * @param sequence The coin journal sequence the agent's balance includes.
+     * @return The record.
+     */
+    public static AgentRecord of(Agent agent, long lastSeen, long sequence) {
+        return new AgentRecord(agent.uniqueId(), agent.username(), agent.coins(), lastSeen, sequence);
+    }
+
+    /**
+     * @param delta    The change of the balance.
+     * @param sequence The journal sequence of the change.
+     * @return A copy with the change applied.
+     */
+    public AgentRecord withDelta(long delta, long sequence) {
+        return new AgentRecord(uniqueId, username, coins + delta, lastSeen, sequence);
+    }
+}
@@ -0,0 +1,75 @@
+package mc.node.agent.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Durable storage backend for agent records.
+ * Implementations are only called from the background writer and at startup/shutdown, never per event.
+ */
+public interface AgentStore extends Closeable {
+
+    /**
+     * Loads every stored record.
+     *
+     * @return The records keyed by agent UUID.
+     * @throws IOException if the store cannot be read.
+     */
+    Map<UUID, AgentRecord> loadAll() throws IOException;
+
+    /**
+     * Loads the record of a single agent, e.g. an offline one, without loading the others.
+     *
+     * @param uuid The unique identifier of the agent.
+     * @return The record, or null if the agent was never stored.
+     * @throws IOException if the store cannot be read.
+     */
+    default AgentRecord load(UUID uuid) throws IOException {
+        return loadAll().get(uuid);
+    }
+
+    /**
+     * Passes the balance of every stored agent to the consumer, e.g. to rank offline agents.
+     *
+     * @param consumer The consumer of agent UUIDs and balances.
+     * @throws IOException if the store cannot be read.
+     */
+    default void forEachBalance(ObjLongConsumer<UUID> consumer) throws IOException {
+        for (AgentRecord record : loadAll().values()) {
+            consumer.accept(record.uniqueId(), record.coins());
+        }
+    }
+
+    /**
+     * @return The highest coin journal sequence of any stored record.
+     * @throws IOException if the store cannot be read.
+     */
+    default long highestSequence() throws IOException {
+        long highest = 0;
+        for (AgentRecord record : loadAll().values()) {
+            highest = Math.max(highest, record.sequence());
+        }
+        return highest;
+    }
+
+    /**
+     * @return The number of stored records.
+     * @throws IOException if the store cannot be read.
+     */
+    default int size() throws IOException {
+        return loadAll().size();
+    }
+
+    /**
+     * Writes the given records as one batch, inserting new agents and overwriting existing ones.
+     *
+     * @param records The records to write.
+     * @throws IOException if the batch cannot be written.
+     */
+    void saveAll(Collection<AgentRecord> records) throws IOException;
+
+}
@@ -0,0 +1,378 @@
+package mc.node.agent.storage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * {@link AgentStore} backed by a single memory-mapped file of fixed-size records.
+ * <p>
+ * Layout: a {@value #HEADER_SIZE}-byte header (magic, version, record size, record count) followed by
+ * {@value #RECORD_SIZE}-byte records holding the UUID, coins, last-seen time, username and, in the last eight
+ * bytes, the coin journal sequence. Version 1 files left those bytes zeroed and are read as is. Every agent keeps
+ * its slot for the lifetime of the file, so a batch only rewrites the records that changed, followed by a
+ * force of each run of changed pages.
+ * <p>
+ * Opening the file maps it and builds an index from UUID to slot; no record is parsed or kept on the heap.
+ * The index is an open-addressing table of slot numbers whose keys are compared against the mapped records,
+ * so it costs a few bytes per agent. {@link #load(UUID)} reads a single record straight from the mapping.
+ * <p>
+ * Reads never wait for the disk: a batch holds the write lock only while it copies records into the mapping
+ * and updates the index, and forces the pages after releasing it. {@link #load(UUID)} first reads without
+ * locking and only retries under the read lock if a batch wrote in between. Batches are serialized among
+ * themselves, so the header is only rewritten after the records it counts are forced.
+ */
+public class FileAgentStore implements AgentStore {
+
+    private static final int MAGIC = 0x4D434E44; // "MCND"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    private static final int MAX_NAME_BYTES = 23;
+    private static final int NAME_OFFSET = 32;
+    private static final int SEQUENCE_OFFSET = 56;
+    private static final int MIN_MAPPED_SLOTS = 1024; // Slots mapped ahead, doubled whenever the file grows
+    private static final int PAGE_SIZE = 4096;        // Unit of a force, changed records are rounded out to pages
+
+    private final FileChannel channel;
+    private final StampedLock lock = new StampedLock(); // Guards the fields below against readers
+    private final Object saveLock = new Object();       // Serializes batches, held across their forces
+    private MappedByteBuffer map;
+    private int mappedSlots;      // Records covered by the mapping
+    private int count;            // Records in the file
+    private int[] index;          // Slot + 1 per hash bucket, 0 if empty
+    private long highestSequence; // Highest journal sequence of any record
+
+    /**
+     * Opens (or creates) the store file, maps it and indexes the records.
+     *
+     * @param file The file to store agents in.
+     * @throws IOException if the file cannot be opened or is not an agent store.
+     */
+    public FileAgentStore(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        if (size == 0) {
+            remap(MIN_MAPPED_SLOTS);
+            writeHeader();
+            map.force();
+        } else if (size < HEADER_SIZE) {
+            throw new IOException("Not an agent store file");
+        } else {
+            remap((int) Math.max(MIN_MAPPED_SLOTS, (size - HEADER_SIZE) / RECORD_SIZE));
+            int version = readHeader();
+            if (offset(count) > size) {
+                throw new IOException("Agent store file is truncated, expected " + count + " records");
+            }
+            if (version < VERSION) {
+                writeHeader(); // Upgrade in place, the record layout is unchanged
+                map.force(0, HEADER_SIZE);
+            }
+        }
+
+        this.index = new int[bucketsFor(count)];
+        for (int slot = 0; slot < count; slot++) {
+            insert(slot);
+            highestSequence = Math.max(highestSequence, map.getLong(offset(slot) + SEQUENCE_OFFSET));
+        }
+    }
+
+    @Override
+    public Map<UUID, AgentRecord> loadAll() {
+        long stamp = lock.readLock();
+        try {
+            Map<UUID, AgentRecord> records = new HashMap<>(count * 2);
+            for (int slot = 0; slot < count; slot++) {
+                AgentRecord agentRecord = readRecord(map, slot);
+                records.put(agentRecord.uniqueId(), agentRecord);
+            }
+            return records;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public AgentRecord load(UUID uuid) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AgentRecord agentRecord = lookup(uuid);
+                if (lock.validate(stamp)) {
+                    return agentRecord;
+                }
+            } catch (RuntimeException ignored) {
+                // Torn read of a concurrent batch, retried under the read lock
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return lookup(uuid);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void forEachBalance(ObjLongConsumer<UUID> consumer) {
+        long stamp = lock.readLock();
+        try {
+            for (int slot = 0; slot < count; slot++) {
+                int offset = offset(slot);
+                consumer.accept(new UUID(map.getLong(offset), map.getLong(offset + 8)), map.getLong(offset + 16));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public long highestSequence() {
+        long stamp = lock.readLock();
+        try {
+            return highestSequence;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<AgentRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        synchronized (saveLock) {
+            int[] slots = new int[records.size()];
+            int written = 0;
+            boolean grown;
+            MappedByteBuffer mapped;
+
+            long stamp = lock.writeLock();
+            try {
+                int previousCount = count;
+                for (AgentRecord agentRecord : records) {
+                    UUID uuid = agentRecord.uniqueId();
+                    int slot = find(map, index, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                    if (slot < 0) {
+                        slot = append();
+                        writeRecord(slot, agentRecord);
+                        insert(slot);
+                    } else {
+                        writeRecord(slot, agentRecord);
+                    }
+                    slots[written++] = slot;
+                    highestSequence = Math.max(highestSequence, agentRecord.sequence());
+                }
+                grown = count != previousCount;
+                mapped = map; // Only a batch remaps, so this stays the current mapping until we return
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+
+            // Records first, so the header never counts records that are not on disk yet
+            forcePages(mapped, slots, written);
+            if (grown) {
+                writeHeader(); // Only read when the file is opened, so it needs no lock
+                mapped.force(0, HEADER_SIZE);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (saveLock) {
+            map.force();
+            channel.close();
+        }
+    }
+
+    /**
+     * Forces the pages holding the given slots, one force per run of adjacent pages.
+     */
+    private void forcePages(MappedByteBuffer mapped, int[] slots, int length) {
+        Arrays.sort(slots, 0, length);
+        int runStart = -1;
+        int runEnd = -1; // Exclusive, in pages
+        for (int i = 0; i < length; i++) {
+            int firstPage = offset(slots[i]) / PAGE_SIZE;
+            int lastPage = (offset(slots[i]) + RECORD_SIZE - 1) / PAGE_SIZE;
+            if (runStart >= 0 && firstPage <= runEnd) {
+                runEnd = Math.max(runEnd, lastPage + 1);
+                continue;
+            }
+            if (runStart >= 0) {
+                forceRange(mapped, runStart, runEnd);
+            }
+            runStart = firstPage;
+            runEnd = lastPage + 1;
+        }
+        if (runStart >= 0) {
+            forceRange(mapped, runStart, runEnd);
+        }
+    }
+
+    private void forceRange(MappedByteBuffer mapped, int startPage, int endPage) {
+        int start = startPage * PAGE_SIZE;
+        mapped.force(start, Math.min(endPage * PAGE_SIZE, mapped.capacity()) - start);
+    }
+
+    /**
+     * Reads the record of an agent. Called either under the read lock or optimistically, so it reads every
+     * field once and may throw on the inconsistent state of a concurrent batch.
+     */
+    private AgentRecord lookup(UUID uuid) {
+        MappedByteBuffer mapped = map;
+        int slot = find(mapped, index, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        return slot < 0 ? null : readRecord(mapped, slot);
+    }
+
+    /**
+     * Claims the next free slot, growing the mapping and the index when needed. The caller writes the record
+     * and then inserts the slot into the index.
+     */
+    private int append() throws IOException {
+        int slot = count;
+        if (slot == mappedSlots) {
+            remap(mappedSlots * 2);
+        }
+        count++;
+        if (count * 2L > index.length) {
+            this.index = new int[bucketsFor(count)];
+            for (int existing = 0; existing < slot; existing++) {
+                insert(existing);
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * @return The slot of the record with the given UUID, or -1 if there is none.
+     */
+    private static int find(MappedByteBuffer map, int[] index, long mostSigBits, long leastSigBits) {
+        int mask = index.length - 1;
+        for (int bucket = hash(mostSigBits, leastSigBits) & mask; ; bucket = (bucket + 1) & mask) {
+            int slot = index[bucket] - 1;
+            if (slot < 0) {
+                return -1;
+            }
+            int offset = offset(slot);
+            if (map.getLong(offset) == mostSigBits && map.getLong(offset + 8) == leastSigBits) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Adds the slot to the index, keyed by the UUID of its mapped record.
+     */
+    private void insert(int slot) {
+        int offset = offset(slot);
+        int mask = index.length - 1;
+        int bucket = hash(map.getLong(offset), map.getLong(offset + 8)) & mask;
+        while (index[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot + 1;
+    }
+
+    private void remap(int slots) throws IOException {
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, offset(slots));
+        this.mappedSlots = slots;
+    }
+
+    private static AgentRecord readRecord(MappedByteBuffer map, int slot) {
+        int offset = offset(slot);
+        UUID uniqueId = new UUID(map.getLong(offset), map.getLong(offset + 8));
+        long coins = map.getLong(offset + 16);
+        long lastSeen = map.getLong(offset + 24);
+        byte[] name = new byte[Math.min(map.get(offset + NAME_OFFSET) & 0xFF, MAX_NAME_BYTES)];
+        map.get(offset + NAME_OFFSET + 1, name);
+        long sequence = map.getLong(offset + SEQUENCE_OFFSET);
+
+        return new AgentRecord(uniqueId, new String(name, StandardCharsets.UTF_8), coins, lastSeen, sequence);
+    }
+
+    private void writeRecord(int slot, AgentRecord agentRecord) {
+        byte[] name = agentRecord.username().getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+
+        int offset = offset(slot);
+        map.putLong(offset, agentRecord.uniqueId().getMostSignificantBits())
+                .putLong(offset + 8, agentRecord.uniqueId().getLeastSignificantBits())
+                .putLong(offset + 16, agentRecord.coins())
+                .putLong(offset + 24, agentRecord.lastSeen())
+                .put(offset + NAME_OFFSET, (byte) nameLength)
+                .put(offset + NAME_OFFSET + 1, name, 0, nameLength);
+        for (int position = offset + NAME_OFFSET + 1 + nameLength; position < offset + SEQUENCE_OFFSET; position++) {
+            map.put(position, (byte) 0);
+        }
+        map.putLong(offset + SEQUENCE_OFFSET, agentRecord.sequence());
+    }
+
+    private void writeHeader() {
+        map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE).putInt(12, count);
+    }
+
+    /**
+     * Validates the header and reads the record count.
+     *
+     * @return The version of the file.
+     */
+    private int readHeader() throws IOException {
+        if (map.getInt(0) != MAGIC) {
+            throw new IOException("Not an agent store file");
+        }
+        int version = map.getInt(4);
+        int recordSize = map.getInt(8);
+        if (version < 1 || version > VERSION || recordSize != RECORD_SIZE) {
+            throw new IOException("Unsupported agent store version " + version + " (record size " + recordSize + ")");
+        }
+        this.count = map.getInt(12);
+        return version;
+    }
+
+    private static int offset(int slot) {
+        return Math.addExact(HEADER_SIZE, Math.multiplyExact(slot, RECORD_SIZE));
+    }
+
+    private static int bucketsFor(int records) {
+        int buckets = 16;
+        while (buckets < records * 2L) {
+            buckets <<= 1;
+        }
+        return buckets;
+    }
+
+    private static int hash(long mostSigBits, long leastSigBits) {
+        long h = mostSigBits ^ Long.rotateLeft(leastSigBits, 32);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
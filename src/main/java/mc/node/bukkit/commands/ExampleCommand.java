@@ -1,26 +1,46 @@
 package mc.node.bukkit.commands;
 
+import mc.node.agent.Agent;
+import mc.node.agent.AgentManager;
+import mc.node.annotation.NodeCommand;
+import mc.node.objects.command.ArgumentTypes;
+import mc.node.objects.command.CommandNode;
+import mc.node.objects.command.TreeCommand;
 import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.util.Arrays;
+@NodeCommand(value = "example", aliases = {"ex", "ee"}, description = "nothing", usage = "/example [coins [player]]")
+public class ExampleCommand extends TreeCommand {
 
-public class ExampleCommand extends Command {
-
-    public ExampleCommand(String name, String description, String... aliases) {
-        super(name, description, "/help", Arrays.asList(aliases));
+    public ExampleCommand(String name, AgentManager agentManager) {
+        super(name);
+        root().executes((sender, arguments) -> run(sender))
+                .then(CommandNode.literal("coins")
+                        .executes((sender, arguments) -> showOwnCoins(sender, agentManager))
+                        .then(CommandNode.argument("player", ArgumentTypes.agent(agentManager))
+                                .executes((sender, arguments) -> showCoins(sender, arguments.get("player")))));
     }
 
-    @Override
-    public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+    private void run(CommandSender sender) {
         if (sender instanceof Player player) {
             player.sendMessage("Example command running!");
-            return true;
+            return;
         }
 
         sender.sendMessage(ChatColor.RED + "This command can only be executed by players.");
-        return true;
+    }
+
+    private void showOwnCoins(CommandSender sender, AgentManager agentManager) {
+        Agent agent = sender instanceof Player player ? agentManager.getOrNull(player.getUniqueId()) : null;
+        if (agent == null) {
+            sender.sendMessage(ChatColor.RED + "This command can only be executed by players.");
+            return;
+        }
+        showCoins(sender, agent);
+    }
+
+    private void showCoins(CommandSender sender, Agent agent) {
+        sender.sendMessage(ChatColor.YELLOW + agent.username() + ChatColor.GRAY + " has " + ChatColor.WHITE + agent.coins() + " coins");
     }
 }
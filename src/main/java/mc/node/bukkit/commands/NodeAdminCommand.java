@@ -0,0 +1,94 @@
+package mc.node.bukkit.commands;
+
+import mc.node.annotation.NodeCommand;
+import mc.node.objects.command.CommandNode;
+import mc.node.objects.command.TreeCommand;
+import mc.node.objects.scheduler.NodeScheduler;
+import mc.node.objects.timing.HandlerTimer;
+import mc.node.objects.timing.Timings;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code /node} administration command.
+ * <ul>
+ *     <li>{@code /node timings}: latency and allocation per event handler and command, the most total time first</li>
+ *     <li>{@code /node timings reset}: clears the timings</li>
+ *     <li>{@code /node timings export}: writes the timings as CSV to the plugin folder</li>
+ * </ul>
+ */
+@NodeCommand(value = "node", description = "MC-NODE administration", usage = "/node timings [reset|export]", permission = "mcnode.admin")
+public class NodeAdminCommand extends TreeCommand {
+
+    private static final int SHOWN_HANDLERS = 15;
+
+    private final NodeScheduler scheduler;
+    private final Path exportFolder;
+
+    /**
+     * @param name         The command name.
+     * @param scheduler    The scheduler the export runs on.
+     * @param exportFolder The folder timings are exported to.
+     */
+    public NodeAdminCommand(String name, NodeScheduler scheduler, Path exportFolder) {
+        super(name);
+        this.scheduler = scheduler;
+        this.exportFolder = exportFolder;
+        root().then(CommandNode.literal("timings")
+                .executes((sender, arguments) -> showTimings(sender))
+                .then(CommandNode.literal("reset").executes((sender, arguments) -> {
+                    Timings.reset();
+                    sender.sendMessage(ChatColor.GREEN + "Timings reset.");
+                }))
+                .then(CommandNode.literal("export").executes((sender, arguments) -> exportTimings(sender))));
+    }
+
+    private void showTimings(CommandSender sender) {
+        if (!Timings.isEnabled()) {
+            sender.sendMessage(ChatColor.RED + "Timings are disabled, see timings.enabled in the config.");
+            return;
+        }
+        List<HandlerTimer.Summary> summaries = Timings.summaries();
+        if (summaries.isEmpty()) {
+            sender.sendMessage(ChatColor.YELLOW + "No handler was called yet.");
+            return;
+        }
+
+        sender.sendMessage(ChatColor.GOLD + "Handler timings (" + summaries.size() + " handlers, the most total time first):");
+        for (HandlerTimer.Summary summary : summaries.subList(0, Math.min(SHOWN_HANDLERS, summaries.size()))) {
+            sender.sendMessage(ChatColor.YELLOW + summary.name()
+                    + ChatColor.GRAY + " calls " + ChatColor.WHITE + summary.calls()
+                    + ChatColor.GRAY + " total " + ChatColor.WHITE + String.format(Locale.ROOT, "%.1fms", summary.totalNanos() / 1_000_000D)
+                    + ChatColor.GRAY + " p50 " + ChatColor.WHITE + micros(summary.p50Nanos())
+                    + ChatColor.GRAY + " p99 " + ChatColor.WHITE + micros(summary.p99Nanos())
+                    + ChatColor.GRAY + " max " + ChatColor.WHITE + micros(summary.maxNanos())
+                    + ChatColor.GRAY + " alloc " + ChatColor.WHITE + (summary.bytesPerCall() < 0 ? "-" : summary.bytesPerCall() + "B"));
+        }
+    }
+
+    private void exportTimings(CommandSender sender) {
+        scheduler.supplyAsync(() -> {
+            try {
+                return Timings.export(exportFolder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((file, error) -> scheduler.runSync(() -> {
+            if (error != null) {
+                sender.sendMessage(ChatColor.RED + "Failed to export the timings: " + error.getMessage());
+            } else {
+                sender.sendMessage(ChatColor.GREEN + "Timings exported to " + file.getFileName());
+            }
+        }));
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1fµs", nanos / 1000D);
+    }
+}
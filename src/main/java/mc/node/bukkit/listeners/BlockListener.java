@@ -3,33 +3,29 @@ package mc.node.bukkit.listeners;
 import lombok.RequiredArgsConstructor;
 import mc.node.agent.Agent;
 import mc.node.agent.AgentManager;
-import mc.node.objects.chat.MessageBuilder;
+import mc.node.agent.event.AgentEventBus;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 
-import java.util.Optional;
-
 @RequiredArgsConstructor
 public class BlockListener implements Listener {
 
     private final AgentManager agentManager;
+    private final AgentEventBus eventBus;
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent breakEvent) {
         Player player = breakEvent.getPlayer();
 
-        Optional<Agent> agentOptional = agentManager.findByUUID(player.getUniqueId());
-
-        agentOptional.ifPresent(agent -> {
-            // Create a new Agent with updated coins
-            Agent updatedAgent = new Agent(agent.uniqueId(), agent.username(), agent.player(), agent.coins() + 1);
-            agent.textAgent(MessageBuilder.legacy("&a[MC-NODE] Break Block by %player% and add 1 coin").addPlaceholder("%player%", player.getName()));
-            agent.textAgent(MessageBuilder.legacy("&a[MC-NODE] You have now " + agent.coins() + " coins."));
+        Agent agent = agentManager.getOrNull(player.getUniqueId());
+        if (agent == null) {
+            return;
+        }
 
-            // Update the agent in the manager
-            agentManager.updateAgent(updatedAgent);
-        });
+        // Atomically add the coin to the agent's account, the Agent record itself stays untouched
+        long coins = agent.account().add(1);
+        eventBus.publishCoinsChanged(agent.uniqueId(), "Break Block", 1, coins);
     }
 }
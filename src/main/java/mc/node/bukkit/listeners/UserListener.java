@@ -3,41 +3,88 @@ package mc.node.bukkit.listeners;
 import lombok.RequiredArgsConstructor;
 import mc.node.agent.Agent;
 import mc.node.agent.AgentManager;
+import mc.node.agent.economy.CoinAccount;
+import mc.node.agent.preload.AgentPreloader;
+import mc.node.objects.packet.ChannelFlusher;
+import mc.node.objects.packet.OutboundQueues;
+import mc.node.objects.screen.scoreboard.Sidebars;
+import mc.node.objects.scheduler.NodeScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @RequiredArgsConstructor
 public class UserListener implements Listener {
 
+    private final NodeScheduler scheduler;
     private final AgentManager agentManager;
+    private final AgentPreloader preloader;
+    private final Map<UUID, Long> joinedAt = new ConcurrentHashMap<>(); // System.nanoTime() of each session's join
 
     /**
-     * Handles player join events. Initializes and prepares the player's agent.
+     * Handles asynchronous pre-login events. Loads the player's agent data off the main thread.
+     * Runs after other plugins had the chance to deny the login. A relog whose agent is still cached is preloaded
+     * too, as the load claims the agent from the node it last played on; it finds the cached account in memory
+     * and skips the storage read.
+     *
+     * @param event the pre-login event.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        if (!preloader.preload(event.getUniqueId()) && preloader.isDenyOnTimeout()) {
+            preloader.discard(event.getUniqueId());
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, "Your data is still loading, please try again.");
+        }
+    }
+
+    /**
+     * Handles player join events. Attaches the player to its cached or preloaded agent and publishes it.
+     * If the data is still loading, or the claim of a cached agent still waits for its previous node, the agent
+     * is published on the main thread once it is loaded.
      *
      * @param event the player join event.
      */
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        UUID playerId = player.getUniqueId();
-        String playerName = player.getName();
+        joinedAt.put(player.getUniqueId(), System.nanoTime());
+        CompletableFuture<CoinAccount> account = preloader.claim(player.getUniqueId());
 
-        Agent agent = new Agent(playerId, playerName);
-        agent.prepare();
+        if (account.isDone() && !account.isCompletedExceptionally()) {
+            join(player, account.join());
+            return;
+        }
 
-        // Add the agent to the manager
-        agentManager.addAgent(playerId, agent);
-        Bukkit.getConsoleSender().sendMessage("Agent created and prepared for player: " + playerName);
+        account.whenComplete((loaded, error) -> scheduler.runSync(() -> {
+            if (!player.isOnline()) {
+                return; // Left before the data arrived
+            }
+            if (error != null) {
+                player.kickPlayer("Failed to load your data, please try again.");
+                return;
+            }
+            join(player, loaded);
+        }));
     }
 
     /**
-     * Handles player quit events. Removes the player's agent from the manager.
+     * Handles player quit events. Moves the player's agent from the manager to the departed cache.
+     * A player kicked because they logged in from another location quits after the new login's pre-login, so
+     * only a preload older than the quitting session is dropped.
      *
      * @param event the player quit event.
      */
@@ -47,7 +94,33 @@ public class UserListener implements Listener {
         UUID playerId = player.getUniqueId();
 
         agentManager.removeAgent(playerId);
+        Long joined = joinedAt.remove(playerId);
+        if (joined != null) {
+            preloader.discardBefore(playerId, joined);
+        }
+        OutboundQueues.discard(player);
+        ChannelFlusher.discard(player);
+        Sidebars.discard(player);
         Bukkit.getConsoleSender().sendMessage("Agent removed for player: " + player.getName());
     }
 
+    /**
+     * Restores or creates, prepares and publishes the agent of a joined player.
+     */
+    private void join(Player player, CoinAccount account) {
+        Agent restored = agentManager.restoreAgent(player); // Holds the same account as the preload
+        publish(player, restored != null ? restored : agentManager.createAgent(player, account));
+    }
+
+    /**
+     * Prepares and publishes the agent of a joined player.
+     */
+    private void publish(Player player, Agent agent) {
+        agent.prepare();
+
+        // Add the agent to the manager
+        agentManager.addAgent(player.getUniqueId(), agent);
+        Bukkit.getConsoleSender().sendMessage("Agent created and prepared for player: " + player.getName());
+    }
+
 }
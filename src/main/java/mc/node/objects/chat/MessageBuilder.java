@@ -1,13 +1,20 @@
 package mc.node.objects.chat;
 
-import net.md_5.bungee.api.ChatColor;
+import mc.node.objects.jfr.TemplateRenderEvent;
+import mc.node.objects.packet.OutboundQueues;
+import mc.node.objects.packet.Packets;
+import mc.node.objects.template.Placeholders;
 import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.HoverEvent;
 import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.chat.ClickEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Abstract class to build a chat message with placeholders, clickable actions, and hover events.
@@ -19,7 +26,7 @@ import java.util.Map;
 public abstract class MessageBuilder<T, B extends MessageBuilder<T, B>> {
 
     private final String message; // The original message template
-    private final Map<String, String> placeholders = new HashMap<>(); // Map for placeholders and their replacements
+    private final Placeholders placeholders = new Placeholders(); // Placeholders and their replacements
     private ClickEvent clickAction = null;  // Store click action for the message (if any)
     private HoverEvent hoverEvent = null;   // Store hover event for the message (if any)
 
@@ -53,6 +60,18 @@ public abstract class MessageBuilder<T, B extends MessageBuilder<T, B>> {
         return (B) this; // Fluent interface: return the builder itself for chaining
     }
 
+    /**
+     * Adds a placeholder whose value is resolved for each recipient.
+     *
+     * @param placeholder The placeholder key to be replaced.
+     * @param resolver    The function producing the value for a given player.
+     * @return The current builder instance (for chaining).
+     */
+    public B addPlaceholder(String placeholder, Function<Player, String> resolver) {
+        placeholders.put(placeholder, resolver);
+        return (B) this; // Fluent interface: return the builder itself for chaining
+    }
+
     /**
      * Sets a clickable action (e.g., open URL or run command) for the message.
      *
@@ -79,16 +98,12 @@ public abstract class MessageBuilder<T, B extends MessageBuilder<T, B>> {
 
     /**
      * Builds the final message with placeholders replaced by their values.
-     * It applies color formatting and prepares the message for use.
+     * The template is compiled once and cached, so this is a single pass over its segments.
      *
      * @return The formatted message as a string with placeholders replaced.
      */
     public String buildMessage() {
-        String builtMessage = this.message;
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            builtMessage = builtMessage.replace(entry.getKey(), entry.getValue());
-        }
-        return applyFormatting(builtMessage);
+        return placeholders.render(this.message);
     }
 
     /**
@@ -97,7 +112,55 @@ public abstract class MessageBuilder<T, B extends MessageBuilder<T, B>> {
      * @return The final TextComponent for integration with Minecraft chat.
      */
     public TextComponent build() {
-        TextComponent component = new TextComponent(buildMessage());
+        return component(buildMessage());
+    }
+
+    /**
+     * Sends the message to the given player, resolving per-player placeholders for them.
+     *
+     * @param player The recipient.
+     */
+    public void build(Player player) {
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        String text = placeholders.render(this.message, player);
+        Object packet = Packets.chat(component(text));
+        event.finish("chat", this.message, 1, text);
+        OutboundQueues.chat(player, packet);
+    }
+
+    /**
+     * Sends the message to every given player. Placeholders are rendered and the packet is built once;
+     * with per-player placeholders, only those are resolved per recipient and equal texts share their packet.
+     *
+     * @param players The recipients.
+     */
+    public void build(Collection<? extends Player> players) {
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        Function<Player, String> renderer = placeholders.renderer(this.message);
+        Map<String, Object> packets = new HashMap<>();
+        for (Player player : players) {
+            OutboundQueues.chat(player, packets.computeIfAbsent(renderer.apply(player), text -> Packets.chat(component(text))));
+        }
+        event.finish("chat", this.message, players.size(), null);
+    }
+
+    /**
+     * Sends the message to every online player.
+     */
+    public void broadcast() {
+        build(Bukkit.getOnlinePlayers());
+    }
+
+    /**
+     * Creates the TextComponent for the given rendered text, applying the click and hover events.
+     *
+     * @param text The rendered text.
+     * @return The TextComponent.
+     */
+    private TextComponent component(String text) {
+        TextComponent component = new TextComponent(text);
 
         // Apply click action if present
         if (this.clickAction != null) {
@@ -112,16 +175,6 @@ public abstract class MessageBuilder<T, B extends MessageBuilder<T, B>> {
         return component;
     }
 
-    /**
-     * Applies color formatting to the message, translating '&' to Minecraft color codes.
-     *
-     * @param message The message to format.
-     * @return The formatted message with Minecraft color codes.
-     */
-    private String applyFormatting(String message) {
-        return ChatColor.translateAlternateColorCodes('&', message);
-    }
-
     /**
      * Factory method to create a LegacyMessageBuilder.
      *
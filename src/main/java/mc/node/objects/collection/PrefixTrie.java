@@ -0,0 +1,245 @@
+package mc.node.objects.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive map from names to values that lists the names starting with a prefix, for tab completion.
+ * <p>
+ * Every name is a path of characters from the root, so finding the node of a prefix takes one step per
+ * character, independent of the number of names; completing it then visits only the names below that node,
+ * in lexicographic order, and stops at the limit. Children are kept in sorted arrays and searched by
+ * bisection, so a node costs two small arrays instead of a map. Names keep the case they were added with.
+ * Updates are incremental: adding or removing a name touches only the nodes on its path. All methods are
+ * synchronized on the trie.
+ *
+ * @param <V> The value type.
+ */
+public final class PrefixTrie<V> {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    /**
+     * Adds a name, replacing the value and the case of a name that only differs in case.
+     *
+     * @param name  The name.
+     * @param value The value.
+     * @return The previous value, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V put(String name, V value) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        V previous = (V) node.value;
+        node.name = name;
+        node.value = value;
+        if (previous == null) {
+            adjustSizes(key, 1);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes a name and prunes the nodes no other name needs.
+     *
+     * @param name The name, in any case.
+     * @return The removed value, or null if the name was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V remove(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Node node = find(key);
+        if (node == null || node.value == null) {
+            return null;
+        }
+        V previous = (V) node.value;
+        node.name = null;
+        node.value = null;
+        adjustSizes(key, -1);
+        prune(key);
+        return previous;
+    }
+
+    /**
+     * Removes a name only while it maps to the given value, e.g. so a quit does not remove a newer player
+     * who took the name.
+     *
+     * @param name  The name, in any case.
+     * @param value The expected value.
+     * @return True if the name was removed.
+     */
+    public synchronized boolean remove(String name, V value) {
+        Node node = find(name.toLowerCase(Locale.ROOT));
+        if (node == null || node.value == null || !node.value.equals(value)) {
+            return false;
+        }
+        remove(name);
+        return true;
+    }
+
+    /**
+     * @param name The name, in any case.
+     * @return The value, or null if the name is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(String name) {
+        Node node = find(name.toLowerCase(Locale.ROOT));
+        return node != null ? (V) node.value : null;
+    }
+
+    /**
+     * Lists the names starting with a prefix, ignoring case.
+     *
+     * @param prefix The prefix, empty for every name.
+     * @param limit  The maximum number of names.
+     * @return The names as they were added, in lexicographic order of their lower case.
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        Node node = find(prefix.toLowerCase(Locale.ROOT));
+        if (node == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(Math.min(node.size, limit));
+        collect(node, names, limit);
+        return names;
+    }
+
+    /**
+     * @param prefix The prefix, in any case.
+     * @return The number of names starting with the prefix.
+     */
+    public synchronized int count(String prefix) {
+        Node node = find(prefix.toLowerCase(Locale.ROOT));
+        return node != null ? node.size : 0;
+    }
+
+    /**
+     * @return The number of names.
+     */
+    public synchronized int size() {
+        return root.size;
+    }
+
+    /**
+     * Removes every name.
+     */
+    public synchronized void clear() {
+        root.keys = NO_KEYS;
+        root.children = NO_CHILDREN;
+        root.size = 0;
+        root.name = null;
+        root.value = null;
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private void adjustSizes(String key, int delta) {
+        Node node = root;
+        node.size += delta;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            node.size += delta;
+        }
+    }
+
+    /**
+     * Cuts the path of a removed name below the deepest node still holding a name.
+     */
+    private void prune(String key) {
+        Node parent = root;
+        Node cutParent = null;
+        char cutKey = 0;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = parent.child(key.charAt(i));
+            if (child.size == 0) {
+                cutParent = parent;
+                cutKey = key.charAt(i);
+                break;
+            }
+            parent = child;
+        }
+        if (cutParent != null) {
+            cutParent.removeChild(cutKey);
+        }
+    }
+
+    private void collect(Node node, List<String> names, int limit) {
+        if (node.name != null) {
+            names.add(node.name);
+        }
+        for (int i = 0; i < node.children.length && names.size() < limit; i++) {
+            collect(node.children[i], names, limit);
+        }
+    }
+
+    /**
+     * One character of a path. Guarded by the trie.
+     */
+    private static final class Node {
+        private char[] keys = NO_KEYS;         // Sorted
+        private Node[] children = NO_CHILDREN; // Same order as keys
+        private int size;                      // Names at or below this node
+        private String name;                   // Original case, null if no name ends here
+        private Object value;
+
+        private Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            Node child = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newKeys[insert] = key;
+            newChildren[insert] = child;
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        private void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                return;
+            }
+            if (keys.length == 1) {
+                keys = NO_KEYS;
+                children = NO_CHILDREN;
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package mc.node.objects.collection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Concurrent map from {@link UUID} to values, specialised for the agent registry.
+ * <p>
+ * Keys are stored as two {@code long}s in an open-addressing table with linear probing, so lookups
+ * neither box nor dereference a {@link UUID}. Reads are lock-free; writes are serialised on the map.
+ * <p>
+ * Within one table a slot's key is written once and never changes: removal only replaces the value with a
+ * tombstone, and a tombstoned slot may only be revived by the same key. Readers therefore acquire the value
+ * first and can trust the key of any non-empty slot. Tombstones are dropped when the table is rebuilt, which
+ * publishes a fresh table through a volatile write.
+ *
+ * @param <V> The value type.
+ */
+public final class UuidMap<V> {
+
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final Object TOMBSTONE = new Object();
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private volatile Table table;
+    private int size;       // Live entries, guarded by this
+    private int tombstones; // Removed slots in the current table, guarded by this
+
+    /**
+     * Creates an empty map.
+     */
+    public UuidMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map sized for the given number of entries.
+     *
+     * @param expectedSize The expected number of entries.
+     */
+    public UuidMap(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * Returns the value for the given key without allocating.
+     *
+     * @param mostSigBits  The most significant bits of the key.
+     * @param leastSigBits The least significant bits of the key.
+     * @return The value, or null if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrNull(long mostSigBits, long leastSigBits) {
+        Table table = this.table;
+        int mask = table.mask;
+        for (int slot = hash(mostSigBits, leastSigBits) & mask; ; slot = (slot + 1) & mask) {
+            Object value = VALUES.getAcquire(table.values, slot);
+            if (value == null) {
+                return null;
+            }
+            if (table.keys[slot << 1] == mostSigBits && table.keys[(slot << 1) + 1] == leastSigBits) {
+                return value == TOMBSTONE ? null : (V) value;
+            }
+        }
+    }
+
+    /**
+     * Returns the value for the given key without allocating.
+     *
+     * @param key The key.
+     * @return The value, or null if the key is not present.
+     */
+    public V getOrNull(UUID key) {
+        return getOrNull(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * @param key The key.
+     * @return True if the key is present.
+     */
+    public boolean containsKey(UUID key) {
+        return getOrNull(key) != null;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @param key   The key.
+     * @param value The value, not null.
+     * @return The previous value, or null.
+     */
+    public synchronized V put(UUID key, V value) {
+        return insert(key.getMostSignificantBits(), key.getLeastSignificantBits(), value, false);
+    }
+
+    /**
+     * Associates the value with the key unless the key is already present.
+     *
+     * @param key   The key.
+     * @param value The value, not null.
+     * @return The existing value, or null if the value was inserted.
+     */
+    public synchronized V putIfAbsent(UUID key, V value) {
+        return insert(key.getMostSignificantBits(), key.getLeastSignificantBits(), value, true);
+    }
+
+    /**
+     * Returns the value for the key, computing and inserting it if absent.
+     * The lookup is lock-free when the key is present.
+     *
+     * @param key      The key.
+     * @param function The function computing the value, called at most once while holding the map's lock.
+     * @return The existing or computed value.
+     */
+    public V computeIfAbsent(UUID key, Function<UUID, ? extends V> function) {
+        V value = getOrNull(key);
+        if (value != null) {
+            return value;
+        }
+
+        synchronized (this) {
+            value = getOrNull(key);
+            if (value == null) {
+                value = function.apply(key);
+                insert(key.getMostSignificantBits(), key.getLeastSignificantBits(), value, false);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Removes the key.
+     *
+     * @param key The key.
+     * @return The removed value, or null if the key was not present.
+     */
+    public synchronized V remove(UUID key) {
+        return delete(key.getMostSignificantBits(), key.getLeastSignificantBits(), null);
+    }
+
+    /**
+     * Removes the key if it is mapped to the given value.
+     *
+     * @param key   The key.
+     * @param value The expected value.
+     * @return True if the entry was removed.
+     */
+    public synchronized boolean remove(UUID key, V value) {
+        return value != null && delete(key.getMostSignificantBits(), key.getLeastSignificantBits(), value) != null;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        table = new Table(MIN_CAPACITY);
+        size = 0;
+        tombstones = 0;
+    }
+
+    /**
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return True if the map has no entries.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Passes every value to the consumer. Weakly consistent: concurrent updates may or may not be seen.
+     *
+     * @param consumer The value consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> consumer) {
+        Table table = this.table;
+        for (int slot = 0; slot < table.values.length; slot++) {
+            Object value = VALUES.getAcquire(table.values, slot);
+            if (value != null && value != TOMBSTONE) {
+                consumer.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * Passes every entry to the consumer. Weakly consistent: concurrent updates may or may not be seen.
+     *
+     * @param consumer The entry consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<UUID, ? super V> consumer) {
+        Table table = this.table;
+        for (int slot = 0; slot < table.values.length; slot++) {
+            Object value = VALUES.getAcquire(table.values, slot);
+            if (value != null && value != TOMBSTONE) {
+                consumer.accept(new UUID(table.keys[slot << 1], table.keys[(slot << 1) + 1]), (V) value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V insert(long mostSigBits, long leastSigBits, V value, boolean onlyIfAbsent) {
+        if (value == null) {
+            throw new NullPointerException("UuidMap does not support null values");
+        }
+
+        Table table = this.table;
+        int mask = table.mask;
+        for (int slot = hash(mostSigBits, leastSigBits) & mask; ; slot = (slot + 1) & mask) {
+            Object existing = table.values[slot];
+            if (existing == null) {
+                table.keys[slot << 1] = mostSigBits;
+                table.keys[(slot << 1) + 1] = leastSigBits;
+                VALUES.setRelease(table.values, slot, value);
+                size++;
+                if (size + tombstones > table.threshold) {
+                    rebuild();
+                }
+                return null;
+            }
+            if (table.keys[slot << 1] == mostSigBits && table.keys[(slot << 1) + 1] == leastSigBits) {
+                if (existing == TOMBSTONE) {
+                    tombstones--;
+                    size++;
+                    VALUES.setRelease(table.values, slot, value);
+                    return null;
+                }
+                if (!onlyIfAbsent) {
+                    VALUES.setRelease(table.values, slot, value);
+                }
+                return (V) existing;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V delete(long mostSigBits, long leastSigBits, V expected) {
+        Table table = this.table;
+        int mask = table.mask;
+        for (int slot = hash(mostSigBits, leastSigBits) & mask; ; slot = (slot + 1) & mask) {
+            Object existing = table.values[slot];
+            if (existing == null) {
+                return null;
+            }
+            if (table.keys[slot << 1] == mostSigBits && table.keys[(slot << 1) + 1] == leastSigBits) {
+                if (existing == TOMBSTONE || (expected != null && existing != expected)) {
+                    return null;
+                }
+                VALUES.setRelease(table.values, slot, TOMBSTONE);
+                size--;
+                tombstones++;
+                return (V) existing;
+            }
+        }
+    }
+
+    /**
+     * Copies the live entries into a new table sized for the current size and publishes it.
+     */
+    private void rebuild() {
+        Table old = this.table;
+        Table rebuilt = new Table(capacityFor(size));
+        int mask = rebuilt.mask;
+
+        for (int slot = 0; slot < old.values.length; slot++) {
+            Object value = old.values[slot];
+            if (value == null || value == TOMBSTONE) continue;
+
+            long mostSigBits = old.keys[slot << 1];
+            long leastSigBits = old.keys[(slot << 1) + 1];
+            int target = hash(mostSigBits, leastSigBits) & mask;
+            while (rebuilt.values[target] != null) {
+                target = (target + 1) & mask;
+            }
+            rebuilt.keys[target << 1] = mostSigBits;
+            rebuilt.keys[(target << 1) + 1] = leastSigBits;
+            rebuilt.values[target] = value;
+        }
+
+        tombstones = 0;
+        this.table = rebuilt; // Volatile write publishes the fully built table
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < entries * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long mostSigBits, long leastSigBits) {
+        long h = mostSigBits ^ Long.rotateLeft(leastSigBits, 32);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * One generation of the open-addressing arrays.
+     */
+    private static final class Table {
+        private final long[] keys;     // Two longs (msb, lsb) per slot
+        private final Object[] values; // Null (empty), TOMBSTONE (removed) or the value
+        private final int mask;
+        private final int threshold;   // Maximum of live plus removed slots before a rebuild
+
+        private Table(int capacity) {
+            this.keys = new long[capacity << 1];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+            this.threshold = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+}
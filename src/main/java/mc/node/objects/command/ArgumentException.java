@@ -0,0 +1,14 @@
+package mc.node.objects.command;
+
+/**
+ * Thrown by an {@link ArgumentType} for input it cannot parse. The message is shown to the sender as is.
+ */
+public class ArgumentException extends Exception {
+
+    /**
+     * @param message The message shown to the sender.
+     */
+    public ArgumentException(String message) {
+        super(message, null, false, false); // Expected on bad input, so no stack trace is filled in
+    }
+}
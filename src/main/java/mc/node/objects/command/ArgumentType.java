@@ -0,0 +1,33 @@
+package mc.node.objects.command;
+
+import org.bukkit.command.CommandSender;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses one command argument into a typed value and completes it, see {@link ArgumentTypes}.
+ *
+ * @param <T> The type of the parsed value.
+ */
+@FunctionalInterface
+public interface ArgumentType<T> {
+
+    /**
+     * @param sender The sender running the command.
+     * @param input  The argument as typed, never empty.
+     * @return The parsed value.
+     * @throws ArgumentException if the input is not a valid value.
+     */
+    T parse(CommandSender sender, String input) throws ArgumentException;
+
+    /**
+     * @param sender The sender completing the command.
+     * @param prefix The argument typed so far, possibly empty.
+     * @param limit  The maximum number of suggestions.
+     * @return The suggestions starting with the prefix.
+     */
+    default List<String> complete(CommandSender sender, String prefix, int limit) {
+        return Collections.emptyList();
+    }
+}
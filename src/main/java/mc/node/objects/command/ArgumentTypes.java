@@ -0,0 +1,157 @@
+package mc.node.objects.command;
+
+import lombok.experimental.UtilityClass;
+import mc.node.agent.Agent;
+import mc.node.agent.AgentManager;
+import mc.node.objects.collection.PrefixTrie;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+
+/**
+ * The common {@link ArgumentType}s. Numbers are parsed digit by digit, so bad input costs neither a regex
+ * nor a NumberFormatException, and names are completed from prefix tries.
+ */
+@UtilityClass
+public class ArgumentTypes {
+
+    private final PrefixTrie<Boolean> BOOLEANS = choices(new String[]{"true", "false", "yes", "no", "on", "off"},
+            new Boolean[]{true, false, true, false, true, false});
+
+    /**
+     * @return A single word, as typed.
+     */
+    public ArgumentType<String> word() {
+        return (sender, input) -> input;
+    }
+
+    /**
+     * @param min The smallest accepted value.
+     * @param max The largest accepted value.
+     * @return A whole number between the bounds.
+     */
+    public ArgumentType<Integer> integer(int min, int max) {
+        return (sender, input) -> (int) parseLong(input, min, max);
+    }
+
+    /**
+     * @param min The smallest accepted value.
+     * @param max The largest accepted value.
+     * @return A whole number between the bounds.
+     */
+    public ArgumentType<Long> longInteger(long min, long max) {
+        return (sender, input) -> parseLong(input, min, max);
+    }
+
+    /**
+     * @return true, yes or on, or false, no or off, in any case.
+     */
+    public ArgumentType<Boolean> bool() {
+        return new ArgumentType<>() {
+            @Override
+            public Boolean parse(CommandSender sender, String input) throws ArgumentException {
+                Boolean value = BOOLEANS.get(input);
+                if (value == null) {
+                    throw new ArgumentException("'" + input + "' is not true or false");
+                }
+                return value;
+            }
+
+            @Override
+            public List<String> complete(CommandSender sender, String prefix, int limit) {
+                return BOOLEANS.complete(prefix, limit);
+            }
+        };
+    }
+
+    /**
+     * @param values The accepted values.
+     * @return One of the values, in any case, parsed as it is written in the values.
+     */
+    public ArgumentType<String> choice(String... values) {
+        PrefixTrie<String> choices = choices(values, values);
+        String expected = String.join(", ", values);
+        return new ArgumentType<>() {
+            @Override
+            public String parse(CommandSender sender, String input) throws ArgumentException {
+                String value = choices.get(input);
+                if (value == null) {
+                    throw new ArgumentException("'" + input + "' is not one of " + expected);
+                }
+                return value;
+            }
+
+            @Override
+            public List<String> complete(CommandSender sender, String prefix, int limit) {
+                return choices.complete(prefix, limit);
+            }
+        };
+    }
+
+    /**
+     * @param agentManager The manager of the online agents.
+     * @return An online agent, by username in any case, completed from the manager's name trie.
+     */
+    public ArgumentType<Agent> agent(AgentManager agentManager) {
+        return new ArgumentType<>() {
+            @Override
+            public Agent parse(CommandSender sender, String input) throws ArgumentException {
+                return agentManager.findByName(input)
+                        .orElseThrow(() -> new ArgumentException("No player named " + input + " is online"));
+            }
+
+            @Override
+            public List<String> complete(CommandSender sender, String prefix, int limit) {
+                return agentManager.completeNames(prefix, limit);
+            }
+        };
+    }
+
+    /**
+     * Parses a decimal number like Long#parseLong, accumulating negatively so Long.MIN_VALUE fits.
+     */
+    private long parseLong(String input, long min, long max) throws ArgumentException {
+        int length = input.length();
+        char first = input.charAt(0);
+        boolean negative = first == '-';
+        int start = negative || first == '+' ? 1 : 0;
+        if (start == length) {
+            throw notANumber(input);
+        }
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long value = 0L;
+        for (int i = start; i < length; i++) {
+            int digit = input.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw notANumber(input);
+            }
+            if (value < multiplyLimit || value * 10 < limit + digit) {
+                throw outOfRange(min, max);
+            }
+            value = value * 10 - digit;
+        }
+        value = negative ? value : -value;
+        if (value < min || value > max) {
+            throw outOfRange(min, max);
+        }
+        return value;
+    }
+
+    private ArgumentException notANumber(String input) {
+        return new ArgumentException("'" + input + "' is not a whole number");
+    }
+
+    private ArgumentException outOfRange(long min, long max) {
+        return new ArgumentException("The number must be between " + min + " and " + max);
+    }
+
+    private <V> PrefixTrie<V> choices(String[] names, V[] values) {
+        PrefixTrie<V> trie = new PrefixTrie<>();
+        for (int i = 0; i < names.length; i++) {
+            trie.put(names[i], values[i]);
+        }
+        return trie;
+    }
+}
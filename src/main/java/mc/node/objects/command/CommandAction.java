@@ -0,0 +1,16 @@
+package mc.node.objects.command;
+
+import org.bukkit.command.CommandSender;
+
+/**
+ * What a {@link CommandNode} does when the command ends at it.
+ */
+@FunctionalInterface
+public interface CommandAction {
+
+    /**
+     * @param sender    The sender running the command.
+     * @param arguments The arguments parsed on the way to the node.
+     */
+    void run(CommandSender sender, CommandArguments arguments);
+}
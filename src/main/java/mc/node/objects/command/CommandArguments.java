@@ -0,0 +1,77 @@
+package mc.node.objects.command;
+
+/**
+ * The typed values of the argument nodes a command passed, in order. Commands are short, so values are
+ * looked up by a scan of the names instead of a map.
+ */
+public final class CommandArguments {
+
+    private final String[] names;
+    private final Object[] values;
+    private int size;
+
+    /**
+     * @param capacity The maximum number of arguments, the number of words typed.
+     */
+    CommandArguments(int capacity) {
+        this.names = new String[capacity];
+        this.values = new Object[capacity];
+    }
+
+    void add(String name, Object value) {
+        names[size] = name;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * @param name The name of the argument node.
+     * @param <T>  The type its {@link ArgumentType} parses.
+     * @return The parsed value.
+     * @throws IllegalArgumentException if the command did not pass the argument.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("No argument " + name);
+        }
+        return (T) values[index];
+    }
+
+    /**
+     * @param name         The name of the argument node.
+     * @param defaultValue The value of an argument the command did not pass.
+     * @param <T>          The type its {@link ArgumentType} parses.
+     * @return The parsed value, or the default value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrDefault(String name, T defaultValue) {
+        int index = indexOf(name);
+        return index >= 0 ? (T) values[index] : defaultValue;
+    }
+
+    /**
+     * @param name The name of the argument node.
+     * @return True if the command passed the argument.
+     */
+    public boolean has(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * @return The number of parsed arguments.
+     */
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,153 @@
+package mc.node.objects.command;
+
+import mc.node.objects.collection.PrefixTrie;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+
+/**
+ * One word of a {@link TreeCommand}: a literal sub-command, or an argument parsed by an {@link ArgumentType}.
+ * <p>
+ * The literal children are kept in a {@link PrefixTrie}, so resolving a word and completing a prefix cost the
+ * length of the word rather than the number of sub-commands. A node has at most one argument child, tried
+ * when no literal matches, which keeps the resolution of a command line a single pass without backtracking.
+ * An argument is optional when its parent executes too.
+ */
+public final class CommandNode {
+
+    private final String name;
+    private final ArgumentType<?> type; // Null for a literal
+    private final PrefixTrie<CommandNode> literals = new PrefixTrie<>();
+    private CommandNode argument;
+    private String permission;
+    private CommandAction action;
+
+    private CommandNode(String name, ArgumentType<?> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * @param name The word, matched in any case.
+     * @return A literal node.
+     */
+    public static CommandNode literal(String name) {
+        if (name.isEmpty() || name.indexOf(' ') >= 0) {
+            throw new IllegalArgumentException("Literal '" + name + "' must be a single word");
+        }
+        return new CommandNode(name, null);
+    }
+
+    /**
+     * @param name The name the value is read by, see {@link CommandArguments#get(String)}.
+     * @param type The type parsing the value.
+     * @return An argument node.
+     */
+    public static CommandNode argument(String name, ArgumentType<?> type) {
+        return new CommandNode(name, type);
+    }
+
+    /**
+     * Adds a child.
+     *
+     * @param child The node following this one.
+     * @return This node.
+     * @throws IllegalStateException if a literal child has the same name, or an argument child is already set.
+     */
+    public CommandNode then(CommandNode child) {
+        if (child.isLiteral()) {
+            if (literals.get(child.name) != null) {
+                throw new IllegalStateException("Literal '" + child.name + "' is already a child of '" + name + "'");
+            }
+            literals.put(child.name, child);
+        } else {
+            if (argument != null) {
+                throw new IllegalStateException("'" + name + "' already has the argument '" + argument.name + "'");
+            }
+            argument = child;
+        }
+        return this;
+    }
+
+    /**
+     * @param permission The permission required to use this node and its children, or null for none.
+     * @return This node.
+     */
+    public CommandNode permission(String permission) {
+        this.permission = permission;
+        return this;
+    }
+
+    /**
+     * @param action What the command does when it ends at this node.
+     * @return This node.
+     */
+    public CommandNode executes(CommandAction action) {
+        this.action = action;
+        return this;
+    }
+
+    /**
+     * @return The word of a literal, or the name of an argument.
+     */
+    public String getName() {
+        return name;
+    }
+
+    boolean isLiteral() {
+        return type == null;
+    }
+
+    ArgumentType<?> getType() {
+        return type;
+    }
+
+    CommandAction getAction() {
+        return action;
+    }
+
+    CommandNode getArgument() {
+        return argument;
+    }
+
+    /**
+     * @param word The word typed, in any case.
+     * @return The literal child with the word, else the argument child, else null.
+     */
+    CommandNode child(String word) {
+        CommandNode literal = literals.get(word);
+        return literal != null ? literal : argument;
+    }
+
+    /**
+     * @return The names of the literal children starting with the prefix, in alphabetical order.
+     */
+    List<String> completeLiterals(String prefix, int limit) {
+        return literals.complete(prefix, limit);
+    }
+
+    /**
+     * @return The literal child with the name, or null.
+     */
+    CommandNode getLiteral(String name) {
+        return literals.get(name);
+    }
+
+    boolean canUse(CommandSender sender) {
+        return permission == null || sender.hasPermission(permission);
+    }
+
+    /**
+     * @return The children as they appear in a usage message, e.g. {@code reset|export} or {@code <player>}.
+     */
+    String childrenSyntax() {
+        StringBuilder syntax = new StringBuilder();
+        for (String literal : literals.complete("", Integer.MAX_VALUE)) {
+            syntax.append(syntax.length() == 0 ? "" : "|").append(literal);
+        }
+        if (argument != null) {
+            syntax.append(syntax.length() == 0 ? "" : "|").append('<').append(argument.name).append('>');
+        }
+        return syntax.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package mc.node.objects.command;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A command built from a tree of {@link CommandNode}s.
+ * <p>
+ * Execution walks the words Bukkit split once, resolving each by an exact trie lookup of the literal
+ * children before the argument child, and parses argument words into typed {@link CommandArguments} on the
+ * way. Tab completion walks the same path and completes the last word from the tries, replacing the default
+ * completion that scans every online player.
+ * <pre>{@code
+ * root().then(CommandNode.literal("give")
+ *         .then(CommandNode.argument("player", ArgumentTypes.agent(agentManager))
+ *                 .then(CommandNode.argument("amount", ArgumentTypes.integer(1, 64))
+ *                         .executes((sender, arguments) -> give(arguments.get("player"), arguments.get("amount"))))));
+ * }</pre>
+ */
+public abstract class TreeCommand extends Command {
+
+    private static final int MAX_COMPLETIONS = 100;
+
+    private final CommandNode root;
+
+    /**
+     * @param name The command name, also the root node of the tree.
+     */
+    protected TreeCommand(String name) {
+        super(name);
+        this.root = CommandNode.literal(name);
+    }
+
+    /**
+     * @return The root node, the command without arguments.
+     */
+    protected CommandNode root() {
+        return root;
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+        if (!testPermission(sender)) {
+            return true;
+        }
+
+        CommandNode node = root;
+        CommandArguments arguments = new CommandArguments(args.length);
+        for (int i = 0; i < args.length; i++) {
+            String word = args[i];
+            if (word.isEmpty()) {
+                continue; // Two spaces in a row
+            }
+            CommandNode next = node.child(word);
+            if (next == null || !next.canUse(sender)) {
+                sendUsage(sender, commandLabel, args, i, node);
+                return true;
+            }
+            if (!next.isLiteral()) {
+                try {
+                    arguments.add(next.getName(), next.getType().parse(sender, word));
+                } catch (ArgumentException e) {
+                    sender.sendMessage(ChatColor.RED + e.getMessage());
+                    return true;
+                }
+            }
+            node = next;
+        }
+
+        CommandAction action = node.getAction();
+        if (action == null) {
+            sendUsage(sender, commandLabel, args, args.length, node);
+            return true;
+        }
+        action.run(sender, arguments);
+        return true;
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSender sender, String alias, String[] args) throws IllegalArgumentException {
+        if (args.length == 0 || !testPermissionSilent(sender)) {
+            return Collections.emptyList();
+        }
+
+        CommandNode node = root;
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].isEmpty()) {
+                continue;
+            }
+            node = node.child(args[i]);
+            if (node == null || !node.canUse(sender)) {
+                return Collections.emptyList();
+            }
+        }
+
+        String prefix = args[args.length - 1];
+        List<String> completions = new ArrayList<>();
+        for (String literal : node.completeLiterals(prefix, MAX_COMPLETIONS)) {
+            if (node.getLiteral(literal).canUse(sender)) {
+                completions.add(literal);
+            }
+        }
+        CommandNode argument = node.getArgument();
+        if (argument != null && argument.canUse(sender) && completions.size() < MAX_COMPLETIONS) {
+            completions.addAll(argument.getType().complete(sender, prefix, MAX_COMPLETIONS - completions.size()));
+        }
+        return completions;
+    }
+
+    /**
+     * Sends the usage of the node the command stopped at, e.g. {@code /node timings reset|export}.
+     */
+    private void sendUsage(CommandSender sender, String label, String[] args, int resolved, CommandNode node) {
+        StringBuilder usage = new StringBuilder("Usage: /").append(label);
+        for (int i = 0; i < resolved; i++) {
+            if (!args[i].isEmpty()) {
+                usage.append(' ').append(args[i]);
+            }
+        }
+        String children = node.childrenSyntax();
+        if (!children.isEmpty()) {
+            usage.append(' ').append(node.getAction() != null ? "[" + children + "]" : children);
+        }
+        sender.sendMessage(ChatColor.RED + usage.toString());
+    }
+}
@@ -0,0 +1,50 @@
+package mc.node.objects.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Flight recorder event for an agent created or removed by the {@link mc.node.agent.AgentManager}.
+ * Disabled by default, see {@link NodeEvents}.
+ */
+@Name("mc.node.AgentLifecycle")
+@Label("Agent Lifecycle")
+@Category({"MC-NODE", "Agents"})
+@Description("An agent was created or removed")
+@Enabled(false)
+@StackTrace(false)
+public class AgentLifecycleEvent extends Event {
+
+    @Label("Action")
+    private String action;
+
+    @Label("Player UUID")
+    private String playerId;
+
+    @Label("Username")
+    private String username;
+
+    /**
+     * Ends the event and commits it if it is enabled and long enough.
+     *
+     * @param action   What happened, "created" or "removed".
+     * @param uuid     The unique identifier of the agent.
+     * @param username The username of the agent.
+     */
+    public void finish(String action, UUID uuid, String username) {
+        end();
+        if (shouldCommit()) {
+            this.action = action;
+            this.playerId = uuid.toString();
+            this.username = username;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package mc.node.objects.jfr;
+
+import jdk.jfr.FlightRecorder;
+import lombok.experimental.UtilityClass;
+
+/**
+ * The plugin's flight recorder events: {@link AgentLifecycleEvent}, {@link TemplateRenderEvent} and
+ * {@link PacketSendEvent}.
+ * <p>
+ * All of them are disabled by default, so an instrumented call only creates an event object the JIT removes
+ * and reads one flag. To record them on a running server, start a recording with the settings file the plugin
+ * writes to its folder, next to the JDK's own:
+ * <pre>
+ * jcmd &lt;pid&gt; JFR.start name=node settings=default settings=plugins/MC-NODE/mc-node.jfc
+ * </pre>
+ */
+@UtilityClass
+public class NodeEvents {
+
+    /**
+     * Settings file enabling every event, shipped in the plugin jar.
+     */
+    public final String SETTINGS_FILE = "mc-node.jfc";
+
+    /**
+     * Registers the events, so recordings and settings files know them before their first use.
+     */
+    public void register() {
+        FlightRecorder.register(AgentLifecycleEvent.class);
+        FlightRecorder.register(TemplateRenderEvent.class);
+        FlightRecorder.register(PacketSendEvent.class);
+    }
+}
@@ -0,0 +1,57 @@
+package mc.node.objects.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Flight recorder event for packets written to a player's connection.
+ * Disabled by default, see {@link NodeEvents}.
+ */
+@Name("mc.node.PacketSend")
+@Label("Packet Send")
+@Category({"MC-NODE", "Network"})
+@Description("Packets were written to a player's connection")
+@Enabled(false)
+@StackTrace(false)
+public class PacketSendEvent extends Event {
+
+    @Label("Player UUID")
+    private String playerId;
+
+    @Label("Packet Type")
+    @Description("Class of the first packet")
+    private String packetType;
+
+    @Label("Packets")
+    private int packets;
+
+    @Label("Batched")
+    @Description("True if the packets were written with a single channel flush")
+    private boolean batched;
+
+    /**
+     * Ends the event and commits it if it is enabled and long enough.
+     *
+     * @param uuid    The unique identifier of the recipient.
+     * @param first   The first packet.
+     * @param packets The number of packets.
+     * @param batched True if the packets shared one flush.
+     */
+    public void finish(UUID uuid, Object first, int packets, boolean batched) {
+        end();
+        if (shouldCommit()) {
+            this.playerId = uuid.toString();
+            this.packetType = first != null ? first.getClass().getSimpleName() : null;
+            this.packets = packets;
+            this.batched = batched;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package mc.node.objects.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for rendering a chat, title or action bar template into its packets.
+ * Disabled by default, see {@link NodeEvents}.
+ */
+@Name("mc.node.TemplateRender")
+@Label("Template Render")
+@Category({"MC-NODE", "Messages"})
+@Description("A message template was rendered and its packets built")
+@Enabled(false)
+@StackTrace(false)
+public class TemplateRenderEvent extends Event {
+
+    @Label("Kind")
+    private String kind;
+
+    @Label("Template")
+    @Description("The template before placeholders are replaced")
+    private String template;
+
+    @Label("Recipients")
+    private int recipients;
+
+    @Label("Rendered Size")
+    @Description("UTF-16 size of the rendered text, for the last recipient")
+    @DataAmount
+    private long renderedBytes;
+
+    /**
+     * Ends the event and commits it if it is enabled and long enough.
+     *
+     * @param kind       "chat", "title" or "actionbar".
+     * @param template   The template.
+     * @param recipients The number of recipients.
+     * @param rendered   The rendered text, or null.
+     */
+    public void finish(String kind, String template, int recipients, String rendered) {
+        end();
+        if (shouldCommit()) {
+            this.kind = kind;
+            this.template = template;
+            this.recipients = recipients;
+            this.renderedBytes = rendered != null ? rendered.length() * 2L : 0L;
+            commit();
+        }
+    }
+}
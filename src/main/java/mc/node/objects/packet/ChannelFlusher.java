@@ -0,0 +1,208 @@
+package mc.node.objects.packet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import lombok.experimental.UtilityClass;
+import mc.node.adapter.NmsAdapter;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional deferred flushing of the packets the plugin sends.
+ * <p>
+ * {@code PlayerConnection#sendPacket} writes and flushes every packet, so a title costs three flushes and
+ * three syscalls. While enabled, {@link Packets} writes to the player's channel without flushing, from any
+ * thread, and every channel written to is flushed once per tick, after {@link OutboundQueues} wrote the
+ * coalesced sends of the tick. The first write to a channel adds a handler next to the socket that measures
+ * the bytes each flush of that channel carries, including the server's own flushes.
+ * <p>
+ * Like {@link OutboundQueues}, the writes skip {@code PlayerConnection#sendPacket} and its handling, so
+ * deferred flushing is disabled by default. A quitting player's channel is flushed by {@link #discard(Player)}.
+ */
+@UtilityClass
+public class ChannelFlusher {
+
+    private final String HANDLER_NAME = "mc_node_flush_stats";
+
+    private final Set<Channel> dirty = ConcurrentHashMap.newKeySet();        // Written since the last flush
+    private final Set<Channel> instrumented = ConcurrentHashMap.newKeySet(); // Carrying the stats handler
+    private volatile BukkitTask flushTask;
+
+    private final LongAdder written = new LongAdder();      // Packets written without a flush
+    private final LongAdder flushes = new LongAdder();      // Flushes issued by the tick task
+    private final LongAdder wireFlushes = new LongAdder();  // Flushes reaching the socket of an instrumented channel
+    private final LongAdder wireBytes = new LongAdder();    // Bytes those flushes carried
+    private final LongAdder emptyFlushes = new LongAdder(); // Flushes with nothing to write
+    private volatile long maxFlushBytes;
+
+    /**
+     * Starts deferring flushes, flushing the written channels once per tick.
+     *
+     * @param plugin The plugin owning the flush task.
+     */
+    public void enable(Plugin plugin) {
+        if (flushTask == null) {
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+                OutboundQueues.flush(); // Writes the coalesced sends first, whichever task the scheduler runs first
+                flush();
+            }, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stops deferring flushes, flushes the written channels and removes the stats handlers.
+     */
+    public void disable() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+        for (Channel channel : instrumented) {
+            try {
+                channel.pipeline().remove(HANDLER_NAME);
+            } catch (NoSuchElementException ignored) {
+                // Closed in the meantime
+            }
+        }
+        instrumented.clear();
+    }
+
+    /**
+     * @return True if flushes are currently deferred.
+     */
+    public boolean isEnabled() {
+        return flushTask != null;
+    }
+
+    /**
+     * Writes a packet without flushing and marks the channel for the next flush. Callable from any thread;
+     * Netty keeps the writes of one thread in order.
+     *
+     * @param channel The player's channel.
+     * @param packet  The NMS packet.
+     */
+    public void write(Channel channel, Object packet) {
+        channel.write(packet, channel.voidPromise());
+        written.increment();
+        if (dirty.add(channel) && instrumented.add(channel)) { // Marked after the write, so no flush is lost
+            instrument(channel);
+        }
+    }
+
+    /**
+     * Flushes what was written to the player's channel and forgets the channel, e.g. when they quit, so the
+     * written packets are sent or released instead of waiting for the next tick.
+     *
+     * @param player The player.
+     */
+    public void discard(Player player) {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Object connection = NmsAdapter.connection(player);
+        Channel channel = connection != null ? NmsAdapter.channel(connection) : null;
+        if (channel != null && dirty.remove(channel)) {
+            channel.flush();
+            flushes.increment();
+        }
+    }
+
+    /**
+     * Flushes every channel written to since the last flush.
+     */
+    public void flush() {
+        for (Iterator<Channel> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            Channel channel = iterator.next();
+            iterator.remove();
+            channel.flush();
+            flushes.increment();
+        }
+    }
+
+    private void instrument(Channel channel) {
+        try {
+            channel.pipeline().addFirst(HANDLER_NAME, new FlushStatsHandler());
+            channel.closeFuture().addListener((ChannelFutureListener) future -> {
+                instrumented.remove(channel);
+                dirty.remove(channel); // Closing released the unflushed writes
+            });
+        } catch (IllegalArgumentException | NoSuchElementException e) {
+            instrumented.remove(channel); // Already instrumented by a previous enable, or closed
+        }
+    }
+
+    /**
+     * @return The packets written without a flush.
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * @return The flushes issued by the tick task.
+     */
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return The flushes saved, one per packet written minus the flushes issued instead.
+     */
+    public long getFlushesSaved() {
+        return written.sum() - flushes.sum();
+    }
+
+    /**
+     * @return The counters as a single line, for logging.
+     */
+    public String stats() {
+        long wire = wireFlushes.sum();
+        return "written=" + written.sum() + ", flushes=" + flushes.sum() + ", flushes-saved=" + getFlushesSaved()
+                + ", wire-flushes=" + wire + ", empty-flushes=" + emptyFlushes.sum()
+                + ", avg-bytes-per-flush=" + (wire == 0 ? 0 : wireBytes.sum() / wire) + ", max-bytes-per-flush=" + maxFlushBytes;
+    }
+
+    /**
+     * Counts the encoded bytes between two flushes of one channel. Runs on the channel's event loop.
+     */
+    private static final class FlushStatsHandler extends ChannelOutboundHandlerAdapter {
+        private long pendingBytes;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof ByteBuf buf) {
+                pendingBytes += buf.readableBytes();
+            }
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            long bytes = pendingBytes;
+            pendingBytes = 0L;
+            wireFlushes.increment();
+            if (bytes == 0L) {
+                emptyFlushes.increment();
+            } else {
+                wireBytes.add(bytes);
+                if (bytes > maxFlushBytes) {
+                    maxFlushBytes = bytes;
+                }
+            }
+            ctx.flush();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package mc.node.objects.packet;
+
+import lombok.experimental.UtilityClass;
+import mc.node.adapter.NmsAdapter;
+
+/**
+ * Builds NMS chat components directly from rendered text.
+ * <p>
+ * Components are not cached: an NMS component is mutable, and the server initializes parts of it lazily
+ * while a packet is encoded on a Netty thread. Every packet therefore gets its own component; building one
+ * is a single allocation, unlike the JSON round trip it replaces.
+ */
+@UtilityClass
+public class ChatComponents {
+
+    /**
+     * Returns a text component for the given already formatted text.
+     * Unlike parsing a hand-built JSON string, any quotes or backslashes in the text are kept as they are.
+     *
+     * @param text The rendered text, including section sign color codes.
+     * @return A new NMS component.
+     */
+    public Object text(String text) {
+        return NmsAdapter.text(text);
+    }
+}
@@ -0,0 +1,115 @@
+package mc.node.objects.packet;
+
+import mc.node.adapter.NmsAdapter;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chat, action bar and title sends collected for one player during a tick.
+ * Only accessed from the main thread, see {@link OutboundQueues}.
+ */
+final class OutboundQueue {
+
+    private static final int MAX_MERGED_LINES = 16;      // Chat lines merged into a single packet at most
+    private static final int MAX_MERGED_LENGTH = 32767;  // Longest chat JSON the client accepts
+    private static final int SEPARATOR_LENGTH = ComponentSerializer.toString(new TextComponent("\n")).length() + 1; // Plus the comma
+
+    private final List<Object> chat = new ArrayList<>(); // NMS chat packets in send order
+    private Object actionBar; // Only the latest action bar of the tick is shown
+    private Object title;     // Latest title, subtitle and times of the tick
+    private Object subtitle;
+    private Object times;
+    private boolean queued;   // True while the queue is in the dirty list
+
+    void chat(Object packet) {
+        chat.add(packet);
+    }
+
+    void actionBar(Object packet) {
+        this.actionBar = packet;
+    }
+
+    void title(Object title, Object subtitle, Object times) {
+        this.title = title;
+        this.subtitle = subtitle;
+        this.times = times;
+    }
+
+    boolean markQueued() {
+        if (queued) return false;
+        queued = true;
+        return true;
+    }
+
+    /**
+     * Builds the packets to send and resets the queue.
+     *
+     * @return The coalesced NMS packets, in send order.
+     */
+    List<Object> drain() {
+        List<Object> packets = new ArrayList<>(chat.size() + 4);
+        mergeChat(packets);
+
+        if (actionBar != null) packets.add(actionBar);
+        if (title != null) packets.add(title);
+        if (subtitle != null) packets.add(subtitle);
+        if (times != null) packets.add(times);
+
+        chat.clear();
+        actionBar = null;
+        title = subtitle = times = null;
+        queued = false;
+        return packets;
+    }
+
+    /**
+     * Merges runs of consecutive component chat packets into one packet whose lines are separated by
+     * newlines. Each line keeps its own click and hover events. A run ends before its JSON would exceed
+     * the length the client accepts; the length of each line is counted as if it were sent alone, which
+     * overestimates the merged packet slightly. Packets built from NMS components cannot be merged and are
+     * sent as they are.
+     */
+    private void mergeChat(List<Object> packets) {
+        List<Object> run = new ArrayList<>(Math.min(chat.size(), MAX_MERGED_LINES));
+        int runLength = 0;
+
+        for (Object packet : chat) {
+            BaseComponent[] components = NmsAdapter.components(packet);
+            if (components == null) {
+                flushRun(run, packets);
+                runLength = 0;
+                packets.add(packet);
+                continue;
+            }
+            int length = ComponentSerializer.toString(components).length() + SEPARATOR_LENGTH;
+            if (run.size() == MAX_MERGED_LINES || (!run.isEmpty() && runLength + length > MAX_MERGED_LENGTH)) {
+                flushRun(run, packets);
+                runLength = 0;
+            }
+            run.add(packet);
+            runLength += length;
+        }
+        flushRun(run, packets);
+    }
+
+    private static void flushRun(List<Object> run, List<Object> packets) {
+        if (run.size() == 1) {
+            packets.add(run.get(0));
+        } else if (run.size() > 1) {
+            List<BaseComponent> lines = new ArrayList<>(run.size() * 2);
+            for (Object packet : run) {
+                if (!lines.isEmpty()) {
+                    lines.add(new TextComponent("\n"));
+                }
+                Collections.addAll(lines, NmsAdapter.components(packet));
+            }
+            packets.add(Packets.chat(new TextComponent(lines.toArray(new BaseComponent[0]))));
+        }
+        run.clear();
+    }
+}
@@ -0,0 +1,158 @@
+package mc.node.objects.packet;
+
+import lombok.experimental.UtilityClass;
+import mc.node.objects.collection.UuidMap;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optional per-player coalescing of chat, action bar and title sends.
+ * <p>
+ * While enabled, sends made on the main thread are collected per player and written once per tick:
+ * consecutive chat lines are merged into one packet, an action bar or title replaced later in the tick is
+ * dropped, and every player's packets are written with a single channel flush. Sends from other threads,
+ * or while disabled, go out immediately.
+ * <p>
+ * The flush writes to the player's channel through {@link Packets#sendBatch}, not through
+ * {@code PlayerConnection#sendPacket}. It therefore skips what that method does besides sending: plugins hooking
+ * it do not see the packets, and the client's chat visibility setting is not applied. While the connection has
+ * no open channel yet, the packets still go through {@code sendPacket} and the server's own queue. Disabled by
+ * default.
+ */
+@UtilityClass
+public class OutboundQueues {
+
+    private final UuidMap<OutboundQueue> queues = new UuidMap<>();
+    private final List<Player> dirty = new ArrayList<>(); // Players with queued sends, main thread only
+    private BukkitTask flushTask;
+
+    /**
+     * Starts coalescing sends, flushing the queues once per tick.
+     *
+     * @param plugin The plugin owning the flush task.
+     */
+    public void enable(Plugin plugin) {
+        if (flushTask == null) {
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, OutboundQueues::flush, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stops coalescing sends, flushing whatever is still queued.
+     */
+    public void disable() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+        queues.clear();
+    }
+
+    /**
+     * @return True if sends are currently coalesced.
+     */
+    public boolean isEnabled() {
+        return flushTask != null;
+    }
+
+    /**
+     * Sends or queues a chat packet.
+     *
+     * @param player The recipient.
+     * @param packet The PacketPlayOutChat.
+     */
+    public void chat(Player player, Object packet) {
+        OutboundQueue queue = queue(player);
+        if (queue == null) {
+            Packets.send(player, packet);
+            return;
+        }
+        queue.chat(packet);
+    }
+
+    /**
+     * Sends or queues an action bar packet, replacing an action bar queued earlier in the tick.
+     *
+     * @param player The recipient.
+     * @param packet The action bar PacketPlayOutChat.
+     */
+    public void actionBar(Player player, Object packet) {
+        OutboundQueue queue = queue(player);
+        if (queue == null) {
+            Packets.send(player, packet);
+            return;
+        }
+        queue.actionBar(packet);
+    }
+
+    /**
+     * Sends or queues a title, replacing a title queued earlier in the tick.
+     *
+     * @param player   The recipient.
+     * @param title    The title packet.
+     * @param subtitle The subtitle packet.
+     * @param times    The timings packet.
+     */
+    public void title(Player player, Object title, Object subtitle, Object times) {
+        OutboundQueue queue = queue(player);
+        if (queue == null) {
+            Packets.send(player, title, subtitle, times);
+            return;
+        }
+        queue.title(title, subtitle, times);
+    }
+
+    /**
+     * Drops the player's queue, e.g. when they quit.
+     *
+     * @param player The player.
+     */
+    public void discard(Player player) {
+        queues.remove(player.getUniqueId());
+    }
+
+    /**
+     * Writes every queued send, one channel flush per player, or none while {@link ChannelFlusher} defers
+     * the flushes. Runs once per tick while enabled.
+     */
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        for (Player player : dirty) {
+            OutboundQueue queue = queues.getOrNull(player.getUniqueId());
+            if (queue == null) {
+                continue;
+            }
+
+            if (player.isOnline()) {
+                Packets.sendBatch(player, queue.drain());
+            } else {
+                queues.remove(player.getUniqueId());
+            }
+        }
+        dirty.clear();
+    }
+
+    /**
+     * @return The player's queue marked for the next flush, or null if the send should go out immediately.
+     */
+    private OutboundQueue queue(Player player) {
+        if (flushTask == null || !Bukkit.isPrimaryThread()) {
+            return null;
+        }
+
+        OutboundQueue queue = queues.computeIfAbsent(player.getUniqueId(), uuid -> new OutboundQueue());
+        if (queue.markQueued()) {
+            dirty.add(player);
+        }
+        return queue;
+    }
+}
@@ -0,0 +1,111 @@
+package mc.node.objects.packet;
+
+import io.netty.channel.Channel;
+import lombok.experimental.UtilityClass;
+import mc.node.adapter.NmsAdapter;
+import mc.node.objects.jfr.PacketSendEvent;
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Utility class for sending NMS packets to players, through the version-independent {@link NmsAdapter}.
+ * Packets are immutable once built, so a single instance can be written to any number of connections.
+ */
+@UtilityClass
+public class Packets {
+
+    /**
+     * Sends the given packets, in order, to a single player. While {@link ChannelFlusher} is enabled the packets
+     * are written without a flush.
+     *
+     * @param player  The recipient.
+     * @param packets The NMS packets to send.
+     */
+    public void send(Player player, Object... packets) {
+        Object connection = NmsAdapter.connection(player);
+        if (connection == null) {
+            return; // Player is not (or no longer) connected
+        }
+
+        PacketSendEvent event = new PacketSendEvent();
+        event.begin();
+        Channel channel = ChannelFlusher.isEnabled() ? NmsAdapter.channel(connection) : null;
+        if (channel != null && channel.isOpen()) {
+            for (Object packet : packets) {
+                ChannelFlusher.write(channel, packet);
+            }
+            event.finish(player.getUniqueId(), packets.length > 0 ? packets[0] : null, packets.length, true);
+            return;
+        }
+
+        for (Object packet : packets) {
+            NmsAdapter.sendPacket(connection, packet);
+        }
+        event.finish(player.getUniqueId(), packets.length > 0 ? packets[0] : null, packets.length, false);
+    }
+
+    /**
+     * Sends the same packet instances, in order, to every given player.
+     *
+     * @param players The recipients.
+     * @param packets The NMS packets to send.
+     */
+    public void broadcast(Collection<? extends Player> players, Object... packets) {
+        for (Player player : players) {
+            send(player, packets);
+        }
+    }
+
+    /**
+     * Writes the given packets, in order, to the player's channel and flushes it once at the end,
+     * instead of flushing after every packet, or leaves the flush to {@link ChannelFlusher} while it is
+     * enabled. The packets bypass {@code PlayerConnection#sendPacket} and its handling, e.g. the client's chat
+     * visibility setting. Falls back to {@code sendPacket} while the channel is not available.
+     *
+     * @param player  The recipient.
+     * @param packets The NMS packets to write.
+     */
+    public void sendBatch(Player player, List<?> packets) {
+        Object connection = NmsAdapter.connection(player);
+        if (connection == null || packets.isEmpty()) {
+            return;
+        }
+
+        PacketSendEvent event = new PacketSendEvent();
+        event.begin();
+        Channel channel = NmsAdapter.channel(connection);
+        if (channel == null || !channel.isOpen()) {
+            for (Object packet : packets) {
+                NmsAdapter.sendPacket(connection, packet);
+            }
+            event.finish(player.getUniqueId(), packets.get(0), packets.size(), false);
+            return;
+        }
+
+        if (ChannelFlusher.isEnabled()) {
+            for (Object packet : packets) {
+                ChannelFlusher.write(channel, packet);
+            }
+        } else {
+            for (Object packet : packets) {
+                channel.write(packet, channel.voidPromise());
+            }
+            channel.flush();
+        }
+        event.finish(player.getUniqueId(), packets.get(0), packets.size(), true);
+    }
+
+    /**
+     * Wraps components in a chat packet the same way {@code Player.Spigot#sendMessage} does,
+     * so the components are serialized by the packet itself.
+     *
+     * @param components The components to send.
+     * @return The PacketPlayOutChat.
+     */
+    public Object chat(BaseComponent... components) {
+        return NmsAdapter.chat(components);
+    }
+}
@@ -24,6 +24,86 @@ public interface FieldAccessor<T> {
      */
     void set(final Object target, final Object value);
 
+    /**
+     * Retrieve the content of an int field without boxing, where the implementation supports it.
+     *
+     * @param target - the targetToLoad object, or NULL for a static field.
+     * @return The value of the field.
+     */
+    default int getInt(final Object target) {
+        return ((Number) get(target)).intValue();
+    }
+
+    /**
+     * Set the content of an int field without boxing, where the implementation supports it.
+     *
+     * @param target - the targetToLoad object, or NULL for a static field.
+     * @param value  - the new value of the field.
+     */
+    default void setInt(final Object target, final int value) {
+        set(target, value);
+    }
+
+    /**
+     * Retrieve the content of a long field without boxing, where the implementation supports it.
+     *
+     * @param target - the targetToLoad object, or NULL for a static field.
+     * @return The value of the field.
+     */
+    default long getLong(final Object target) {
+        return ((Number) get(target)).longValue();
+    }
+
+    /**
+     * Set the content of a long field without boxing, where the implementation supports it.
+     *
+     * @param target - the targetToLoad object, or NULL for a static field.
+     * @param value  - the new value of the field.
+     */
+    default void setLong(final Object target, final long value) {
+        set(target, value);
+    }
+
+    /**
+     * Retrieve the content of a double field without boxing, where the implementation supports it.
+     *
+     * @param target - the targetToLoad object, or NULL for a static field.
+     * @return The value of the field.
+     */
+    default double getDouble(final Object target) {
+        return ((Number) get(target)).doubleValue();
+    }
+
+    /**
+     * Set the content of a double field without boxing, where the implementation supports it.
+     *
+     * @param target - the targetToLoad object, or NULL for a static field.
+     * @param value  - the new value of the field.
+     */
+    default void setDouble(final Object target, final double value) {
+        set(target, value);
+    }
+
+    /**
+     * Retrieve the content of a boolean field without boxing, where the implementation supports it.
+     *
+     * @param target - the targetToLoad object, or NULL for a static field.
+     * @return The value of the field.
+     */
+    default boolean getBoolean(final Object target) {
+        return (Boolean) get(target);
+    }
+
+    /**
+     * Set the content of a boolean field without boxing, where the implementation supports it.
+     *
+     * @param target - the targetToLoad object, or NULL for a static field.
+     * @param value  - the new value of the field.
+     */
+    default void setBoolean(final Object target, final boolean value) {
+        set(target, value);
+    }
+
     /**
      * Determine if the given object has this field.
      *
@@ -0,0 +1,107 @@
+package mc.node.objects.plugin.reflection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Creates the method handle backed {@link FieldAccessor}s.
+ * <p>
+ * Each field gets its own hidden class defined from the bytes of {@link HandleFieldAccessor}, with the field's
+ * handles as class data at the indices below. The accessor's handles thus end up in static final fields.
+ */
+final class FieldHandles {
+
+    static final int FIELD = 0;
+    static final int GETTER = 1;
+    static final int SETTER = 2;
+    static final int INT_GETTER = 3;
+    static final int INT_SETTER = 4;
+    static final int LONG_GETTER = 5;
+    static final int LONG_SETTER = 6;
+    static final int DOUBLE_GETTER = 7;
+    static final int DOUBLE_SETTER = 8;
+    static final int BOOLEAN_GETTER = 9;
+    static final int BOOLEAN_SETTER = 10;
+
+    private static final MethodType GET = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SET = MethodType.methodType(void.class, Object.class, Object.class);
+
+    // Class file of the accessor template, read once
+    private static final byte[] TEMPLATE = template();
+
+    private FieldHandles() {
+    }
+
+    /**
+     * Unreflects the field and defines the accessor holding its handles.
+     *
+     * @param field The field to access, made accessible by this call.
+     * @return The accessor of the field.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> FieldAccessor<T> accessor(Field field) {
+        try {
+            field.setAccessible(true); // Allows setters for final instance fields, like Field#set did
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+
+            MethodHandle get = lookup.unreflectGetter(field);
+            MethodHandle set = Modifier.isStatic(field.getModifiers()) && Modifier.isFinal(field.getModifiers())
+                    ? null : lookup.unreflectSetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                get = MethodHandles.dropArguments(get, 0, Object.class);
+                set = set != null ? MethodHandles.dropArguments(set, 0, Object.class) : null;
+            }
+
+            Class<?> type = field.getType();
+            Object[] data = new Object[BOOLEAN_SETTER + 1];
+            data[FIELD] = field;
+            data[GETTER] = get.asType(GET);
+            data[SETTER] = set != null ? set.asType(SET) : null;
+            data[INT_GETTER] = typed(get, type, int.class, false);
+            data[INT_SETTER] = typed(set, type, int.class, true);
+            data[LONG_GETTER] = typed(get, type, long.class, false);
+            data[LONG_SETTER] = typed(set, type, long.class, true);
+            data[DOUBLE_GETTER] = typed(get, type, double.class, false);
+            data[DOUBLE_SETTER] = typed(set, type, double.class, true);
+            data[BOOLEAN_GETTER] = typed(get, type, boolean.class, false);
+            data[BOOLEAN_SETTER] = typed(set, type, boolean.class, true);
+
+            MethodHandles.Lookup accessor = MethodHandles.lookup()
+                    .defineHiddenClassWithClassData(TEMPLATE, Collections.unmodifiableList(Arrays.asList(data)), true);
+            return (FieldAccessor<T>) accessor.findConstructor(accessor.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable t) {
+            throw new RuntimeException("Cannot access reflection.", t);
+        }
+    }
+
+    /**
+     * Adapts a getter or setter to take its target as Object, if the field has exactly the given primitive type.
+     */
+    private static MethodHandle typed(MethodHandle handle, Class<?> fieldType, Class<?> primitive, boolean setter) {
+        if (handle == null || fieldType != primitive) {
+            return null;
+        }
+        return handle.asType(setter
+                ? MethodType.methodType(void.class, Object.class, primitive)
+                : MethodType.methodType(primitive, Object.class));
+    }
+
+    private static byte[] template() {
+        try (InputStream in = FieldHandles.class.getResourceAsStream("HandleFieldAccessor.class")) {
+            if (in == null) {
+                throw new IllegalStateException("Missing HandleFieldAccessor.class");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read HandleFieldAccessor.class", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package mc.node.objects.plugin.reflection;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+
+/**
+ * Template of the {@link FieldAccessor}s handed out by {@link FieldHandles}.
+ * <p>
+ * This class is never loaded under its own name: {@link FieldHandles} defines one hidden copy of it per field,
+ * with that field's handles as class data. The handles therefore sit in static final fields, which the JIT
+ * treats as constants, and every access inlines down to the field read or write itself. Primitive fields
+ * additionally get exactly typed handles, so the typed accessors neither box nor unbox.
+ *
+ * @param <T> - field valueType.
+ */
+final class HandleFieldAccessor<T> implements FieldAccessor<T> {
+
+    private static final Field FIELD;
+    private static final MethodHandle GETTER;         // (Object)Object
+    private static final MethodHandle SETTER;         // (Object, Object)void, or null for static final fields
+    private static final MethodHandle INT_GETTER;     // Exactly typed handles, only present for a field of that type
+    private static final MethodHandle INT_SETTER;
+    private static final MethodHandle LONG_GETTER;
+    private static final MethodHandle LONG_SETTER;
+    private static final MethodHandle DOUBLE_GETTER;
+    private static final MethodHandle DOUBLE_SETTER;
+    private static final MethodHandle BOOLEAN_GETTER;
+    private static final MethodHandle BOOLEAN_SETTER;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            FIELD = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, Field.class, FieldHandles.FIELD);
+            GETTER = handle(lookup, FieldHandles.GETTER);
+            SETTER = handle(lookup, FieldHandles.SETTER);
+            INT_GETTER = handle(lookup, FieldHandles.INT_GETTER);
+            INT_SETTER = handle(lookup, FieldHandles.INT_SETTER);
+            LONG_GETTER = handle(lookup, FieldHandles.LONG_GETTER);
+            LONG_SETTER = handle(lookup, FieldHandles.LONG_SETTER);
+            DOUBLE_GETTER = handle(lookup, FieldHandles.DOUBLE_GETTER);
+            DOUBLE_SETTER = handle(lookup, FieldHandles.DOUBLE_SETTER);
+            BOOLEAN_GETTER = handle(lookup, FieldHandles.BOOLEAN_GETTER);
+            BOOLEAN_SETTER = handle(lookup, FieldHandles.BOOLEAN_SETTER);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e); // Loaded by name instead of through FieldHandles
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(final Object target) {
+        try {
+            return (T) (Object) GETTER.invokeExact(target);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public void set(final Object target, final Object value) {
+        try {
+            writable(SETTER).invokeExact(target, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public int getInt(final Object target) {
+        if (INT_GETTER == null) return FieldAccessor.super.getInt(target);
+        try {
+            return (int) INT_GETTER.invokeExact(target);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public void setInt(final Object target, final int value) {
+        if (INT_SETTER == null) {
+            FieldAccessor.super.setInt(target, value);
+            return;
+        }
+        try {
+            writable(INT_SETTER).invokeExact(target, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public long getLong(final Object target) {
+        if (LONG_GETTER == null) return FieldAccessor.super.getLong(target);
+        try {
+            return (long) LONG_GETTER.invokeExact(target);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public void setLong(final Object target, final long value) {
+        if (LONG_SETTER == null) {
+            FieldAccessor.super.setLong(target, value);
+            return;
+        }
+        try {
+            writable(LONG_SETTER).invokeExact(target, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public double getDouble(final Object target) {
+        if (DOUBLE_GETTER == null) return FieldAccessor.super.getDouble(target);
+        try {
+            return (double) DOUBLE_GETTER.invokeExact(target);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public void setDouble(final Object target, final double value) {
+        if (DOUBLE_SETTER == null) {
+            FieldAccessor.super.setDouble(target, value);
+            return;
+        }
+        try {
+            writable(DOUBLE_SETTER).invokeExact(target, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(final Object target) {
+        if (BOOLEAN_GETTER == null) return FieldAccessor.super.getBoolean(target);
+        try {
+            return (boolean) BOOLEAN_GETTER.invokeExact(target);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public void setBoolean(final Object target, final boolean value) {
+        if (BOOLEAN_SETTER == null) {
+            FieldAccessor.super.setBoolean(target, value);
+            return;
+        }
+        try {
+            writable(BOOLEAN_SETTER).invokeExact(target, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public boolean hasField(final Object target) {
+        // target instance of DeclaringClass
+        return FIELD.getDeclaringClass().isAssignableFrom(target.getClass());
+    }
+
+    private static MethodHandle handle(MethodHandles.Lookup lookup, int index) throws IllegalAccessException {
+        return MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, index);
+    }
+
+    private static MethodHandle writable(MethodHandle setter) throws IllegalAccessException {
+        if (setter == null) {
+            throw new IllegalAccessException("Cannot set static final field " + FIELD.getName());
+        }
+        return setter;
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new RuntimeException("Cannot access reflection.", t);
+    }
+}
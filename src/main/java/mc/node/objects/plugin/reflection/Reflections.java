@@ -2,6 +2,8 @@ package mc.node.objects.plugin.reflection;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 /*
@@ -10,6 +12,9 @@ import java.util.function.Supplier;
  */
 public final class Reflections {
 
+    // Accessors by (class, name, type, index), filled on first lookup
+    private static final Map<FieldKey, FieldAccessor<?>> FIELD_CACHE = new ConcurrentHashMap<>();
+
     /**
      * Retrieve a field accessor for a specific field valueType and name.
      *
@@ -69,6 +74,7 @@ public final class Reflections {
         return getField(getClass(className), fieldType, index);
     }
 
+    @SuppressWarnings("unchecked")
     private static <T> FieldAccessor<T> getField(
             final Class<?> target,
             final String name,
@@ -78,44 +84,30 @@ public final class Reflections {
         if (target == null) {
             throw new IllegalArgumentException("Target class is null");
         }
+        // Resolved accessors are shared, so repeated lookups skip the field search
+        return (FieldAccessor<T>) FIELD_CACHE.computeIfAbsent(new FieldKey(target, name, fieldType, index),
+                key -> FieldHandles.accessor(findField(target, name, fieldType, index)));
+    }
+
+    /**
+     * Find a field by name and valueType, searching the parent classes as well.
+     *
+     * @param target    - the targetToLoad valueType.
+     * @param name      - the name of the field, or NULL to ignore.
+     * @param fieldType - a compatible field valueType.
+     * @param index     - the number of compatible fields to skip.
+     * @return The field, not yet made accessible.
+     */
+    public static Field findField(final Class<?> target, final String name, final Class<?> fieldType, int index) {
         for (final Field field : target.getDeclaredFields()) {
             if ((name == null || field.getName().equals(name)) && fieldType.isAssignableFrom(field.getType()) && index-- <= 0) {
-                field.setAccessible(true);
-
-                // A function for retrieving a specific field value
-                return new FieldAccessor<T>() {
-
-                    @Override
-                    @SuppressWarnings("unchecked")
-                    public T get(final Object target) {
-                        try {
-                            return (T) field.get(target);
-                        } catch (IllegalAccessException e) {
-                            throw new RuntimeException("Cannot access reflection.", e);
-                        }
-                    }
-
-                    @Override
-                    public void set(final Object target, final Object value) {
-                        try {
-                            field.set(target, value);
-                        } catch (IllegalAccessException e) {
-                            throw new RuntimeException("Cannot access reflection.", e);
-                        }
-                    }
-
-                    @Override
-                    public boolean hasField(final Object target) {
-                        // target instance of DeclaringClass
-                        return field.getDeclaringClass().isAssignableFrom(target.getClass());
-                    }
-                };
+                return field;
             }
         }
 
         // Search in parent classes
         if (target.getSuperclass() != null)
-            return getField(target.getSuperclass(), name, fieldType, index);
+            return findField(target.getSuperclass(), name, fieldType, index);
 
         throw new IllegalArgumentException("Cannot find field with valueType " + fieldType);
     }
@@ -170,4 +162,10 @@ public final class Reflections {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Cache key of a field lookup.
+     */
+    private record FieldKey(Class<?> target, String name, Class<?> fieldType, int index) {
+    }
+
+}
@@ -0,0 +1,39 @@
+package mc.node.objects.plugin.registry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The dependencies of the {@code @NodeCommand} constructors, by type, see {@link NodeCommandTable#create(CommandContext)}.
+ */
+public final class CommandContext {
+
+    private final Map<Class<?>, Object> services = new HashMap<>();
+
+    /**
+     * Adds a dependency.
+     *
+     * @param type    The type constructors ask for.
+     * @param service The instance passed to them.
+     * @param <T>     The type of the dependency.
+     * @return This context.
+     */
+    public <T> CommandContext with(Class<T> type, T service) {
+        services.put(type, service);
+        return this;
+    }
+
+    /**
+     * @param type The type a constructor asks for.
+     * @param <T>  The type of the dependency.
+     * @return The instance.
+     * @throws IllegalStateException if no instance was added for the type.
+     */
+    public <T> T require(Class<T> type) {
+        Object service = services.get(type);
+        if (service == null) {
+            throw new IllegalStateException("No " + type.getName() + " in the command context");
+        }
+        return type.cast(service);
+    }
+}
@@ -4,14 +4,22 @@ import lombok.experimental.UtilityClass;
 import mc.node.NodePlugin;
 import mc.node.objects.plugin.reflection.FieldAccessor;
 import mc.node.objects.plugin.reflection.Reflections;
+import mc.node.objects.timing.Timings;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandMap;
 import org.bukkit.command.SimpleCommandMap;
 import org.bukkit.event.Listener;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Utility class for handling command and listener registration in a high-performance manner.
@@ -19,62 +27,118 @@ import java.util.Arrays;
 @UtilityClass
 public class Registry {
 
-    // Cached reference to the Bukkit CommandMap to avoid reflection overhead.
+    // Prefix of the labels that stay unique when another plugin owns a name, e.g. /mc-node:example
+    private final String FALLBACK_PREFIX = "mc-node";
+
+    // Cached reference to the Bukkit CommandMap and its label table, to avoid reflection overhead.
     private CommandMap commandMap;
+    private Map<String, Command> knownCommands;
+
+    // Commands installed by registerCommands, removed again by unregisterCommands
+    private final List<Command> registered = new ArrayList<>();
 
     static {
-        try {
-            initializeBukkitMappings();
-        } catch (ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
-            throw new RuntimeException("Failed to initialize Bukkit field mappings", e);
-        }
+        initializeBukkitMappings();
     }
 
     /**
-     * Initializes the Bukkit field mappings using reflection.
-     *
-     * @throws ClassNotFoundException if a required class is not found.
-     * @throws NoSuchFieldException   if a required field is missing.
-     * @throws IllegalAccessException if access to a field is denied.
+     * Looks up the server's SimpleCommandMap and its label table, once.
      */
-    private static void initializeBukkitMappings() throws ClassNotFoundException, NoSuchFieldException, IllegalAccessException {
-        // Using reflection to access the SimpleCommandMap and the 'knownCommands' field.
+    @SuppressWarnings("unchecked")
+    private static void initializeBukkitMappings() {
         final Class<?> craftServerClass = Bukkit.getServer().getClass();
         FieldAccessor<SimpleCommandMap> fieldAccessor = Reflections.getField(craftServerClass, SimpleCommandMap.class);
 
         commandMap = fieldAccessor.get(Bukkit.getServer());
-        if (commandMap != null) {
-            Field knownCommandsField = SimpleCommandMap.class.getDeclaredField("knownCommands");
-            knownCommandsField.setAccessible(true);
-        } else {
+        if (commandMap == null) {
             throw new IllegalStateException("Failed to retrieve CommandMap.");
         }
+        knownCommands = Reflections.getField(SimpleCommandMap.class, "knownCommands", Map.class).get(commandMap);
     }
 
     /**
-     * Registers a single command in the CommandMap if it is not already registered.
+     * Registers a single command, see {@link #registerCommands(Command...)}.
      *
      * @param commandName the name of the command to register.
      * @param command     the Command object to register.
      */
     public void registerCommand(String commandName, Command command) {
-        if (commandMap.getCommand(commandName) != null && commandMap.getCommand(commandName).isRegistered()) {
-            Bukkit.getConsoleSender().sendMessage("Command " + commandName + " is already registered!");
-            return;
+        if (!commandName.equalsIgnoreCase(command.getName())) {
+            throw new IllegalArgumentException("Command " + command.getName() + " registered as " + commandName);
+        }
+        registerCommands(command);
+    }
+
+    /**
+     * Installs commands, e.g. from {@link NodeCommandTable#create(CommandContext)}, with a single insert into
+     * the server's label table instead of one {@link CommandMap#register(String, Command)} per command.
+     * Labels follow the rules of SimpleCommandMap: a name owned by another plugin's command is skipped, an
+     * alias already in use is skipped, and every command is also reachable as {@code /mc-node:<label>}.
+     * While {@link Timings} are enabled, their executions are timed.
+     *
+     * @param commands the commands to register.
+     */
+    public void registerCommands(Command... commands) {
+        Map<String, Command> labels = new HashMap<>(commands.length * 4);
+        List<String> taken = new ArrayList<>();
+        for (Command command : commands) {
+            Command installed = Timings.isEnabled() ? Timings.wrap(command) : command;
+            String name = installed.getName().toLowerCase(Locale.ENGLISH);
+            Command owner = knownCommands.get(name);
+            if ((owner != null && name.equals(owner.getLabel())) || labels.containsKey(name)) {
+                taken.add(name);
+            } else {
+                installed.setLabel(name);
+                labels.put(name, installed);
+            }
+            labels.put(FALLBACK_PREFIX + ":" + name, installed);
+
+            for (String alias : installed.getAliases()) {
+                alias = alias.toLowerCase(Locale.ENGLISH);
+                labels.putIfAbsent(FALLBACK_PREFIX + ":" + alias, installed);
+                if (!knownCommands.containsKey(alias)) {
+                    labels.putIfAbsent(alias, installed);
+                }
+            }
+            installed.register(commandMap);
+            registered.add(installed);
         }
+        knownCommands.putAll(labels);
 
-        commandMap.register(commandName, command);
-        Bukkit.getConsoleSender().sendMessage("Registered command: " + commandName);
+        Bukkit.getConsoleSender().sendMessage("Registered " + commands.length + " commands"
+                + (taken.isEmpty() ? "" : ", names owned by other plugins: " + String.join(", ", taken)));
+    }
+
+    /**
+     * Removes the commands installed by {@link #registerCommands(Command...)} from the server, e.g. before a
+     * reload installs them again.
+     */
+    public void unregisterCommands() {
+        if (registered.isEmpty()) {
+            return;
+        }
+        Set<Command> commands = Collections.newSetFromMap(new IdentityHashMap<>());
+        commands.addAll(registered);
+        knownCommands.values().removeIf(commands::contains);
+        for (Command command : registered) {
+            command.unregister(commandMap);
+        }
+        registered.clear();
     }
 
     /**
      * Registers a single listener with the plugin.
+     * While {@link Timings} are enabled, each of its event handlers is timed.
      *
      * @param listener the listener to register.
      * @param plugin   the plugin instance to associate the listener with.
      */
     public void registerListener(Listener listener, NodePlugin plugin) {
-        Bukkit.getPluginManager().registerEvents(listener, plugin);
+        if (Timings.isEnabled()) {
+            Timings.registerEvents(listener, plugin);
+        } else {
+            Bukkit.getPluginManager().registerEvents(listener, plugin);
+        }
         Bukkit.getConsoleSender().sendMessage("Registered listener: " + listener.getClass().getSimpleName());
     }
 
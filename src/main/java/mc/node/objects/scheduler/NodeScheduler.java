@@ -0,0 +1,325 @@
+package mc.node.objects.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The plugin's single entry point for work off and back on the main thread.
+ * <p>
+ * Background work runs on a bounded worker pool and is returned as a {@link CompletableFuture}; a full queue
+ * fails the future instead of blocking the caller. Work that has to go back to the main thread is queued
+ * lock-free and run by one drain task per tick, under a time budget: callbacks that do not fit are carried
+ * to the next tick, so a burst of completions spreads over several ticks instead of lengthening one. At least
+ * one callback runs per tick, so the queue always makes progress. Repeating background tasks are started
+ * from the same tick, and a run is skipped while the previous one is still busy.
+ */
+public class NodeScheduler implements AutoCloseable {
+
+    private final Plugin plugin;
+    private final long budgetNanos;
+    private final Logger logger;
+    private final ThreadPoolExecutor workers;
+    private final Queue<Runnable> callbacks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger(); // Size of the callback queue
+    private final List<RepeatingTask> repeating = new CopyOnWriteArrayList<>();
+    private final Executor mainThread = this::runSync;
+    private BukkitTask drainTask;
+    private long tick; // Main thread only
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder callbacksRun = new LongAdder();
+    private final LongAdder callbacksCarried = new LongAdder(); // Left for the next tick by an exhausted budget
+    private final LongAdder ticksOverBudget = new LongAdder();
+    private final LongAdder drainNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();         // Submissions refused by a full worker queue
+    private volatile int lastQueueDepth;
+    private volatile int maxQueueDepth;
+    private volatile long lastDrainNanos;
+    private volatile long maxDrainNanos;
+
+    /**
+     * Creates the worker pool; the main-thread drain starts with {@link #start()}.
+     *
+     * @param plugin        The plugin owning the drain task.
+     * @param threads       The number of worker threads.
+     * @param queueCapacity The maximum number of background tasks waiting for a worker.
+     * @param budgetMillis  The time callbacks may take per tick, in milliseconds.
+     * @param logger        The logger used to report failed tasks.
+     */
+    public NodeScheduler(Plugin plugin, int threads, int queueCapacity, double budgetMillis, Logger logger) {
+        this.plugin = plugin;
+        this.budgetNanos = (long) (budgetMillis * 1_000_000D);
+        this.logger = logger;
+        AtomicInteger created = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "MC-NODE Worker #" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts draining callbacks on the main thread, once per tick.
+     */
+    public void start() {
+        if (drainTask == null) {
+            drainTask = Bukkit.getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+        }
+    }
+
+    /**
+     * Runs a task on a worker.
+     *
+     * @param task The task.
+     * @return A future completing when the task finished, exceptionally if it threw or the queue was full.
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Computes a value on a worker.
+     *
+     * @param supplier The computation.
+     * @param <T>      The type of the value.
+     * @return A future of the value, completing exceptionally if the computation threw or the queue was full.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, workers);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Queues a callback for the next main-thread drain. Callbacks run in the order they were queued, also
+     * when queued from the main thread.
+     *
+     * @param callback The callback.
+     */
+    public void runSync(Runnable callback) {
+        callbacks.offer(callback);
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Computes a value on the main thread, during the next drain.
+     *
+     * @param supplier The computation.
+     * @param <T>      The type of the value.
+     * @return A future of the value, completed on the main thread.
+     */
+    public <T> CompletableFuture<T> supplySync(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        runSync(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @return An executor queueing onto the main-thread drain, e.g. for {@code thenAcceptAsync}.
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Runs a task on a worker every given number of ticks. A run is skipped while the previous one is busy.
+     *
+     * @param task        The task.
+     * @param periodTicks The ticks between two runs.
+     * @return The handle cancelling the task.
+     */
+    public RepeatingTask repeatAsync(Runnable task, long periodTicks) {
+        RepeatingTask repeatingTask = new RepeatingTask(task, Math.max(1L, periodTicks));
+        repeating.add(repeatingTask);
+        return repeatingTask;
+    }
+
+    /**
+     * Runs the callbacks queued before this tick's drain started, until the budget is spent, and starts the due
+     * repeating tasks. Main thread only.
+     */
+    private void drain() {
+        long start = System.nanoTime();
+        tick++;
+        for (RepeatingTask task : repeating) {
+            task.startIfDue();
+        }
+
+        int depth = queued.get();
+        int ran = 0;
+        Runnable callback;
+        while (ran < depth && (callback = callbacks.poll()) != null) {
+            queued.decrementAndGet();
+            ran++;
+            try {
+                callback.run();
+            } catch (Throwable t) {
+                logger.log(Level.SEVERE, "Main-thread callback failed", t);
+            }
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        ticks.increment();
+        callbacksRun.add(ran);
+        drainNanos.add(elapsed);
+        lastQueueDepth = depth;
+        lastDrainNanos = elapsed;
+        if (depth > maxQueueDepth) {
+            maxQueueDepth = depth;
+        }
+        if (elapsed > maxDrainNanos) {
+            maxDrainNanos = elapsed;
+        }
+        if (ran < depth) {
+            ticksOverBudget.increment();
+            callbacksCarried.add(depth - ran);
+        }
+    }
+
+    /**
+     * @return The callbacks waiting for the main thread.
+     */
+    public int getQueuedCallbacks() {
+        return queued.get();
+    }
+
+    /**
+     * @return The background tasks waiting for a worker.
+     */
+    public int getQueuedTasks() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * @return The callbacks queued when the last drain started.
+     */
+    public int getLastQueueDepth() {
+        return lastQueueDepth;
+    }
+
+    /**
+     * @return The time the last drain took, in nanoseconds.
+     */
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+
+    /**
+     * @return The counters as a single line, for logging.
+     */
+    public String stats() {
+        long tickCount = ticks.sum();
+        return "ticks=" + tickCount + ", callbacks=" + callbacksRun.sum() + ", carried=" + callbacksCarried.sum()
+                + ", over-budget=" + ticksOverBudget.sum() + ", avg-drain-us=" + (tickCount == 0 ? 0 : drainNanos.sum() / tickCount / 1000)
+                + ", max-drain-us=" + maxDrainNanos / 1000 + ", max-depth=" + maxQueueDepth + ", queued=" + queued.get()
+                + ", workers-queued=" + getQueuedTasks() + ", rejected=" + rejected.sum();
+    }
+
+    /**
+     * Stops the drain and the repeating tasks, runs the queued callbacks on the calling (main) thread and
+     * waits briefly for the workers.
+     */
+    @Override
+    public void close() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        repeating.clear();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5L, TimeUnit.SECONDS)) {
+                logger.warning("Worker tasks still running after 5 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Runnable callback;
+        while ((callback = callbacks.poll()) != null) {
+            queued.decrementAndGet();
+            try {
+                callback.run();
+            } catch (Throwable t) {
+                logger.log(Level.SEVERE, "Main-thread callback failed", t);
+            }
+        }
+    }
+
+    /**
+     * A background task started every few ticks, see {@link #repeatAsync(Runnable, long)}.
+     */
+    public final class RepeatingTask {
+        private final Runnable task;
+        private final long periodTicks;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private long nextTick; // Main thread only
+
+        private RepeatingTask(Runnable task, long periodTicks) {
+            this.task = task;
+            this.periodTicks = periodTicks;
+            this.nextTick = tick + periodTicks;
+        }
+
+        /**
+         * Stops starting the task; a run in progress finishes.
+         */
+        public void cancel() {
+            repeating.remove(this);
+        }
+
+        private void startIfDue() {
+            if (tick < nextTick || !running.compareAndSet(false, true)) {
+                return;
+            }
+            nextTick = tick + periodTicks;
+            try {
+                workers.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        logger.log(Level.SEVERE, "Repeating task failed", t);
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.set(false); // Pool busy or closing, retried next tick
+                rejected.increment();
+            }
+        }
+    }
+}
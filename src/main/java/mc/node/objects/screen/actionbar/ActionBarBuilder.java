@@ -1,13 +1,17 @@
 package mc.node.objects.screen.actionbar;
 
-import net.md_5.bungee.api.ChatColor;
-import net.minecraft.server.v1_8_R3.ChatComponentText;
-import net.minecraft.server.v1_8_R3.PacketPlayOutChat;
-import org.bukkit.craftbukkit.v1_8_R3.entity.CraftPlayer;
+import mc.node.adapter.NmsAdapter;
+import mc.node.objects.jfr.TemplateRenderEvent;
+import mc.node.objects.packet.ChatComponents;
+import mc.node.objects.packet.OutboundQueues;
+import mc.node.objects.template.Placeholders;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Builder class for creating title and subtitle messages for Minecraft's title screen.
@@ -16,7 +20,7 @@ import java.util.Map;
 public abstract class ActionBarBuilder<T, B extends ActionBarBuilder<T, B>> {
 
     private final String display; // The title message
-    private final Map<String, String> placeholders = new HashMap<>(); // Placeholder replacements
+    private final Placeholders placeholders = new Placeholders(); // Placeholder replacements
 
     /**
      * Constructor to initialize the TitleMessageBuilder with a title and subtitle.
@@ -47,38 +51,74 @@ public abstract class ActionBarBuilder<T, B extends ActionBarBuilder<T, B>> {
         return (B) this; // Fluent interface: return the builder for chaining
     }
 
+    /**
+     * Adds a placeholder whose value is resolved for each recipient.
+     *
+     * @param placeholder The placeholder to replace.
+     * @param resolver    The function producing the value for a given player.
+     * @return The current builder instance (for chaining).
+     */
+    public B addPlaceholder(String placeholder, Function<Player, String> resolver) {
+        placeholders.put(placeholder, resolver);
+        return (B) this; // Fluent interface: return the builder for chaining
+    }
+
     /**
      * Builds the final title message, replacing any placeholders and applying formatting.
      *
      * @return The formatted title message as a string.
      */
     public String buildDisplay() {
-        String builtDisplay = this.display;
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            builtDisplay = builtDisplay.replace(entry.getKey(), entry.getValue());
-        }
-        return applyFormatting(builtDisplay);
+        return placeholders.render(this.display);
     }
 
 
     /**
-     * Converts the title and subtitle messages to TextComponents, including actions (if set).
+     * Sends the action bar to the given player.
      *
-     * @return A map with title and subtitle TextComponents.
+     * @param player The recipient.
      */
     public void build(Player player) {
-        PacketPlayOutChat packet = new PacketPlayOutChat(new ChatComponentText(buildDisplay()), (byte)2);
-        ((CraftPlayer) player).getHandle().playerConnection.sendPacket(packet);
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        String text = placeholders.render(this.display, player);
+        Object packet = actionBarPacket(text);
+        event.finish("actionbar", this.display, 1, text);
+        OutboundQueues.actionBar(player, packet);
+    }
+
+    /**
+     * Sends the action bar to every given player. Placeholders are rendered and the packet is built once;
+     * with per-player placeholders, only those are resolved per recipient and equal texts share their packet.
+     *
+     * @param players The recipients.
+     */
+    public void build(Collection<? extends Player> players) {
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        Function<Player, String> renderer = placeholders.renderer(this.display);
+        Map<String, Object> packets = new HashMap<>();
+        for (Player player : players) {
+            OutboundQueues.actionBar(player, packets.computeIfAbsent(renderer.apply(player), this::actionBarPacket));
+        }
+        event.finish("actionbar", this.display, players.size(), null);
+    }
+
+    /**
+     * Sends the action bar to every online player.
+     */
+    public void broadcast() {
+        build(Bukkit.getOnlinePlayers());
     }
 
     /**
-     * Applies Minecraft color formatting to the message, replacing '&' with color codes.
+     * Creates an action bar chat packet for the given rendered text.
      *
-     * @param message The message to format.
-     * @return The formatted message.
+     * @param text The rendered text.
+     * @return The packet.
      */
-    private String applyFormatting(String message) {
-        return ChatColor.translateAlternateColorCodes('&', message);
+    private Object actionBarPacket(String text) {
+        return NmsAdapter.actionBar(ChatComponents.text(text));
     }
 
     /**
@@ -0,0 +1,13 @@
+package mc.node.objects.screen.scoreboard;
+
+import org.bukkit.ChatColor;
+
+public final class LegacySidebarBuilder extends SidebarBuilder<String, LegacySidebarBuilder> {
+    LegacySidebarBuilder(String title) {
+        super(title);
+    }
+
+    protected String toString(String str) {
+        return ChatColor.translateAlternateColorCodes('&', str);
+    }
+}
@@ -0,0 +1,172 @@
+package mc.node.objects.screen.scoreboard;
+
+import mc.node.objects.jfr.TemplateRenderEvent;
+import mc.node.objects.template.Placeholders;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Builder class for a per-player sidebar, with the same placeholders as the title and action bar builders.
+ * Each send goes through {@link Sidebars}, which only sends the title and lines that changed since the
+ * player's last sidebar, so a board refreshed on a timer costs packets for the changing lines only.
+ */
+public abstract class SidebarBuilder<T, B extends SidebarBuilder<T, B>> {
+
+    private final String title; // The sidebar title
+    private final List<String> lines = new ArrayList<>(); // The line templates, top first
+    private final Placeholders placeholders = new Placeholders(); // Placeholder replacements
+
+    /**
+     * Constructor to initialize the SidebarBuilder with a title.
+     *
+     * @param title The title shown above the lines.
+     */
+    protected SidebarBuilder(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Abstract method to convert the object to a string representation (overridden in subclasses).
+     *
+     * @param obj The object to convert.
+     * @return The string representation of the object.
+     */
+    protected abstract String toString(T obj);
+
+    /**
+     * Adds a line below the previous ones.
+     *
+     * @param line The line template.
+     * @return The current builder instance (for chaining).
+     * @throws IllegalStateException if the sidebar already has {@link Sidebars#MAX_LINES} lines.
+     */
+    public B addLine(String line) {
+        if (lines.size() == Sidebars.MAX_LINES) {
+            throw new IllegalStateException("A sidebar shows at most " + Sidebars.MAX_LINES + " lines");
+        }
+        lines.add(line);
+        return (B) this; // Fluent interface: return the builder for chaining
+    }
+
+    /**
+     * Adds a placeholder to be replaced in the title or lines.
+     *
+     * @param placeholder The placeholder to replace.
+     * @param replacement The value to replace the placeholder with.
+     * @return The current builder instance (for chaining).
+     */
+    public B addPlaceholder(String placeholder, String replacement) {
+        placeholders.put(placeholder, replacement);
+        return (B) this; // Fluent interface: return the builder for chaining
+    }
+
+    /**
+     * Adds a placeholder whose value is resolved for each recipient, on every refresh.
+     *
+     * @param placeholder The placeholder to replace.
+     * @param resolver    The function producing the value for a given player.
+     * @return The current builder instance (for chaining).
+     */
+    public B addPlaceholder(String placeholder, Function<Player, String> resolver) {
+        placeholders.put(placeholder, resolver);
+        return (B) this; // Fluent interface: return the builder for chaining
+    }
+
+    /**
+     * Builds the final title, replacing any placeholders and applying formatting.
+     *
+     * @return The formatted title as a string.
+     */
+    public String buildTitle() {
+        return placeholders.render(this.title);
+    }
+
+    /**
+     * Builds the final lines, replacing any placeholders and applying formatting.
+     *
+     * @return The formatted lines, top first.
+     */
+    public String[] buildLines() {
+        String[] rendered = new String[lines.size()];
+        for (int i = 0; i < rendered.length; i++) {
+            rendered[i] = placeholders.render(lines.get(i));
+        }
+        return rendered;
+    }
+
+    /**
+     * Shows the sidebar to the given player, sending only what changed since their last sidebar.
+     *
+     * @param player The recipient.
+     */
+    public void build(Player player) {
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        String renderedTitle = placeholders.render(this.title, player);
+        String[] renderedLines = new String[lines.size()];
+        for (int i = 0; i < renderedLines.length; i++) {
+            renderedLines[i] = placeholders.render(lines.get(i), player);
+        }
+        event.finish("sidebar", this.title, 1, renderedTitle);
+        Sidebars.show(player, renderedTitle, renderedLines);
+    }
+
+    /**
+     * Shows the sidebar to every given player in one pass. Placeholders are rendered once; with per-player
+     * placeholders, only those are resolved per recipient, and each player is sent the lines that changed.
+     *
+     * @param players The recipients.
+     */
+    public void build(Collection<? extends Player> players) {
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        Function<Player, String> titleRenderer = placeholders.renderer(this.title);
+        List<Function<Player, String>> lineRenderers = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            lineRenderers.add(placeholders.renderer(line));
+        }
+
+        for (Player player : players) {
+            String[] renderedLines = new String[lineRenderers.size()];
+            for (int i = 0; i < renderedLines.length; i++) {
+                renderedLines[i] = lineRenderers.get(i).apply(player);
+            }
+            Sidebars.show(player, titleRenderer.apply(player), renderedLines);
+        }
+        event.finish("sidebar", this.title, players.size(), null);
+    }
+
+    /**
+     * Shows the sidebar to every online player.
+     */
+    public void broadcast() {
+        build(Bukkit.getOnlinePlayers());
+    }
+
+    /**
+     * Refreshes the sidebar of every online player on a timer, in a single pass per refresh on the main thread.
+     *
+     * @param plugin The plugin owning the task.
+     * @param period The ticks between two refreshes.
+     * @return The task, to cancel the refreshes.
+     */
+    public BukkitTask schedule(Plugin plugin, long period) {
+        return Bukkit.getScheduler().runTaskTimer(plugin, this::broadcast, 0L, period);
+    }
+
+    /**
+     * Factory method to create a LegacySidebarBuilder.
+     *
+     * @return A new LegacySidebarBuilder instance.
+     */
+    public static LegacySidebarBuilder legacy(String title) {
+        return new LegacySidebarBuilder(title);
+    }
+}
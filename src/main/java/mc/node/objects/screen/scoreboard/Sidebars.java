@@ -0,0 +1,211 @@
+package mc.node.objects.screen.scoreboard;
+
+import lombok.experimental.UtilityClass;
+import mc.node.adapter.NmsScoreboard;
+import mc.node.objects.collection.UuidMap;
+import mc.node.objects.packet.Packets;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The sidebar each player sees, kept as the texts last sent to them, so a refresh only sends what changed.
+ * <p>
+ * Each line is a team holding a fixed, invisible entry, with the text in the team's prefix and suffix, and
+ * the entry's score placing the line. Changing a line's text is then a single team update, instead of
+ * removing the old score and setting a new one as the sidebar would need with the text as the entry, and an
+ * unchanged line costs nothing. All packets of a refresh go out in one batch per player. Called on the main
+ * thread; the state of a player is dropped when they quit, see {@link #discard(Player)}.
+ */
+@UtilityClass
+public class Sidebars {
+
+    /**
+     * The number of lines the client shows in the sidebar.
+     */
+    public final int MAX_LINES = 15;
+
+    private final String OBJECTIVE = "mc-node";
+    private final String TEAM_PREFIX = "mc-node-";
+
+    private final String[] ENTRIES = entries(); // One invisible entry per line, e.g. "§0§r"
+    private final String[] TEAMS = teams();
+
+    private final UuidMap<Shown> shown = new UuidMap<>();
+
+    private final LongAdder refreshes = new LongAdder();      // Calls of show
+    private final LongAdder packets = new LongAdder();        // Packets sent by show and hide
+    private final LongAdder linesChanged = new LongAdder();   // Lines sent because their text changed or they are new
+    private final LongAdder linesUnchanged = new LongAdder(); // Lines skipped because the player already sees them
+
+    /**
+     * Shows a sidebar to a player, sending only the title and lines that differ from what the player sees.
+     *
+     * @param player The player.
+     * @param title  The rendered title.
+     * @param lines  The rendered lines, top first, at most {@link #MAX_LINES}.
+     */
+    public void show(Player player, String title, String[] lines) {
+        if (lines.length > MAX_LINES) {
+            throw new IllegalArgumentException("A sidebar shows at most " + MAX_LINES + " lines, got " + lines.length);
+        }
+        refreshes.increment();
+        title = truncate(title, NmsScoreboard.maxTitleLength());
+        Shown previous = shown.getOrNull(player.getUniqueId());
+        List<Object> batch = new ArrayList<>();
+
+        if (previous == null) {
+            batch.add(NmsScoreboard.createObjective(OBJECTIVE, title));
+            batch.add(NmsScoreboard.displaySidebar(OBJECTIVE));
+        } else if (!previous.title().equals(title)) {
+            batch.add(NmsScoreboard.updateObjective(OBJECTIVE, title));
+        }
+
+        String[] before = previous != null ? previous.lines() : new String[0];
+        boolean moved = before.length != lines.length; // Scores count down from the number of lines
+        for (int i = 0; i < lines.length; i++) {
+            if (i >= before.length) {
+                String[] affixes = split(lines[i]);
+                batch.add(NmsScoreboard.createTeam(TEAMS[i], affixes[0], affixes[1], ENTRIES[i]));
+                batch.add(NmsScoreboard.setScore(OBJECTIVE, ENTRIES[i], lines.length - i));
+                linesChanged.increment();
+                continue;
+            }
+            if (before[i].equals(lines[i])) {
+                linesUnchanged.increment();
+            } else {
+                String[] affixes = split(lines[i]);
+                batch.add(NmsScoreboard.updateTeam(TEAMS[i], affixes[0], affixes[1]));
+                linesChanged.increment();
+            }
+            if (moved) {
+                batch.add(NmsScoreboard.setScore(OBJECTIVE, ENTRIES[i], lines.length - i));
+            }
+        }
+        for (int i = lines.length; i < before.length; i++) {
+            batch.add(NmsScoreboard.resetScore(OBJECTIVE, ENTRIES[i]));
+            batch.add(NmsScoreboard.removeTeam(TEAMS[i]));
+        }
+
+        shown.put(player.getUniqueId(), new Shown(title, lines.clone()));
+        send(player, batch);
+    }
+
+    /**
+     * Removes the sidebar from a player.
+     *
+     * @param player The player.
+     */
+    public void hide(Player player) {
+        Shown previous = shown.remove(player.getUniqueId());
+        if (previous == null) {
+            return;
+        }
+        List<Object> batch = new ArrayList<>(previous.lines().length + 1);
+        batch.add(NmsScoreboard.removeObjective(OBJECTIVE));
+        for (int i = 0; i < previous.lines().length; i++) {
+            batch.add(NmsScoreboard.removeTeam(TEAMS[i]));
+        }
+        send(player, batch);
+    }
+
+    /**
+     * Removes the sidebar from every player who sees one, e.g. before the plugin is disabled, so a reload can
+     * create it again.
+     *
+     * @param players The online players.
+     */
+    public void hideAll(Iterable<? extends Player> players) {
+        if (shown.isEmpty()) {
+            return;
+        }
+        for (Player player : players) {
+            hide(player);
+        }
+        shown.clear();
+    }
+
+    /**
+     * Forgets what a player sees, without sending anything, e.g. when they quit.
+     *
+     * @param player The player.
+     */
+    public void discard(Player player) {
+        shown.remove(player.getUniqueId());
+    }
+
+    /**
+     * @param player The player.
+     * @return True if the player sees a sidebar shown through this class.
+     */
+    public boolean isShown(Player player) {
+        return shown.containsKey(player.getUniqueId());
+    }
+
+    /**
+     * @return The counters as a single line, for logging.
+     */
+    public String stats() {
+        return "refreshes=" + refreshes.sum() + ", packets=" + packets.sum() + ", lines-changed=" + linesChanged.sum()
+                + ", lines-unchanged=" + linesUnchanged.sum() + ", players=" + shown.size();
+    }
+
+    private void send(Player player, List<Object> batch) {
+        if (!batch.isEmpty()) {
+            packets.add(batch.size());
+            Packets.sendBatch(player, batch);
+        }
+    }
+
+    /**
+     * Splits a line into the team prefix and suffix around the entry. The entry resets the formatting, so
+     * the suffix starts with the colors in effect at the end of the prefix.
+     *
+     * @return The prefix and the suffix.
+     */
+    private String[] split(String line) {
+        int max = NmsScoreboard.maxAffixLength();
+        if (line.length() <= max) {
+            return new String[]{line, ""};
+        }
+        String prefix = truncate(line, max);
+        String suffix = truncate(ChatColor.getLastColors(prefix) + line.substring(prefix.length()), max);
+        return new String[]{prefix, suffix};
+    }
+
+    /**
+     * Cuts text to a maximum length, keeping color codes whole.
+     */
+    private String truncate(String text, int max) {
+        if (text.length() <= max) {
+            return text;
+        }
+        return text.substring(0, text.charAt(max - 1) == ChatColor.COLOR_CHAR ? max - 1 : max);
+    }
+
+    private String[] entries() {
+        String codes = "0123456789abcdef";
+        String[] entries = new String[MAX_LINES];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new String(new char[]{ChatColor.COLOR_CHAR, codes.charAt(i), ChatColor.COLOR_CHAR, 'r'});
+        }
+        return entries;
+    }
+
+    private String[] teams() {
+        String[] teams = new String[MAX_LINES];
+        for (int i = 0; i < teams.length; i++) {
+            teams[i] = TEAM_PREFIX + i;
+        }
+        return teams;
+    }
+
+    /**
+     * The title and lines a player was last sent.
+     */
+    private record Shown(String title, String[] lines) {
+    }
+}
@@ -1,14 +1,17 @@
 package mc.node.objects.screen.title;
 
-import net.md_5.bungee.api.chat.TextComponent;
-import net.md_5.bungee.api.ChatColor;
-import net.minecraft.server.v1_8_R3.IChatBaseComponent;
-import net.minecraft.server.v1_8_R3.PacketPlayOutTitle;
-import org.bukkit.craftbukkit.v1_8_R3.entity.CraftPlayer;
+import mc.node.adapter.NmsAdapter;
+import mc.node.objects.jfr.TemplateRenderEvent;
+import mc.node.objects.packet.ChatComponents;
+import mc.node.objects.packet.OutboundQueues;
+import mc.node.objects.template.Placeholders;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Builder class for creating title and subtitle messages for Minecraft's title screen.
@@ -18,7 +21,7 @@ public abstract class TitleBuilder<T, B extends TitleBuilder<T, B>> {
 
     private final String title; // The title message
     private final String subtitle; // The subtitle message
-    private final Map<String, String> placeholders = new HashMap<>(); // Placeholder replacements
+    private final Placeholders placeholders = new Placeholders(); // Placeholder replacements
     private int fadeIn = 20; // Default fade-in duration
     private int stay = 60;   // Default stay duration
     private int fadeOut = 20; // Default fade-out duration
@@ -54,6 +57,18 @@ public abstract class TitleBuilder<T, B extends TitleBuilder<T, B>> {
         return (B) this; // Fluent interface: return the builder for chaining
     }
 
+    /**
+     * Adds a placeholder whose value is resolved for each recipient.
+     *
+     * @param placeholder The placeholder to replace.
+     * @param resolver    The function producing the value for a given player.
+     * @return The current builder instance (for chaining).
+     */
+    public B addPlaceholder(String placeholder, Function<Player, String> resolver) {
+        placeholders.put(placeholder, resolver);
+        return (B) this; // Fluent interface: return the builder for chaining
+    }
+
     /**
      * Sets the fade-in duration for the title screen (in ticks).
      *
@@ -94,11 +109,7 @@ public abstract class TitleBuilder<T, B extends TitleBuilder<T, B>> {
      * @return The formatted title message as a string.
      */
     public String buildTitle() {
-        String builtTitle = this.title;
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            builtTitle = builtTitle.replace(entry.getKey(), entry.getValue());
-        }
-        return applyFormatting(builtTitle);
+        return placeholders.render(this.title);
     }
 
     /**
@@ -107,39 +118,54 @@ public abstract class TitleBuilder<T, B extends TitleBuilder<T, B>> {
      * @return The formatted subtitle message as a string.
      */
     public String buildSubtitle() {
-        String builtSubtitle = this.subtitle;
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            builtSubtitle = builtSubtitle.replace(entry.getKey(), entry.getValue());
-        }
-        return applyFormatting(builtSubtitle);
+        return placeholders.render(this.subtitle);
     }
 
     /**
-     * Converts the title and subtitle messages to TextComponents, including actions (if set).
+     * Sends the title, subtitle and timings to the given player.
      *
-     * @return A map with title and subtitle TextComponents.
+     * @param player The recipient.
      */
     public void build(Player player) {
-        IChatBaseComponent chatTitle = IChatBaseComponent.ChatSerializer.a("{\"text\": \"" + buildTitle() + "\"}");
-        IChatBaseComponent chatSubTitle = IChatBaseComponent.ChatSerializer.a("{\"text\": \"" + buildSubtitle() + "\"}");
-
-        PacketPlayOutTitle title = new PacketPlayOutTitle(PacketPlayOutTitle.EnumTitleAction.TITLE, chatTitle);
-        PacketPlayOutTitle subtitle = new PacketPlayOutTitle(PacketPlayOutTitle.EnumTitleAction.SUBTITLE, chatSubTitle);
-        PacketPlayOutTitle length = new PacketPlayOutTitle(fadeIn, stay, fadeOut);
-
-        ((CraftPlayer) player).getHandle().playerConnection.sendPacket(title);
-        ((CraftPlayer) player).getHandle().playerConnection.sendPacket(subtitle);
-        ((CraftPlayer) player).getHandle().playerConnection.sendPacket(length);
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        String renderedTitle = placeholders.render(this.title, player);
+        Object title = NmsAdapter.title(ChatComponents.text(renderedTitle));
+        Object subtitle = NmsAdapter.subtitle(ChatComponents.text(placeholders.render(this.subtitle, player)));
+        Object times = NmsAdapter.times(fadeIn, stay, fadeOut);
+        event.finish("title", this.title, 1, renderedTitle);
+        OutboundQueues.title(player, title, subtitle, times);
     }
 
     /**
-     * Applies Minecraft color formatting to the message, replacing '&' with color codes.
+     * Sends the title to every given player. Placeholders are rendered and packets are built once;
+     * with per-player placeholders, only those are resolved per recipient and equal texts share their packet.
      *
-     * @param message The message to format.
-     * @return The formatted message.
+     * @param players The recipients.
+     */
+    public void build(Collection<? extends Player> players) {
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        Object length = NmsAdapter.times(fadeIn, stay, fadeOut);
+        Function<Player, String> titleRenderer = placeholders.renderer(this.title);
+        Function<Player, String> subtitleRenderer = placeholders.renderer(this.subtitle);
+        Map<String, Object> titles = new HashMap<>();
+        Map<String, Object> subtitles = new HashMap<>();
+
+        for (Player player : players) {
+            OutboundQueues.title(player,
+                    titles.computeIfAbsent(titleRenderer.apply(player), text -> NmsAdapter.title(ChatComponents.text(text))),
+                    subtitles.computeIfAbsent(subtitleRenderer.apply(player), text -> NmsAdapter.subtitle(ChatComponents.text(text))),
+                    length);
+        }
+        event.finish("title", this.title, players.size(), null);
+    }
+
+    /**
+     * Sends the title to every online player.
      */
-    private String applyFormatting(String message) {
-        return ChatColor.translateAlternateColorCodes('&', message);
+    public void broadcast() {
+        build(Bukkit.getOnlinePlayers());
     }
 
     /**
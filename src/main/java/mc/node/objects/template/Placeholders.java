@@ -0,0 +1,131 @@
+package mc.node.objects.template;
+
+import net.md_5.bungee.api.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Placeholder values shared by the message, title and action bar builders.
+ * Renders through the compiled {@link Template} cache, and only falls back to sequential
+ * {@link String#replace} calls when a key is not a {@code %name%} token.
+ * <p>
+ * Besides fixed values, placeholders can be resolved per recipient. When a message is sent to many
+ * players, the fixed values are rendered once and only the per-player placeholders are resolved again.
+ */
+public final class Placeholders {
+
+    private final Map<String, String> values = new HashMap<>(); // Placeholder token -> replacement
+    private final Map<String, Function<Player, String>> resolvers = new HashMap<>(); // Placeholder token -> per-player value
+    private boolean tokensOnly = true; // False once a key the template engine cannot resolve was added
+
+    /**
+     * Adds or replaces a placeholder value.
+     *
+     * @param placeholder The placeholder key to be replaced.
+     * @param replacement The value that will replace the placeholder.
+     */
+    public void put(String placeholder, String replacement) {
+        values.put(placeholder, replacement);
+        track(placeholder);
+    }
+
+    /**
+     * Adds or replaces a placeholder whose value depends on the recipient.
+     *
+     * @param placeholder The placeholder key to be replaced.
+     * @param resolver    The function producing the replacement for a given player.
+     */
+    public void put(String placeholder, Function<Player, String> resolver) {
+        resolvers.put(placeholder, resolver);
+        track(placeholder);
+    }
+
+    /**
+     * @return True if at least one placeholder is resolved per recipient.
+     */
+    public boolean isPerPlayer() {
+        return !resolvers.isEmpty();
+    }
+
+    /**
+     * Renders the given template text with these placeholder values and applies color formatting.
+     * Per-player placeholders are left as they are.
+     *
+     * @param template The raw template text.
+     * @return The rendered text.
+     */
+    public String render(String template) {
+        if (tokensOnly) {
+            return Templates.render(template, values);
+        }
+        return renderSequential(template, values);
+    }
+
+    /**
+     * Renders the given template text for a single recipient.
+     *
+     * @param template The raw template text.
+     * @param player   The recipient used to resolve per-player placeholders.
+     * @return The rendered text.
+     */
+    public String render(String template, Player player) {
+        return renderer(template).apply(player);
+    }
+
+    /**
+     * Prepares the given template for rendering to many recipients. Fixed values are rendered once,
+     * the returned function only resolves the per-player placeholders.
+     * The returned function is not thread-safe and should be used for a single send.
+     *
+     * @param template The raw template text.
+     * @return A function rendering the template for a given player.
+     */
+    public Function<Player, String> renderer(String template) {
+        if (resolvers.isEmpty()) {
+            String rendered = render(template);
+            return player -> rendered;
+        }
+
+        Template compiled = Templates.compile(template);
+        if (!tokensOnly || compiled.isAmbiguous()) {
+            Map<String, String> merged = new HashMap<>(values);
+            return player -> {
+                resolveInto(merged, player);
+                return tokensOnly ? compiled.render(merged) : renderSequential(template, merged);
+            };
+        }
+
+        Map<String, String> shared = new HashMap<>(values);
+        shared.keySet().removeAll(resolvers.keySet());
+        Template bound = compiled.bind(shared);
+
+        Map<String, String> perPlayer = new HashMap<>(resolvers.size() * 2);
+        return player -> {
+            resolveInto(perPlayer, player);
+            return bound.render(perPlayer);
+        };
+    }
+
+    private void resolveInto(Map<String, String> target, Player player) {
+        for (Map.Entry<String, Function<Player, String>> entry : resolvers.entrySet()) {
+            target.put(entry.getKey(), entry.getValue().apply(player));
+        }
+    }
+
+    private void track(String placeholder) {
+        if (tokensOnly && !Template.isToken(placeholder)) {
+            tokensOnly = false;
+        }
+    }
+
+    private static String renderSequential(String template, Map<String, String> placeholders) {
+        String built = template;
+        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+            built = built.replace(entry.getKey(), entry.getValue());
+        }
+        return ChatColor.translateAlternateColorCodes('&', built);
+    }
+}
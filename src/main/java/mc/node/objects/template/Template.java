@@ -0,0 +1,276 @@
+package mc.node.objects.template;
+
+import lombok.Getter;
+import net.md_5.bungee.api.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message template compiled once into literal, color and placeholder segments.
+ * Rendering walks the segments a single time, appending into a thread-local {@link StringBuilder},
+ * and translates '&amp;' color codes of placeholder values on the fly, producing exactly the same
+ * output as replacing every placeholder and calling {@code translateAlternateColorCodes} afterwards.
+ * <p>
+ * Placeholders are tokens of the form {@code %name%}, where the name consists of letters, digits,
+ * '_', '-', '.' or ':'. Templates where one token's closing '%' could open another token (e.g.
+ * {@code %a%b%}) are ambiguous without knowing the keys, so they keep the sequential replace behaviour.
+ */
+public final class Template {
+
+    private static final char ALT_COLOR_CHAR = '&';
+    private static final String COLOR_CODES = "0123456789AaBbCcDdEeFfKkLlMmNnOoRr";
+    private static final int MAX_BUFFER_CAPACITY = 4096; // Larger buffers are not kept around between renders
+
+    private static final byte LITERAL = 0;
+    private static final byte COLOR = 1;
+    private static final byte PLACEHOLDER = 2;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    @Getter
+    private final String source;       // The raw template text
+    private final byte[] kinds;         // Segment kind per index
+    private final String[] values;      // Translated literal/color text, or the placeholder token
+    @Getter
+    private final boolean ambiguous;    // True if tokens share percent signs, see class docs
+    private final String constant;      // Pre-rendered text when the template has no placeholders
+
+    private Template(String source, byte[] kinds, String[] values, boolean ambiguous) {
+        this.source = source;
+        this.kinds = kinds;
+        this.values = values;
+        this.ambiguous = ambiguous;
+        this.constant = hasPlaceholders() ? null : render(Map.of());
+    }
+
+    /**
+     * Parses the given text into segments. Prefer {@link Templates#compile(String)}, which caches the result.
+     *
+     * @param source The raw template text.
+     * @return The compiled template.
+     */
+    public static Template parse(String source) {
+        List<String> values = new ArrayList<>();
+        List<Byte> kinds = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean ambiguous = false;
+
+        int length = source.length();
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+
+            if (c == ALT_COLOR_CHAR && i + 1 < length && isColorCode(source.charAt(i + 1))) {
+                flushLiteral(literal, kinds, values);
+                kinds.add(COLOR);
+                values.add(String.valueOf(new char[]{ChatColor.COLOR_CHAR, Character.toLowerCase(source.charAt(++i))}));
+                continue;
+            }
+
+            if (c == '%') {
+                int end = tokenEnd(source, i);
+                if (end != -1) {
+                    flushLiteral(literal, kinds, values);
+                    kinds.add(PLACEHOLDER);
+                    values.add(source.substring(i, end + 1));
+                    ambiguous |= tokenEnd(source, end) != -1;
+                    i = end;
+                    continue;
+                }
+            }
+
+            literal.append(c);
+        }
+        flushLiteral(literal, kinds, values);
+
+        return new Template(source, toArray(kinds), values.toArray(new String[0]), ambiguous);
+    }
+
+    /**
+     * Checks whether the given placeholder key is a token this engine can resolve, i.e. {@code %name%}.
+     *
+     * @param key The placeholder key.
+     * @return True if the key is a single complete token.
+     */
+    public static boolean isToken(String key) {
+        return key != null && key.length() > 2 && key.charAt(0) == '%' && tokenEnd(key, 0) == key.length() - 1;
+    }
+
+    /**
+     * Returns a template with the placeholders present in the given map rendered into literal segments,
+     * leaving only the remaining placeholders to be resolved on each render. Used to render the shared
+     * part of a message once and only the per-player values for every recipient.
+     *
+     * @param placeholders The placeholder values to bake in, keyed by their full token.
+     * @return The partially rendered template, or this template if it is ambiguous.
+     */
+    public Template bind(Map<String, String> placeholders) {
+        if (ambiguous || constant != null) {
+            return this;
+        }
+
+        List<String> boundValues = new ArrayList<>();
+        List<Byte> boundKinds = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+
+        for (int i = 0; i < kinds.length; i++) {
+            String value = values[i];
+            String replacement = kinds[i] == PLACEHOLDER ? placeholders.get(value) : null;
+
+            if (kinds[i] == PLACEHOLDER && replacement == null) {
+                flushLiteral(run, boundKinds, boundValues);
+                boundKinds.add(PLACEHOLDER);
+                boundValues.add(value);
+            } else if (replacement != null) {
+                appendTranslated(run, 0, replacement);
+            } else {
+                appendLiteral(run, 0, value);
+            }
+        }
+        flushLiteral(run, boundKinds, boundValues);
+
+        return new Template(source, toArray(boundKinds), boundValues.toArray(new String[0]), false);
+    }
+
+    /**
+     * @return True if the template contains at least one placeholder segment.
+     */
+    public boolean hasPlaceholders() {
+        for (byte kind : kinds) {
+            if (kind == PLACEHOLDER) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Renders the template, resolving placeholders from the given map.
+     * Tokens without a value are emitted as they appear in the source.
+     *
+     * @param placeholders The placeholder values keyed by their full token (e.g. {@code %player%}).
+     * @return The rendered and color-translated text.
+     */
+    public String render(Map<String, String> placeholders) {
+        if (constant != null) {
+            return constant;
+        }
+        if (ambiguous) {
+            return renderSequential(placeholders);
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        renderTo(placeholders, buffer);
+        String rendered = buffer.toString();
+
+        if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            BUFFER.set(new StringBuilder(256));
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders the template into the given builder, resolving placeholders from the given map.
+     *
+     * @param placeholders The placeholder values keyed by their full token.
+     * @param out          The builder to append to.
+     */
+    public void renderTo(Map<String, String> placeholders, StringBuilder out) {
+        if (ambiguous) {
+            out.append(renderSequential(placeholders));
+            return;
+        }
+
+        int start = out.length();
+        for (int i = 0; i < kinds.length; i++) {
+            String value = values[i];
+            switch (kinds[i]) {
+                case LITERAL -> appendLiteral(out, start, value);
+                case COLOR -> out.append(value);
+                default -> {
+                    String replacement = placeholders.get(value);
+                    appendTranslated(out, start, replacement != null ? replacement : value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders the template the way the builders did before templates were compiled.
+     */
+    private String renderSequential(Map<String, String> placeholders) {
+        String built = source;
+        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+            built = built.replace(entry.getKey(), entry.getValue());
+        }
+        return ChatColor.translateAlternateColorCodes(ALT_COLOR_CHAR, built);
+    }
+
+    /**
+     * Appends an already translated literal, translating a color code split across the segment boundary.
+     */
+    private static void appendLiteral(StringBuilder out, int start, String literal) {
+        if (!literal.isEmpty() && translatesBoundary(out, start, literal.charAt(0))) {
+            out.setCharAt(out.length() - 1, ChatColor.COLOR_CHAR);
+            out.append(Character.toLowerCase(literal.charAt(0))).append(literal, 1, literal.length());
+            return;
+        }
+        out.append(literal);
+    }
+
+    /**
+     * Appends raw text, translating '&amp;' color codes while streaming it into the builder.
+     */
+    private static void appendTranslated(StringBuilder out, int start, String text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (translatesBoundary(out, start, c)) {
+                out.setCharAt(out.length() - 1, ChatColor.COLOR_CHAR);
+                c = Character.toLowerCase(c);
+            }
+            out.append(c);
+        }
+    }
+
+    private static boolean translatesBoundary(StringBuilder out, int start, char next) {
+        int length = out.length();
+        return length > start && out.charAt(length - 1) == ALT_COLOR_CHAR && isColorCode(next);
+    }
+
+    private static boolean isColorCode(char c) {
+        return COLOR_CODES.indexOf(c) != -1;
+    }
+
+    /**
+     * Finds the closing '%' of a token starting at the given index.
+     *
+     * @return The index of the closing '%', or -1 if no token starts there.
+     */
+    private static int tokenEnd(String text, int open) {
+        for (int i = open + 1, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '%') return i > open + 1 ? i : -1;
+            if (!isNameChar(c)) return -1;
+        }
+        return -1;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':';
+    }
+
+    private static byte[] toArray(List<Byte> kinds) {
+        byte[] array = new byte[kinds.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = kinds.get(i);
+        }
+        return array;
+    }
+
+    private static void flushLiteral(StringBuilder literal, List<Byte> kinds, List<String> values) {
+        if (literal.isEmpty()) return;
+        kinds.add(LITERAL);
+        values.add(literal.toString());
+        literal.setLength(0);
+    }
+}
@@ -0,0 +1,66 @@
+package mc.node.objects.template;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of compiled {@link Template}s keyed by their raw text. Once full, the least recently used template is
+ * evicted, so templates first used long after startup are still cached.
+ */
+@UtilityClass
+public class Templates {
+
+    // Upper bound on cached templates, guards against callers concatenating dynamic values into template text.
+    private final int MAX_CACHED_TEMPLATES = 1024;
+
+    private final Map<String, Template> cache = new LinkedHashMap<>(16, 0.75F, true) { // Access order, guarded by itself
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+            return size() > MAX_CACHED_TEMPLATES;
+        }
+    };
+
+    /**
+     * Returns the compiled form of the given template text, parsing it only on first use.
+     *
+     * @param source The raw template text.
+     * @return The compiled template.
+     */
+    public Template compile(String source) {
+        Template template;
+        synchronized (cache) {
+            template = cache.get(source);
+        }
+        if (template != null) {
+            return template;
+        }
+
+        template = Template.parse(source); // Outside the lock, a concurrent parse of the same text is harmless
+        synchronized (cache) {
+            Template existing = cache.putIfAbsent(source, template);
+            return existing != null ? existing : template;
+        }
+    }
+
+    /**
+     * Compiles (or fetches) the template and renders it with the given placeholders.
+     *
+     * @param source       The raw template text.
+     * @param placeholders The placeholder values keyed by their full token.
+     * @return The rendered and color-translated text.
+     */
+    public String render(String source, Map<String, String> placeholders) {
+        return compile(source).render(placeholders);
+    }
+
+    /**
+     * Drops every cached template.
+     */
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
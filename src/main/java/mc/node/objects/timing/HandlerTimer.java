@@ -0,0 +1,85 @@
+package mc.node.objects.timing;
+
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing of one event handler or command: a latency histogram and an estimate of the bytes it allocates per
+ * call, measured on a sample of the calls, see {@link Timings}.
+ */
+public final class HandlerTimer {
+
+    @Getter
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder allocatedBytes = new LongAdder();    // Summed over the sampled calls
+    private final LongAdder allocationSamples = new LongAdder();
+
+    HandlerTimer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts timing a call.
+     *
+     * @return The allocation counter of the current thread if this call is sampled, otherwise -1.
+     */
+    public long start() {
+        int rate = Timings.allocationSampleRate();
+        if (rate == 0 || (ThreadLocalRandom.current().nextInt() & (rate - 1)) != 0) {
+            return -1L;
+        }
+        return Timings.allocatedBytes();
+    }
+
+    /**
+     * Records a finished call.
+     *
+     * @param startNanos          {@link System#nanoTime()} when the call started.
+     * @param startAllocatedBytes The value returned by {@link #start()}.
+     */
+    public void stop(long startNanos, long startAllocatedBytes) {
+        latency.record(System.nanoTime() - startNanos);
+        if (startAllocatedBytes >= 0) {
+            long allocated = Timings.allocatedBytes() - startAllocatedBytes;
+            if (allocated >= 0) {
+                allocatedBytes.add(allocated);
+                allocationSamples.increment();
+            }
+        }
+    }
+
+    /**
+     * @return The current values.
+     */
+    public Summary summary() {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        long samples = allocationSamples.sum();
+        return new Summary(name, snapshot.getCount(), snapshot.getSum(), snapshot.getMean(), snapshot.percentile(0.50D),
+                snapshot.percentile(0.99D), snapshot.getMax(), samples == 0 ? -1L : allocatedBytes.sum() / samples);
+    }
+
+    void reset() {
+        latency.reset();
+        allocatedBytes.reset();
+        allocationSamples.reset();
+    }
+
+    /**
+     * The timing of a handler at one point in time. Latencies are in nanoseconds.
+     *
+     * @param name              The handler, e.g. {@code BlockListener#onBlockBreak}.
+     * @param calls             The number of calls.
+     * @param totalNanos        The time spent in all calls.
+     * @param meanNanos         The mean latency.
+     * @param p50Nanos          The median latency.
+     * @param p99Nanos          The 99th percentile latency.
+     * @param maxNanos          The highest latency.
+     * @param bytesPerCall      The estimated bytes allocated per call, or -1 if no call was sampled.
+     */
+    public record Summary(String name, long calls, long totalNanos, long meanNanos, long p50Nanos, long p99Nanos,
+                          long maxNanos, long bytesPerCall) {
+    }
+}
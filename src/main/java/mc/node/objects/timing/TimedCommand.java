@@ -0,0 +1,39 @@
+package mc.node.objects.timing;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+
+/**
+ * Command that times the executions of another, see {@link Timings#wrap(Command)}.
+ */
+final class TimedCommand extends Command {
+
+    private final Command command;
+    private final HandlerTimer timer;
+
+    TimedCommand(Command command, HandlerTimer timer) {
+        super(command.getName(), command.getDescription(), command.getUsage(), command.getAliases());
+        this.command = command;
+        this.timer = timer;
+        setPermission(command.getPermission());
+        setPermissionMessage(command.getPermissionMessage());
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+        long allocated = timer.start();
+        long start = System.nanoTime();
+        try {
+            return command.execute(sender, commandLabel, args);
+        } finally {
+            timer.stop(start, allocated);
+        }
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSender sender, String alias, String[] args) throws IllegalArgumentException {
+        return command.tabComplete(sender, alias, args);
+    }
+}
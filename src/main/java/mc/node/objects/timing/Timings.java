@@ -0,0 +1,208 @@
+package mc.node.objects.timing;
+
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-handler latency and allocation timings of the plugin's event handlers and commands.
+ * <p>
+ * {@link mc.node.objects.plugin.registry.Registry} registers listeners through {@link #registerEvents(Listener, Plugin)}
+ * and commands through {@link #wrap(Command)} while timings are enabled. Every call is timed into a
+ * {@link LatencyHistogram}, which costs two {@link System#nanoTime()} calls and a few atomic increments.
+ * Allocations are read from the thread's allocation counter on one in {@code allocation-sample-rate} calls,
+ * so the estimate costs little even for hot handlers.
+ */
+@UtilityClass
+public class Timings {
+
+    private final DateTimeFormatter EXPORT_NAME = DateTimeFormatter.ofPattern("'timings-'yyyyMMdd-HHmmss'.csv'");
+
+    private final Map<String, HandlerTimer> timers = new ConcurrentHashMap<>();
+    private final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private volatile boolean enabled = true;
+    private volatile int allocationSampleRate = 16;
+
+    /**
+     * Configures the timings; applies to handlers registered afterwards.
+     *
+     * @param enabled              False to register handlers without timing them.
+     * @param allocationSampleRate Time the allocations of one in this many calls, rounded up to a power of two;
+     *                             0 to not estimate allocations.
+     */
+    public void configure(boolean enabled, int allocationSampleRate) {
+        Timings.enabled = enabled;
+        if (allocationSampleRate <= 0 || THREADS == null) {
+            Timings.allocationSampleRate = 0;
+        } else {
+            Timings.allocationSampleRate = allocationSampleRate == 1 ? 1 : Integer.highestOneBit(allocationSampleRate - 1) << 1;
+        }
+    }
+
+    /**
+     * @return True if handlers registered now are timed.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the timer of a handler, creating it on first use.
+     *
+     * @param name The handler, e.g. {@code BlockListener#onBlockBreak}.
+     * @return The timer.
+     */
+    public HandlerTimer timer(String name) {
+        return timers.computeIfAbsent(name, HandlerTimer::new);
+    }
+
+    /**
+     * Registers the {@link EventHandler} methods of a listener like
+     * {@link org.bukkit.plugin.PluginManager#registerEvents(Listener, Plugin)}, each timed as
+     * {@code ListenerClass#method}.
+     *
+     * @param listener The listener.
+     * @param plugin   The plugin owning the listener.
+     */
+    @SuppressWarnings("unchecked")
+    public void registerEvents(Listener listener, Plugin plugin) {
+        Set<Method> methods = new LinkedHashSet<>(List.of(listener.getClass().getMethods()));
+        methods.addAll(List.of(listener.getClass().getDeclaredMethods()));
+        for (Method method : methods) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+            if (handler == null || method.isBridge() || method.isSynthetic() || method.getParameterCount() != 1
+                    || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+            Class<? extends Event> eventClass = (Class<? extends Event>) method.getParameterTypes()[0];
+            Bukkit.getPluginManager().registerEvent(eventClass, listener, handler.priority(),
+                    executor(listener, method, eventClass), plugin, handler.ignoreCancelled());
+        }
+    }
+
+    /**
+     * Wraps a command so its executions are timed as {@code /name}.
+     *
+     * @param command The command.
+     * @return The timed command, to register instead.
+     */
+    public Command wrap(Command command) {
+        return new TimedCommand(command, timer("/" + command.getName()));
+    }
+
+    /**
+     * @return The timings of every handler that was called, the most total time first.
+     */
+    public List<HandlerTimer.Summary> summaries() {
+        List<HandlerTimer.Summary> summaries = new ArrayList<>(timers.size());
+        for (HandlerTimer timer : timers.values()) {
+            HandlerTimer.Summary summary = timer.summary();
+            if (summary.calls() > 0) {
+                summaries.add(summary);
+            }
+        }
+        summaries.sort(Comparator.comparingLong(HandlerTimer.Summary::totalNanos).reversed());
+        return summaries;
+    }
+
+    /**
+     * Clears every timer.
+     */
+    public void reset() {
+        timers.values().forEach(HandlerTimer::reset);
+    }
+
+    /**
+     * Writes the timings as CSV to a new timestamped file.
+     *
+     * @param folder The folder to write the file to.
+     * @return The written file.
+     * @throws IOException if the file cannot be written.
+     */
+    public Path export(Path folder) throws IOException {
+        Files.createDirectories(folder);
+        Path file = folder.resolve(LocalDateTime.now().format(EXPORT_NAME));
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("handler,calls,total_ms,mean_us,p50_us,p99_us,max_us,bytes_per_call\n");
+            for (HandlerTimer.Summary summary : summaries()) {
+                writer.write(summary.name() + ',' + summary.calls() + ',' + summary.totalNanos() / 1_000_000D + ','
+                        + summary.meanNanos() / 1000D + ',' + summary.p50Nanos() / 1000D + ',' + summary.p99Nanos() / 1000D + ','
+                        + summary.maxNanos() / 1000D + ',' + summary.bytesPerCall() + '\n');
+            }
+        }
+        return file;
+    }
+
+    int allocationSampleRate() {
+        return allocationSampleRate;
+    }
+
+    /**
+     * @return The bytes allocated by the current thread so far.
+     */
+    long allocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private EventExecutor executor(Listener listener, Method method, Class<? extends Event> eventClass) {
+        MethodHandle handle;
+        try {
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method).bindTo(listener)
+                    .asType(MethodType.methodType(void.class, Event.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access event handler " + method, e);
+        }
+        HandlerTimer timer = timer(listener.getClass().getSimpleName() + '#' + method.getName());
+
+        return (ignored, event) -> {
+            if (!eventClass.isInstance(event)) {
+                return; // A subclass registered with the same handler list
+            }
+            long allocated = timer.start();
+            long start = System.nanoTime();
+            try {
+                handle.invokeExact(event);
+            } catch (Throwable t) {
+                throw new EventException(t);
+            } finally {
+                timer.stop(start, allocated);
+            }
+        };
+    }
+
+    private com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,163 @@
+package mc.node.replication;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process {@link ReplicationTransport}, standing in for {@link NioReplicationTransport} in tests and
+ * benchmarks without sockets or an external broker.
+ * <p>
+ * Nodes join a shared {@link Network} and are connected to every other started node. Frames are copied on send
+ * and delivered on the receiving node's own thread in send order, like a socket would. {@link Network#partition}
+ * and {@link Network#heal} cut and restore links to exercise resynchronisation.
+ */
+public class LoopbackReplicationTransport implements ReplicationTransport {
+
+    private final Network network;
+    private final String nodeId;
+    private final Set<String> connected = ConcurrentHashMap.newKeySet(); // Guarded by the network for writes
+    private final ExecutorService delivery;
+    private volatile Listener listener;
+
+    private LoopbackReplicationTransport(Network network, String nodeId) {
+        this.network = network;
+        this.nodeId = nodeId;
+        this.delivery = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MC-NODE Loopback " + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+        network.started(this);
+    }
+
+    @Override
+    public boolean send(String peer, ByteBuffer frame) {
+        return network.deliver(this, peer, frame);
+    }
+
+    @Override
+    public Set<String> getConnectedPeers() {
+        return Collections.unmodifiableSet(connected);
+    }
+
+    @Override
+    public void close() {
+        network.closed(this);
+        delivery.shutdown();
+        try {
+            delivery.awaitTermination(5L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A set of nodes that reach each other unless partitioned.
+     */
+    public static class Network {
+
+        private final Map<String, LoopbackReplicationTransport> nodes = new HashMap<>();   // Guarded by this
+        private final Map<String, LoopbackReplicationTransport> started = new HashMap<>(); // Guarded by this
+        private final Set<Set<String>> cut = new HashSet<>(); // Partitioned pairs, guarded by this
+
+        /**
+         * Creates the transport of a node.
+         *
+         * @param nodeId The identifier of the node, unique in the network.
+         * @return The transport, connected to the other nodes once started.
+         */
+        public synchronized LoopbackReplicationTransport join(String nodeId) {
+            if (nodes.containsKey(nodeId)) {
+                throw new IllegalArgumentException("Node " + nodeId + " already joined");
+            }
+            LoopbackReplicationTransport transport = new LoopbackReplicationTransport(this, nodeId);
+            nodes.put(nodeId, transport);
+            return transport;
+        }
+
+        /**
+         * Cuts the link between two nodes, dropping frames sent after the call.
+         *
+         * @param first  The identifier of one node.
+         * @param second The identifier of the other node.
+         */
+        public synchronized void partition(String first, String second) {
+            if (cut.add(Set.of(first, second))) {
+                disconnect(started.get(first), started.get(second));
+            }
+        }
+
+        /**
+         * Restores the link between two nodes.
+         *
+         * @param first  The identifier of one node.
+         * @param second The identifier of the other node.
+         */
+        public synchronized void heal(String first, String second) {
+            if (cut.remove(Set.of(first, second))) {
+                connect(started.get(first), started.get(second));
+            }
+        }
+
+        private synchronized void started(LoopbackReplicationTransport transport) {
+            started.put(transport.nodeId, transport);
+            for (LoopbackReplicationTransport other : started.values()) {
+                if (other != transport && !cut.contains(Set.of(transport.nodeId, other.nodeId))) {
+                    connect(transport, other);
+                }
+            }
+        }
+
+        private synchronized void closed(LoopbackReplicationTransport transport) {
+            if (started.remove(transport.nodeId) != null) {
+                for (LoopbackReplicationTransport other : started.values()) {
+                    disconnect(transport, other);
+                }
+            }
+            nodes.remove(transport.nodeId);
+        }
+
+        private synchronized boolean deliver(LoopbackReplicationTransport from, String to, ByteBuffer frame) {
+            LoopbackReplicationTransport target = started.get(to);
+            if (target == null || !from.connected.contains(to)) {
+                return false;
+            }
+            ByteBuffer copy = ByteBuffer.allocate(frame.remaining() - 4);
+            copy.put(frame.duplicate().position(frame.position() + 4)).flip();
+            target.delivery.execute(() -> target.listener.received(from.nodeId, copy));
+            return true;
+        }
+
+        private void connect(LoopbackReplicationTransport first, LoopbackReplicationTransport second) {
+            if (first != null && second != null && first.connected.add(second.nodeId) && second.connected.add(first.nodeId)) {
+                first.delivery.execute(() -> first.listener.connected(second.nodeId));
+                second.delivery.execute(() -> second.listener.connected(first.nodeId));
+            }
+        }
+
+        private void disconnect(LoopbackReplicationTransport first, LoopbackReplicationTransport second) {
+            if (first != null && second != null && first.connected.remove(second.nodeId) && second.connected.remove(first.nodeId)) {
+                first.delivery.execute(() -> first.listener.disconnected(second.nodeId));
+                second.delivery.execute(() -> second.listener.disconnected(first.nodeId));
+            }
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package mc.node.replication;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link ReplicationTransport} over plain TCP, driven by a single selector thread.
+ * <p>
+ * Every pair of nodes shares one connection, dialled by the node with the smaller id and redialled while it is
+ * down. Both ends open with a {@link ReplicationProtocol#HELLO}; connections from unknown nodes and duplicates
+ * are closed. Sends from any thread only queue the frame and wake the selector, which writes the queued frames
+ * of a connection with one gathering write. A peer that falls more than the pending-bytes limit behind is
+ * disconnected rather than buffered without bound; it catches up from the retained batches on reconnect.
+ */
+public class NioReplicationTransport implements ReplicationTransport {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_BATCH = 64; // Frames per gathering write
+    private static final long SELECT_TIMEOUT_MILLIS = 250L;
+
+    private final String nodeId;
+    private final InetSocketAddress bindAddress;
+    private final Map<String, ReplicationPeer> peers = new HashMap<>();
+    private final long reconnectNanos;
+    private final long maxPendingBytes;
+    private final Logger logger;
+
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>(); // Connections past the handshake
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();            // Run on the selector thread
+    private final Set<String> dialing = new HashSet<>();      // Peers with a connection attempt, selector thread only
+    private final Map<String, Long> nextDial = new HashMap<>(); // Earliest redial per peer, selector thread only
+    private final ByteBuffer[] writeBatch = new ByteBuffer[WRITE_BATCH]; // Selector thread only
+
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile Listener listener;
+
+    /**
+     * Creates the transport; nothing is bound before {@link #start(Listener)}.
+     *
+     * @param nodeId           The identifier of this node.
+     * @param bindAddress      The address to accept peer connections on.
+     * @param peers            The other nodes of the mesh.
+     * @param reconnectSeconds Seconds between two attempts to dial a disconnected peer.
+     * @param maxPendingBytes  The maximum bytes queued for one peer before it is disconnected.
+     * @param logger           The logger used to report connection changes.
+     */
+    public NioReplicationTransport(String nodeId, InetSocketAddress bindAddress, Collection<ReplicationPeer> peers,
+                                   long reconnectSeconds, long maxPendingBytes, Logger logger) {
+        this.nodeId = nodeId;
+        this.bindAddress = bindAddress;
+        for (ReplicationPeer peer : peers) {
+            if (!peer.nodeId().equals(nodeId)) {
+                this.peers.put(peer.nodeId(), peer);
+            }
+        }
+        this.reconnectNanos = TimeUnit.SECONDS.toNanos(reconnectSeconds);
+        this.maxPendingBytes = maxPendingBytes;
+        this.logger = logger;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void start(Listener listener) throws IOException {
+        this.listener = listener;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(bindAddress);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        this.running = true;
+        this.thread = new Thread(this::run, "MC-NODE Replication");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public boolean send(String peer, ByteBuffer frame) {
+        Connection connection = connections.get(peer);
+        if (connection == null) {
+            return false;
+        }
+        ByteBuffer queued = frame.slice(); // Own position, so the caller's buffer can go to other peers as well
+        if (connection.pendingBytes.addAndGet(queued.remaining()) > maxPendingBytes) {
+            logger.warning("Replication peer " + peer + " fell " + connection.pendingBytes.get() + " bytes behind, disconnecting");
+            schedule(() -> close(connection));
+            return false;
+        }
+        connection.out.offer(queued);
+        if (connection.writeRequested.compareAndSet(false, true)) {
+            schedule(() -> interest(connection, SelectionKey.OP_READ | SelectionKey.OP_WRITE));
+        }
+        return true;
+    }
+
+    @Override
+    public Set<String> getConnectedPeers() {
+        return Collections.unmodifiableSet(connections.keySet());
+    }
+
+    @Override
+    public boolean isConnected(String peer) {
+        return connections.containsKey(peer);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (selector == null) {
+            return;
+        }
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                dial();
+                selector.select(SELECT_TIMEOUT_MILLIS);
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Replication transport stopped", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (key.attachment() == null) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                connection.channel.finishConnect();
+                key.interestOps(SelectionKey.OP_READ);
+                hello(connection);
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(connection);
+            }
+        } catch (IOException | RuntimeException e) {
+            String peer = connection.peer != null ? connection.peer : connection.dialed;
+            logger.fine("Replication connection to " + (peer != null ? peer : connection.channel) + " failed: " + e);
+            close(connection);
+        }
+    }
+
+    /**
+     * Dials the peers with a larger node id that are neither connected nor being dialled.
+     */
+    private void dial() {
+        long now = System.nanoTime();
+        for (ReplicationPeer peer : peers.values()) {
+            String id = peer.nodeId();
+            if (nodeId.compareTo(id) >= 0 || connections.containsKey(id) || dialing.contains(id)
+                    || now - nextDial.getOrDefault(id, now) < 0) {
+                continue;
+            }
+            nextDial.put(id, now + reconnectNanos);
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection connection = new Connection(channel, id);
+                InetSocketAddress address = peer.address().isUnresolved()
+                        ? new InetSocketAddress(peer.address().getHostString(), peer.address().getPort())
+                        : peer.address();
+                if (channel.connect(address)) {
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    hello(connection);
+                } else {
+                    connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                }
+                dialing.add(id);
+            } catch (IOException e) {
+                logger.fine("Could not dial replication peer " + id + ": " + e);
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = server.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel, null);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            hello(connection);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not accept a replication connection", e);
+        }
+    }
+
+    private void hello(Connection connection) {
+        ByteBuffer frame = ReplicationProtocol.hello(nodeId);
+        connection.pendingBytes.addAndGet(frame.remaining());
+        connection.out.offer(frame);
+        connection.writeRequested.set(true);
+        interest(connection, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void read(Connection connection) throws IOException {
+        if (connection.channel.read(connection.in) < 0) {
+            close(connection);
+            return;
+        }
+
+        ByteBuffer in = connection.in.flip();
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length <= 0 || length > ReplicationProtocol.MAX_FRAME_SIZE) {
+                throw new IOException("Invalid replication frame length " + length);
+            }
+            if (in.remaining() < 4 + length) {
+                if (4 + length > in.capacity()) { // Grow for a frame larger than the buffer
+                    connection.in = ByteBuffer.allocate(4 + length).put(in);
+                    return;
+                }
+                break;
+            }
+            ByteBuffer frame = in.slice(in.position() + 4, length);
+            in.position(in.position() + 4 + length);
+            if (!dispatch(connection, frame)) {
+                return;
+            }
+        }
+        in.compact();
+    }
+
+    /**
+     * @return False if the connection was closed.
+     */
+    private boolean dispatch(Connection connection, ByteBuffer frame) {
+        byte type = frame.get(0);
+        if (connection.peer != null) {
+            if (type != ReplicationProtocol.HELLO) {
+                listener.received(connection.peer, frame);
+            }
+            return true;
+        }
+
+        if (type != ReplicationProtocol.HELLO) {
+            throw new IllegalArgumentException("Expected a handshake, got frame type " + type);
+        }
+        String peer = ReplicationProtocol.readHello(frame.position(1));
+        if (!peers.containsKey(peer) || (connection.dialed != null && !connection.dialed.equals(peer))) {
+            logger.warning("Closing replication connection from unknown node " + peer + " (" + connection.channel + ")");
+            close(connection);
+            return false;
+        }
+        if (connections.putIfAbsent(peer, connection) != null) {
+            close(connection); // Already connected, e.g. both nodes dialled
+            return false;
+        }
+        connection.peer = peer;
+        logger.info("Replication peer " + peer + " connected");
+        listener.connected(peer);
+        return true;
+    }
+
+    /**
+     * Writes the queued frames until the socket buffer is full or nothing is left.
+     */
+    private void write(Connection connection) throws IOException {
+        while (true) {
+            int count = 0;
+            for (ByteBuffer frame : connection.out) {
+                if (count == WRITE_BATCH) {
+                    break;
+                }
+                writeBatch[count++] = frame;
+            }
+            if (count == 0) {
+                break;
+            }
+
+            connection.channel.write(writeBatch, 0, count);
+            boolean complete = true;
+            for (int i = 0; i < count; i++) {
+                if (writeBatch[i].hasRemaining()) {
+                    complete = false;
+                    break;
+                }
+                connection.out.poll();
+                connection.pendingBytes.addAndGet(-writeBatch[i].limit());
+            }
+            Arrays.fill(writeBatch, 0, count, null);
+            if (!complete) {
+                return; // Socket buffer full, stay interested in writes
+            }
+        }
+
+        connection.writeRequested.set(false);
+        interest(connection, SelectionKey.OP_READ);
+        // A frame queued after the loop saw the queue empty found the flag still set and did not ask for a write
+        if (!connection.out.isEmpty() && connection.writeRequested.compareAndSet(false, true)) {
+            interest(connection, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void interest(Connection connection, int ops) {
+        if (connection.key != null && connection.key.isValid() && (connection.key.interestOps() & SelectionKey.OP_CONNECT) == 0) {
+            connection.key.interestOps(ops);
+        }
+    }
+
+    private void close(Connection connection) {
+        closeQuietly(connection.key);
+        closeQuietly(connection.channel);
+        if (connection.dialed != null) {
+            dialing.remove(connection.dialed);
+        }
+        if (connection.peer != null && connections.remove(connection.peer, connection)) {
+            logger.info("Replication peer " + connection.peer + " disconnected");
+            listener.disconnected(connection.peer);
+        }
+    }
+
+    private void schedule(Runnable task) {
+        tasks.offer(task);
+        selector.wakeup();
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        if (key != null) {
+            key.cancel();
+            closeQuietly(key.channel());
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * One socket to a peer.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final String dialed; // Node id this node dialled, null for an accepted connection
+        private final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+        private final AtomicLong pendingBytes = new AtomicLong();
+        private final AtomicBoolean writeRequested = new AtomicBoolean(); // True while a write is scheduled
+        private ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private SelectionKey key;
+        private volatile String peer; // Node id after the handshake
+
+        private Connection(SocketChannel channel, String dialed) {
+            this.channel = channel;
+            this.dialed = dialed;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package mc.node.replication;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Another node of the replication mesh.
+ *
+ * @param nodeId  The node's unique identifier, see {@code replication.node-id}.
+ * @param address The address the node accepts replication connections on.
+ */
+public record ReplicationPeer(String nodeId, InetSocketAddress address) {
+
+    /**
+     * Parses a peer written as {@code node-id@host:port}.
+     *
+     * @param peer The peer.
+     * @return The parsed peer.
+     * @throws IllegalArgumentException if the peer is not in that form.
+     */
+    public static ReplicationPeer parse(String peer) {
+        int at = peer.indexOf('@');
+        if (at <= 0) {
+            throw new IllegalArgumentException("Replication peer must be written as node-id@host:port: '" + peer + "'");
+        }
+        return new ReplicationPeer(peer.substring(0, at), address(peer.substring(at + 1)));
+    }
+
+    /**
+     * Parses an address written as {@code host:port}.
+     *
+     * @param address The address.
+     * @return The unresolved socket address.
+     * @throws IllegalArgumentException if the address has no valid port.
+     */
+    public static InetSocketAddress address(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Address must be written as host:port: '" + address + "'");
+        }
+        try {
+            return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port in '" + address + "'", e);
+        }
+    }
+}
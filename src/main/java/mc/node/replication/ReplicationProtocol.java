@@ -0,0 +1,128 @@
+package mc.node.replication;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Binary frames exchanged between nodes.
+ * <p>
+ * Every frame is a 4-byte big-endian length followed by that many bytes: a type byte and the body. UUIDs are
+ * written as their two halves, so a coin delta costs 24 bytes and a batch of a tick's deltas a single frame.
+ * <ul>
+ *     <li>{@link #HELLO}: version (short), node id (short length + UTF-8), sent once per connection</li>
+ *     <li>{@link #SYNC}: sender epoch, acknowledged epoch and sequence of the receiver's batches</li>
+ *     <li>{@link #BATCH}: epoch, sequence, entry count (int), then most/least significant bits and delta per entry</li>
+ *     <li>{@link #ACK}: epoch and sequence of the last applied batch</li>
+ *     <li>{@link #CLAIM}, {@link #RELEASE}: agent UUID</li>
+ * </ul>
+ */
+@UtilityClass
+public class ReplicationProtocol {
+
+    public final short VERSION = 1;
+
+    public final byte HELLO = 1;
+    public final byte SYNC = 2;
+    public final byte BATCH = 3;
+    public final byte ACK = 4;
+    public final byte CLAIM = 5;
+    public final byte RELEASE = 6;
+
+    public final int MAX_FRAME_SIZE = 1 << 20;
+    public final int ENTRY_SIZE = 24;
+    public final int MAX_BATCH_ENTRIES = 2048; // Keeps a batch frame around 48 KiB
+
+    private final int BATCH_HEADER = 1 + 8 + 8 + 4;
+
+    /**
+     * @param nodeId The identifier of the sending node.
+     * @return The frame.
+     */
+    public ByteBuffer hello(String nodeId) {
+        byte[] id = nodeId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = allocate(1 + 2 + 2 + id.length).put(HELLO).putShort(VERSION).putShort((short) id.length).put(id);
+        return frame.flip();
+    }
+
+    /**
+     * @param epoch    The sender's epoch.
+     * @param ackEpoch The epoch of the receiver's batches the sender applied, or 0.
+     * @param ackSeq   The sequence of the last of the receiver's batches the sender applied.
+     * @return The frame.
+     */
+    public ByteBuffer sync(long epoch, long ackEpoch, long ackSeq) {
+        return allocate(1 + 24).put(SYNC).putLong(epoch).putLong(ackEpoch).putLong(ackSeq).flip();
+    }
+
+    /**
+     * @param epoch The epoch of the applied batch.
+     * @param seq   The sequence of the applied batch.
+     * @return The frame.
+     */
+    public ByteBuffer ack(long epoch, long seq) {
+        return allocate(1 + 16).put(ACK).putLong(epoch).putLong(seq).flip();
+    }
+
+    /**
+     * Encodes a batch of deltas.
+     *
+     * @param epoch   The sender's epoch.
+     * @param seq     The batch sequence within the epoch.
+     * @param entries The entries as consecutive most significant bits, least significant bits and delta.
+     * @param count   The number of entries, at most {@link #MAX_BATCH_ENTRIES}.
+     * @return The frame.
+     */
+    public ByteBuffer batch(long epoch, long seq, long[] entries, int count) {
+        ByteBuffer frame = allocate(BATCH_HEADER + count * ENTRY_SIZE).put(BATCH).putLong(epoch).putLong(seq).putInt(count);
+        for (int i = 0; i < count * 3; i++) {
+            frame.putLong(entries[i]);
+        }
+        return frame.flip();
+    }
+
+    /**
+     * @param type     {@link #CLAIM} or {@link #RELEASE}.
+     * @param uniqueId The unique identifier of the agent.
+     * @return The frame.
+     */
+    public ByteBuffer handoff(byte type, UUID uniqueId) {
+        return allocate(1 + 16).put(type).putLong(uniqueId.getMostSignificantBits()).putLong(uniqueId.getLeastSignificantBits()).flip();
+    }
+
+    /**
+     * Reads the node id of a {@link #HELLO} frame positioned after its type.
+     *
+     * @param frame The frame.
+     * @return The node id.
+     * @throws IllegalArgumentException if the version is not supported.
+     */
+    public String readHello(ByteBuffer frame) {
+        short version = frame.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported replication protocol version " + version);
+        }
+        byte[] id = new byte[frame.getShort() & 0xFFFF];
+        frame.get(id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a UUID written as its two halves.
+     *
+     * @param frame The frame.
+     * @return The UUID.
+     */
+    public UUID readUuid(ByteBuffer frame) {
+        return new UUID(frame.getLong(), frame.getLong());
+    }
+
+    /**
+     * @return A buffer for a frame of the given size, positioned after the length prefix.
+     */
+    private ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(4 + size).putInt(size);
+    }
+}
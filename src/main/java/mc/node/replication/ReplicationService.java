@@ -0,0 +1,414 @@
+package mc.node.replication;
+
+import mc.node.agent.economy.CoinAccount;
+import mc.node.agent.economy.CoinChangeFeed;
+import mc.node.agent.economy.CoinStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replicates coin changes between nodes and hands agents over when they switch nodes.
+ * <p>
+ * Local changes are taken from the coin store's delta feed once per {@link #flush()}: every agent that changed
+ * contributes one summed delta, so the traffic grows with the number of active agents per tick rather than with
+ * the number of changes. A flush becomes one or a few {@link ReplicationProtocol#BATCH} frames, numbered by a
+ * sequence within this node's epoch, a random id chosen at startup. Peers apply each batch once, in order, and
+ * acknowledge it; batches are retained until every configured or connected peer acknowledged them, up to a
+ * limit, so a peer that connects late or reconnects is resent exactly what it missed. As deltas commute, nodes that start from the same balances converge once every
+ * batch is delivered.
+ * <p>
+ * An agent is owned by the node it plays on. {@link #claim(UUID)} announces the new owner; the previous owner
+ * ships the agent's pending delta ahead of its {@link ReplicationProtocol#RELEASE}, so the claim completes with
+ * the agent's balance up to date.
+ */
+public class ReplicationService implements ReplicationTransport.Listener, AutoCloseable {
+
+    private final ReplicationTransport transport;
+    private final CoinStore coinStore;
+    private final CoinChangeFeed feed;
+    private final String nodeId;
+    private final long epoch;
+    private final long handoffTimeoutMillis;
+    private final int maxRetainedBatches;
+    private final Logger logger;
+
+    private final Object outLock = new Object(); // Orders outgoing batches
+    private final long[] entries = new long[ReplicationProtocol.MAX_BATCH_ENTRIES * 3]; // Guarded by outLock
+    private int count;                                               // Entries of the open batch, guarded by outLock
+    private long sequence;                                           // Last sealed batch, guarded by outLock
+    private final ArrayDeque<Batch> retained = new ArrayDeque<>();   // Unacknowledged batches, guarded by outLock
+
+    private final Map<String, PeerState> peers = new ConcurrentHashMap<>();
+    private final Map<UUID, String> owners = new ConcurrentHashMap<>();    // Last known owner per agent
+    private final Map<UUID, Handoff> handoffs = new ConcurrentHashMap<>(); // Claims waiting for a release
+
+    private final LongAdder batchesSent = new LongAdder();
+    private final LongAdder deltasSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder batchesResent = new LongAdder();
+    private final LongAdder batchesApplied = new LongAdder();
+    private final LongAdder deltasApplied = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();      // Batches received again, e.g. after a reconnect
+    private final LongAdder handoffsCompleted = new LongAdder();
+    private final LongAdder handoffTimeouts = new LongAdder();
+
+    /**
+     * Opens the delta feed of the coin store; call {@link #start()} to connect.
+     *
+     * @param transport            The transport to the other nodes.
+     * @param coinStore            The coin store to replicate.
+     * @param handoffTimeoutMillis How long a claim waits for the previous owner, in milliseconds.
+     * @param maxRetainedBatches   The maximum number of unacknowledged batches kept for resending.
+     * @param logger               The logger used to report gaps and timeouts.
+     * @throws IllegalStateException if the coin store already has a delta feed.
+     */
+    public ReplicationService(ReplicationTransport transport, CoinStore coinStore, long handoffTimeoutMillis,
+                              int maxRetainedBatches, Logger logger) {
+        this(transport, coinStore, Collections.emptyList(), handoffTimeoutMillis, maxRetainedBatches, logger);
+    }
+
+    /**
+     * Opens the delta feed of the coin store; call {@link #start()} to connect. Batches are retained for the
+     * configured peers from the start, so a peer that connects late still receives them.
+     *
+     * @param transport            The transport to the other nodes.
+     * @param coinStore            The coin store to replicate.
+     * @param peerIds              The node ids of the configured peers.
+     * @param handoffTimeoutMillis How long a claim waits for the previous owner, in milliseconds.
+     * @param maxRetainedBatches   The maximum number of unacknowledged batches kept for resending.
+     * @param logger               The logger used to report gaps and timeouts.
+     * @throws IllegalStateException if the coin store already has a delta feed.
+     */
+    public ReplicationService(ReplicationTransport transport, CoinStore coinStore, Collection<String> peerIds,
+                              long handoffTimeoutMillis, int maxRetainedBatches, Logger logger) {
+        this.transport = transport;
+        this.coinStore = coinStore;
+        this.feed = coinStore.openDeltaFeed();
+        this.nodeId = transport.getNodeId();
+        this.epoch = ThreadLocalRandom.current().nextLong(1L, Long.MAX_VALUE);
+        this.handoffTimeoutMillis = handoffTimeoutMillis;
+        this.maxRetainedBatches = maxRetainedBatches;
+        this.logger = logger;
+        for (String peer : peerIds) {
+            if (!peer.equals(nodeId)) {
+                peers.put(peer, new PeerState()); // Has acknowledged nothing until it connects
+            }
+        }
+    }
+
+    /**
+     * Starts the transport.
+     *
+     * @throws IOException if the transport cannot be started.
+     */
+    public void start() throws IOException {
+        transport.start(this);
+    }
+
+    /**
+     * Sends the local changes since the last flush to every peer, one summed delta per agent. Meant to run once
+     * per tick.
+     */
+    public void flush() {
+        synchronized (outLock) {
+            feed.drainDeltas(this::append);
+            seal();
+        }
+    }
+
+    /**
+     * Makes this node the owner of an agent, e.g. when its player logs in.
+     *
+     * @param uuid The unique identifier of the agent.
+     * @return A future completing once the previous owner released the agent, or immediately if it has none that
+     * is connected. Completes after the handoff timeout at the latest.
+     */
+    public CompletableFuture<Void> claim(UUID uuid) {
+        String previous = owners.put(uuid, nodeId);
+        if (nodeId.equals(previous)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ByteBuffer frame = ReplicationProtocol.handoff(ReplicationProtocol.CLAIM, uuid);
+        if (previous == null || !transport.isConnected(previous)) {
+            transport.broadcast(frame);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Handoff handoff = new Handoff(previous, new CompletableFuture<>());
+        Handoff replaced = handoffs.put(uuid, handoff); // Before the claim goes out, the release may come back fast
+        if (replaced != null) {
+            replaced.future().complete(null);
+        }
+        CompletableFuture.delayedExecutor(handoffTimeoutMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (handoff.future().complete(null)) {
+                handoffTimeouts.increment();
+                logger.warning("Node " + previous + " did not release agent " + uuid + " within " + handoffTimeoutMillis + " ms");
+            }
+            handoffs.remove(uuid, handoff);
+        });
+        transport.broadcast(frame);
+        return handoff.future();
+    }
+
+    /**
+     * @param uuid The unique identifier of the agent.
+     * @return The node id of the agent's last known owner, or null if unknown.
+     */
+    public String ownerOf(UUID uuid) {
+        return owners.get(uuid);
+    }
+
+    @Override
+    public void connected(String peer) {
+        PeerState state = peers.computeIfAbsent(peer, id -> new PeerState());
+        synchronized (outLock) {
+            state.synced = false; // No batches until the peer told us what it has
+        }
+        transport.send(peer, ReplicationProtocol.sync(epoch, state.appliedEpoch, state.appliedSeq));
+    }
+
+    @Override
+    public void received(String peer, ByteBuffer frame) {
+        PeerState state = peers.computeIfAbsent(peer, id -> new PeerState());
+        byte type = frame.get();
+        switch (type) {
+            case ReplicationProtocol.SYNC -> sync(peer, state, frame.getLong(), frame.getLong(), frame.getLong());
+            case ReplicationProtocol.BATCH -> apply(peer, state, frame);
+            case ReplicationProtocol.ACK -> acknowledged(state, frame.getLong(), frame.getLong());
+            case ReplicationProtocol.CLAIM -> claimed(peer, ReplicationProtocol.readUuid(frame));
+            case ReplicationProtocol.RELEASE -> released(peer, ReplicationProtocol.readUuid(frame));
+            default -> logger.warning("Unknown replication frame type " + type + " from " + peer);
+        }
+    }
+
+    @Override
+    public void disconnected(String peer) {
+        PeerState state = peers.get(peer);
+        if (state != null) {
+            synchronized (outLock) {
+                state.synced = false;
+            }
+        }
+        handoffs.forEach((uuid, handoff) -> {
+            if (handoff.previous().equals(peer) && handoff.future().complete(null)) {
+                handoffs.remove(uuid, handoff);
+            }
+        });
+    }
+
+    /**
+     * Resends the batches the peer has not applied, then lets it receive new ones.
+     */
+    private void sync(String peer, PeerState state, long peerEpoch, long ackEpoch, long ackSeq) {
+        if (peerEpoch != state.appliedEpoch) { // The peer restarted, its batches are numbered from 1 again
+            state.appliedEpoch = peerEpoch;
+            state.appliedSeq = 0L;
+        }
+
+        synchronized (outLock) {
+            // A peer that does not know this epoch may still have applied what it acknowledged before it restarted
+            long from = ackEpoch == epoch ? ackSeq : state.ackedSeq;
+            state.ackedSeq = Math.max(state.ackedSeq, from);
+            Batch first = retained.peekFirst();
+            if (first != null && first.sequence() > from + 1) {
+                logger.warning("Replication peer " + peer + " missed batches " + (from + 1) + " to " + (first.sequence() - 1)
+                        + ", which are no longer retained; its balances diverge until it reloads them from storage");
+            }
+            for (Batch batch : retained) {
+                if (batch.sequence() > from) {
+                    transport.send(peer, batch.frame());
+                    batchesResent.increment();
+                }
+            }
+            state.synced = true;
+            trim();
+        }
+    }
+
+    /**
+     * Applies a batch of the peer's deltas unless it was applied before, and acknowledges it.
+     */
+    private void apply(String peer, PeerState state, ByteBuffer frame) {
+        long batchEpoch = frame.getLong();
+        long batchSeq = frame.getLong();
+        if (batchEpoch != state.appliedEpoch) {
+            state.appliedEpoch = batchEpoch;
+            state.appliedSeq = 0L;
+        }
+        if (batchSeq <= state.appliedSeq) {
+            duplicates.increment();
+        } else {
+            if (batchSeq > state.appliedSeq + 1) {
+                logger.warning("Replication peer " + peer + " skipped batches " + (state.appliedSeq + 1) + " to " + (batchSeq - 1));
+            }
+            int entries = frame.getInt();
+            for (int i = 0; i < entries; i++) {
+                coinStore.account(ReplicationProtocol.readUuid(frame)).applyRemote(frame.getLong());
+            }
+            state.appliedSeq = batchSeq;
+            batchesApplied.increment();
+            deltasApplied.add(entries);
+        }
+        transport.send(peer, ReplicationProtocol.ack(batchEpoch, batchSeq));
+    }
+
+    private void acknowledged(PeerState state, long ackEpoch, long ackSeq) {
+        if (ackEpoch != epoch) {
+            return; // Acknowledges a batch of this node's previous run
+        }
+        synchronized (outLock) {
+            state.ackedSeq = Math.max(state.ackedSeq, ackSeq);
+            trim();
+        }
+    }
+
+    /**
+     * Records the peer as the agent's owner. If this node owned the agent, its pending delta is shipped first.
+     */
+    private void claimed(String peer, UUID uuid) {
+        String previous = owners.put(uuid, peer);
+        Handoff handoff = handoffs.remove(uuid);
+        if (handoff != null) {
+            handoff.future().complete(null); // Claimed again elsewhere, stop waiting
+        }
+        if (!nodeId.equals(previous)) {
+            return;
+        }
+
+        CoinAccount account = coinStore.findAccount(uuid);
+        synchronized (outLock) {
+            if (account != null) {
+                long delta = feed.takeDelta(account);
+                if (delta != 0) {
+                    append(uuid, delta);
+                    seal();
+                }
+            }
+            transport.send(peer, ReplicationProtocol.handoff(ReplicationProtocol.RELEASE, uuid));
+        }
+    }
+
+    private void released(String peer, UUID uuid) {
+        Handoff handoff = handoffs.get(uuid);
+        if (handoff != null && handoff.previous().equals(peer) && handoffs.remove(uuid, handoff)
+                && handoff.future().complete(null)) {
+            handoffsCompleted.increment();
+        }
+    }
+
+    /**
+     * Adds a delta to the open batch. Guarded by outLock.
+     */
+    private void append(UUID uuid, long delta) {
+        int offset = count * 3;
+        entries[offset] = uuid.getMostSignificantBits();
+        entries[offset + 1] = uuid.getLeastSignificantBits();
+        entries[offset + 2] = delta;
+        if (++count == ReplicationProtocol.MAX_BATCH_ENTRIES) {
+            seal();
+        }
+    }
+
+    /**
+     * Numbers, retains and sends the open batch to the synced peers. Guarded by outLock.
+     */
+    private void seal() {
+        if (count == 0) {
+            return;
+        }
+        ByteBuffer frame = ReplicationProtocol.batch(epoch, ++sequence, entries, count);
+        retained.addLast(new Batch(sequence, frame));
+        for (Map.Entry<String, PeerState> peer : peers.entrySet()) {
+            if (peer.getValue().synced) {
+                transport.send(peer.getKey(), frame);
+            }
+        }
+        batchesSent.increment();
+        deltasSent.add(count);
+        bytesSent.add(frame.remaining());
+        count = 0;
+        trim();
+    }
+
+    /**
+     * Drops the batches every configured or connected peer acknowledged, and the oldest beyond the limit.
+     * Guarded by outLock.
+     */
+    private void trim() {
+        long acknowledged = Long.MAX_VALUE;
+        for (PeerState state : peers.values()) {
+            acknowledged = Math.min(acknowledged, state.ackedSeq);
+        }
+        if (peers.isEmpty()) {
+            acknowledged = 0L; // Without configured peers, ones that never connected yet may still need every batch
+        }
+        while (!retained.isEmpty()
+                && (retained.peekFirst().sequence() <= acknowledged || retained.size() > maxRetainedBatches)) {
+            retained.pollFirst();
+        }
+    }
+
+    /**
+     * @return The counters as a single line, for logging.
+     */
+    public String stats() {
+        int retainedBatches;
+        synchronized (outLock) {
+            retainedBatches = retained.size();
+        }
+        return "peers=" + transport.getConnectedPeers().size() + ", sent=" + batchesSent.sum() + " batches/" + deltasSent.sum()
+                + " deltas/" + bytesSent.sum() + " bytes, resent=" + batchesResent.sum() + ", applied=" + batchesApplied.sum()
+                + " batches/" + deltasApplied.sum() + " deltas, duplicates=" + duplicates.sum() + ", retained=" + retainedBatches
+                + ", handoffs=" + handoffsCompleted.sum() + ", handoff-timeouts=" + handoffTimeouts.sum();
+    }
+
+    /**
+     * Sends the pending changes and closes the transport. Waiting claims complete.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to send the last coin changes", e);
+        }
+        transport.close();
+        handoffs.values().forEach(handoff -> handoff.future().complete(null));
+        handoffs.clear();
+    }
+
+    /**
+     * Replication progress with one peer.
+     */
+    private static final class PeerState {
+        private volatile long ackedSeq;     // Last of this node's batches the peer acknowledged, this epoch
+        private volatile long appliedEpoch; // Epoch of the peer's batches applied here
+        private volatile long appliedSeq;   // Last of the peer's batches applied here
+        private volatile boolean synced;    // True once the peer was resent what it missed; guarded by outLock
+    }
+
+    /**
+     * A sent batch kept for resending.
+     */
+    private record Batch(long sequence, ByteBuffer frame) {
+    }
+
+    /**
+     * A claim waiting for the previous owner.
+     */
+    private record Handoff(String previous, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,90 @@
+package mc.node.replication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * Delivers replication frames between the nodes of the mesh.
+ * <p>
+ * Frames are length-prefixed, see {@link ReplicationProtocol}, and delivered in send order per peer. A transport
+ * identifies its peers by node id and reports when a peer connects or disconnects; it does not retry frames,
+ * {@link ReplicationService} resends what a peer missed when it connects again.
+ */
+public interface ReplicationTransport extends Closeable {
+
+    /**
+     * @return The identifier of this node.
+     */
+    String getNodeId();
+
+    /**
+     * Starts connecting to the peers.
+     *
+     * @param listener The listener receiving frames and connection changes; called from the transport's thread.
+     * @throws IOException if the transport cannot be started.
+     */
+    void start(Listener listener) throws IOException;
+
+    /**
+     * Sends a frame to one peer. The buffer is not modified and may be shared between calls.
+     *
+     * @param peer  The node id of the peer.
+     * @param frame The length-prefixed frame.
+     * @return False if the peer is not connected.
+     */
+    boolean send(String peer, ByteBuffer frame);
+
+    /**
+     * Sends a frame to every connected peer.
+     *
+     * @param frame The length-prefixed frame.
+     */
+    default void broadcast(ByteBuffer frame) {
+        for (String peer : getConnectedPeers()) {
+            send(peer, frame);
+        }
+    }
+
+    /**
+     * @param peer The node id of the peer.
+     * @return True if the peer is connected.
+     */
+    default boolean isConnected(String peer) {
+        return getConnectedPeers().contains(peer);
+    }
+
+    /**
+     * @return The node ids of the connected peers.
+     */
+    Set<String> getConnectedPeers();
+
+    /**
+     * Disconnects from every peer and stops the transport.
+     */
+    @Override
+    void close();
+
+    /**
+     * Receives frames and connection changes. Calls for one peer never overlap.
+     */
+    interface Listener {
+
+        /**
+         * @param peer The node id of the peer that connected.
+         */
+        void connected(String peer);
+
+        /**
+         * @param peer  The node id of the sending peer.
+         * @param frame The frame without its length prefix, positioned at the frame type. Only valid during the call.
+         */
+        void received(String peer, ByteBuffer frame);
+
+        /**
+         * @param peer The node id of the peer that disconnected.
+         */
+        void disconnected(String peer);
+    }
+}
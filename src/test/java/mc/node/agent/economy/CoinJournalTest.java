@@ -0,0 +1,220 @@
+package mc.node.agent.economy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes, reopens and compacts {@link CoinJournal} files.
+ */
+class CoinJournalTest {
+
+    private static final long NO_COMMITS = 3_600_000L; // Commits only happen when a test asks for them
+    private static final Logger LOGGER = Logger.getLogger("CoinJournalTest");
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 40;
+
+    @TempDir
+    Path directory;
+
+    private final List<CoinJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() throws IOException {
+        for (CoinJournal journal : journals) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void replaysCommittedChangesAfterReopen() throws IOException {
+        UUID agent = UUID.randomUUID();
+        CoinJournal journal = open();
+        CoinAccount account = account(agent, journal);
+        account.add(5L);
+        account.add(-2L);
+        account.set(10L);
+        assertTrue(account.compareAndSet(10L, 12L));
+        assertFalse(account.compareAndSet(10L, 20L)); // Not applied, so not logged
+        journal.close();
+
+        List<long[]> entries = replay(open());
+        assertEquals(4, entries.size());
+        assertEquals(12L, sum(entries));
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1L, entries.get(i)[1]); // Sequences in order, without the refused change
+        }
+    }
+
+    @Test
+    void cutsTornTail() throws IOException {
+        CoinJournal journal = open();
+        CoinAccount account = account(UUID.randomUUID(), journal);
+        account.add(1L);
+        account.add(2L);
+        journal.close();
+
+        try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[ENTRY_SIZE / 2])); // Half an entry, e.g. a crash mid-write
+        }
+
+        CoinJournal reopened = open();
+        assertEquals(HEADER_SIZE + 2L * ENTRY_SIZE, Files.size(file()));
+        assertEquals(3L, sum(replay(reopened)));
+        assertEquals(2L, reopened.getLastSequence());
+    }
+
+    @Test
+    void cutsAtCrcMismatch() throws IOException {
+        CoinJournal journal = open();
+        CoinAccount account = account(UUID.randomUUID(), journal);
+        account.add(1L);
+        account.add(2L);
+        account.add(4L);
+        journal.close();
+
+        try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), HEADER_SIZE + ENTRY_SIZE + 16L); // Delta of the second entry
+        }
+
+        CoinJournal reopened = open();
+        assertEquals(HEADER_SIZE + ENTRY_SIZE, Files.size(file())); // Nothing after a bad entry can be trusted
+        assertEquals(1L, sum(replay(reopened)));
+
+        account(UUID.randomUUID(), reopened).add(8L); // Numbered after the intact entry
+        reopened.commit();
+        List<long[]> entries = replay(reopened);
+        assertEquals(2L, entries.get(1)[1]);
+    }
+
+    @Test
+    void compactsThroughTemporaryFile() throws IOException {
+        CoinJournal journal = open();
+        CoinAccount account = account(UUID.randomUUID(), journal);
+        for (int i = 1; i <= 5; i++) {
+            account.add(i);
+        }
+        journal.commit();
+
+        journal.compact(3L);
+        assertFalse(Files.exists(file().resolveSibling(file().getFileName() + ".tmp")));
+        assertEquals(HEADER_SIZE + 2L * ENTRY_SIZE, Files.size(file()));
+        List<long[]> entries = replay(journal);
+        assertEquals(2, entries.size());
+        assertEquals(4L, entries.get(0)[1]);
+        assertEquals(9L, sum(entries));
+
+        account.add(100L); // Appended to the new file
+        journal.close();
+        List<long[]> reopened = replay(open());
+        assertEquals(3, reopened.size());
+        assertEquals(6L, reopened.get(2)[1]);
+        assertEquals(109L, sum(reopened));
+    }
+
+    @Test
+    void snapshotSeesExactlyTheChangesUpToItsSequence() throws Exception {
+        CoinJournal journal = open();
+        CoinAccount account = account(UUID.randomUUID(), journal);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread writer = new Thread(() -> {
+                while (running.get()) {
+                    account.add(1L);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        try {
+            for (int i = 0; i < 200; i++) {
+                long[] balance = new long[1];
+                long sequence = journal.consistent(() -> balance[0] = account.get());
+                assertEquals(sequence, balance[0]); // Every change adds 1 under its own sequence
+            }
+        } finally {
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+    }
+
+    @Test
+    void fullRingCommitsEarly() throws IOException {
+        CoinJournal journal = new CoinJournal(file(), NO_COMMITS, 4, LOGGER);
+        journals.add(journal);
+        CoinAccount account = account(UUID.randomUUID(), journal);
+        for (int i = 0; i < 10; i++) {
+            account.add(1L); // The fifth waits for the early commit of the first four
+        }
+
+        assertEquals(10L, account.get());
+        assertTrue(journal.getDurableSequence() >= 4L);
+        journal.close();
+        assertEquals(10L, sum(replay(open())));
+    }
+
+    @Test
+    void refusesChangesToClosedFullRing() throws IOException {
+        CoinJournal journal = new CoinJournal(file(), NO_COMMITS, 4, LOGGER);
+        CoinAccount account = account(UUID.randomUUID(), journal);
+        journal.close();
+        for (int i = 0; i < 4; i++) {
+            account.add(1L); // Fits, but is never committed
+        }
+
+        assertThrows(IllegalStateException.class, () -> account.add(1L));
+        assertEquals(4L, account.get()); // The refused change was not applied
+    }
+
+    private CoinJournal open() throws IOException {
+        CoinJournal journal = new CoinJournal(file(), NO_COMMITS, LOGGER);
+        journals.add(journal);
+        return journal;
+    }
+
+    private Path file() {
+        return directory.resolve("coins.wal");
+    }
+
+    private static CoinAccount account(UUID uuid, CoinJournal journal) {
+        return new CoinAccount(uuid, 0L, journal, null);
+    }
+
+    /**
+     * @return The (delta, sequence) of every entry.
+     */
+    private static List<long[]> replay(CoinJournal journal) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        journal.replay((uuid, delta, sequence) -> entries.add(new long[]{delta, sequence}));
+        return entries;
+    }
+
+    private static long sum(List<long[]> entries) {
+        long sum = 0L;
+        for (long[] entry : entries) {
+            sum += entry[0];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,138 @@
+package mc.node.agent.economy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the order and ranks of {@link RankedSkipList}.
+ */
+class RankedSkipListTest {
+
+    @Test
+    void ranksByCoinsDescending() {
+        RankedSkipList list = new RankedSkipList();
+        RankedSkipList.Node poor = list.insert(UUID.randomUUID(), 5L);
+        RankedSkipList.Node rich = list.insert(UUID.randomUUID(), 50L);
+        RankedSkipList.Node middle = list.insert(UUID.randomUUID(), 20L);
+
+        assertEquals(3, list.size());
+        assertEquals(1, list.rank(rich));
+        assertEquals(2, list.rank(middle));
+        assertEquals(3, list.rank(poor));
+        assertSame(rich, list.byRank(1));
+        assertSame(middle, list.byRank(2));
+        assertSame(poor, list.byRank(3));
+        assertNull(list.byRank(0));
+        assertNull(list.byRank(4));
+        assertSame(middle, rich.next());
+        assertNull(poor.next());
+    }
+
+    @Test
+    void breaksTiesByUuid() {
+        RankedSkipList list = new RankedSkipList();
+        RankedSkipList.Node second = list.insert(new UUID(1L, 0L), 10L);
+        RankedSkipList.Node fourth = list.insert(new UUID(2L, 1L), 10L);
+        RankedSkipList.Node first = list.insert(new UUID(-1L, 0L), 10L); // Bits compare signed
+        RankedSkipList.Node third = list.insert(new UUID(2L, 0L), 10L);
+
+        assertEquals(1, list.rank(first));
+        assertEquals(2, list.rank(second));
+        assertEquals(3, list.rank(third));
+        assertEquals(4, list.rank(fourth));
+    }
+
+    @Test
+    void updateMovesAcrossRanks() {
+        RankedSkipList list = new RankedSkipList();
+        RankedSkipList.Node a = list.insert(UUID.randomUUID(), 30L);
+        RankedSkipList.Node b = list.insert(UUID.randomUUID(), 20L);
+        RankedSkipList.Node c = list.insert(UUID.randomUUID(), 10L);
+
+        RankedSkipList.Node stayed = list.update(b, 25L); // Still between its neighbours
+        assertSame(b, stayed);
+        assertEquals(25L, stayed.coins);
+        assertEquals(2, list.rank(stayed));
+
+        RankedSkipList.Node moved = list.update(c, 100L);
+        assertEquals(c.uniqueId, moved.uniqueId);
+        assertEquals(1, list.rank(moved));
+        assertEquals(2, list.rank(a));
+        assertEquals(3, list.rank(stayed));
+
+        RankedSkipList.Node dropped = list.update(moved, 0L);
+        assertEquals(3, list.rank(dropped));
+        assertSame(a, list.byRank(1));
+        assertEquals(3, list.size());
+    }
+
+    @Test
+    void removeClosesTheGap() {
+        RankedSkipList list = new RankedSkipList();
+        RankedSkipList.Node a = list.insert(UUID.randomUUID(), 3L);
+        RankedSkipList.Node b = list.insert(UUID.randomUUID(), 2L);
+        RankedSkipList.Node c = list.insert(UUID.randomUUID(), 1L);
+
+        list.remove(b);
+        assertEquals(2, list.size());
+        assertEquals(2, list.rank(c));
+        assertSame(c, a.next());
+        assertSame(c, list.byRank(2));
+        assertThrows(IllegalStateException.class, () -> list.remove(b));
+
+        list.remove(a);
+        list.remove(c);
+        assertEquals(0, list.size());
+        assertNull(list.byRank(1));
+    }
+
+    @Test
+    void matchesSortedOrderAfterRandomChanges() {
+        Random random = new Random(42L);
+        RankedSkipList list = new RankedSkipList();
+        Map<UUID, RankedSkipList.Node> nodes = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            int action = random.nextInt(4);
+            if (action == 0 || ids.isEmpty()) {
+                UUID uuid = UUID.randomUUID();
+                nodes.put(uuid, list.insert(uuid, random.nextInt(100)));
+                ids.add(uuid);
+            } else if (action == 1) {
+                UUID uuid = ids.remove(random.nextInt(ids.size()));
+                list.remove(nodes.remove(uuid));
+            } else {
+                UUID uuid = ids.get(random.nextInt(ids.size()));
+                RankedSkipList.Node node = nodes.get(uuid);
+                nodes.put(uuid, list.update(node, node.coins + random.nextInt(21) - 10));
+            }
+        }
+
+        List<RankedSkipList.Node> expected = new ArrayList<>(nodes.values());
+        expected.sort(Comparator.<RankedSkipList.Node>comparingLong(node -> -node.coins)
+                .thenComparingLong(node -> node.mostSigBits)
+                .thenComparingLong(node -> node.leastSigBits));
+        assertEquals(expected.size(), list.size());
+        RankedSkipList.Node walked = list.byRank(1);
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), list.byRank(i + 1));
+            assertEquals(i + 1, list.rank(expected.get(i)));
+            assertSame(expected.get(i), walked);
+            walked = walked.next();
+        }
+        assertNull(walked);
+    }
+}
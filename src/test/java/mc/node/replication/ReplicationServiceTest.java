@@ -0,0 +1,189 @@
+package mc.node.replication;
+
+import mc.node.agent.economy.CoinStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link ReplicationService} nodes over a {@link LoopbackReplicationTransport.Network}.
+ */
+class ReplicationServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 5000L;
+    private static final Logger LOGGER = Logger.getLogger("ReplicationServiceTest");
+
+    private final LoopbackReplicationTransport.Network network = new LoopbackReplicationTransport.Network();
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    @AfterEach
+    void closeNodes() throws Exception {
+        for (int i = closeables.size() - 1; i >= 0; i--) {
+            closeables.get(i).close();
+        }
+    }
+
+    @Test
+    void convergesAfterPartitionHeals() throws Exception {
+        TestNode a = start("a");
+        TestNode b = start("b");
+        UUID agent = UUID.randomUUID();
+
+        a.coins.addCoins(agent, 10L);
+        a.service.flush();
+        awaitEquals(10L, () -> b.coins.getCoins(agent));
+
+        network.partition("a", "b");
+        a.coins.addCoins(agent, 5L);
+        a.service.flush();
+        b.coins.addCoins(agent, 100L);
+        b.service.flush();
+        assertEquals(15L, a.coins.getCoins(agent)); // b's change is cut off
+        assertEquals(110L, b.coins.getCoins(agent));
+
+        network.heal("a", "b");
+        awaitEquals(115L, () -> a.coins.getCoins(agent));
+        awaitEquals(115L, () -> b.coins.getCoins(agent));
+    }
+
+    @Test
+    void appliesResentBatchOnce() throws Exception {
+        TestNode b = start("b");
+        BlockingQueue<ByteBuffer> acks = new LinkedBlockingQueue<>();
+        LoopbackReplicationTransport raw = network.join("raw");
+        closeables.add(raw);
+        raw.start(new ReplicationTransport.Listener() {
+            @Override
+            public void connected(String peer) {
+            }
+
+            @Override
+            public void received(String peer, ByteBuffer frame) {
+                if (frame.get(0) == ReplicationProtocol.ACK) {
+                    acks.add(frame);
+                }
+            }
+
+            @Override
+            public void disconnected(String peer) {
+            }
+        });
+
+        UUID agent = UUID.randomUUID();
+        long[] entries = {agent.getMostSignificantBits(), agent.getLeastSignificantBits(), 7L};
+        ByteBuffer batch = ReplicationProtocol.batch(42L, 1L, entries, 1);
+        assertTrue(raw.send("b", batch.duplicate()));
+        assertTrue(raw.send("b", batch.duplicate())); // E.g. resent after a reconnect that lost the ack
+
+        for (int i = 0; i < 2; i++) {
+            ByteBuffer ack = acks.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertNotNull(ack, "Batch was not acknowledged");
+            assertEquals(42L, ack.getLong(1));
+            assertEquals(1L, ack.getLong(9));
+        }
+        assertEquals(7L, b.coins.getCoins(agent));
+    }
+
+    @Test
+    void handoffShipsPendingDeltaBeforeClaimCompletes() throws Exception {
+        TestNode a = start("a");
+        TestNode b = start("b");
+        UUID agent = UUID.randomUUID();
+
+        a.service.claim(agent).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        awaitEquals(1L, () -> "a".equals(b.service.ownerOf(agent)) ? 1L : 0L);
+
+        a.coins.addCoins(agent, 25L); // Not flushed, only the handoff ships it
+        b.service.claim(agent).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(25L, b.coins.getCoins(agent));
+        assertEquals("b", b.service.ownerOf(agent));
+    }
+
+    @Test
+    void restartedPeerStartsNewEpoch() throws Exception {
+        TestNode a = start("a");
+        TestNode b = start("b");
+        UUID agent = UUID.randomUUID();
+
+        for (int i = 0; i < 3; i++) {
+            a.coins.addCoins(agent, 1L);
+            a.service.flush();
+        }
+        awaitEquals(3L, () -> b.coins.getCoins(agent));
+
+        a.close();
+        TestNode restarted = start("a"); // Numbers its batches from 1 again
+        restarted.coins.addCoins(agent, 10L);
+        restarted.service.flush();
+
+        awaitEquals(13L, () -> b.coins.getCoins(agent));
+    }
+
+    @Test
+    void retainsBatchesForConfiguredPeerThatConnectsLate() throws Exception {
+        TestNode a = start("a", "b", "c");
+        TestNode b = start("b", "a", "c");
+        UUID agent = UUID.randomUUID();
+
+        a.coins.addCoins(agent, 10L);
+        a.service.flush();
+        awaitEquals(10L, () -> b.coins.getCoins(agent)); // Acknowledged by b, but c has not seen it
+
+        TestNode c = start("c", "a", "b");
+        awaitEquals(10L, () -> c.coins.getCoins(agent));
+    }
+
+    private TestNode start(String nodeId, String... peerIds) throws Exception {
+        LoopbackReplicationTransport transport = network.join(nodeId);
+        CoinStore coins = new CoinStore();
+        ReplicationService service = new ReplicationService(transport, coins, List.of(peerIds), TIMEOUT_MILLIS, 1024, LOGGER);
+        service.start();
+        TestNode node = new TestNode(coins, service);
+        closeables.add(node);
+        return node;
+    }
+
+    private static void awaitEquals(long expected, LongSupplier actual) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (actual.getAsLong() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertEquals(expected, actual.getAsLong());
+    }
+
+    /**
+     * A node's coin store and its replication.
+     */
+    private static final class TestNode implements AutoCloseable {
+        private final CoinStore coins;
+        private final ReplicationService service;
+        private boolean closed;
+
+        private TestNode(CoinStore coins, ReplicationService service) {
+            this.coins = coins;
+            this.service = service;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                service.close();
+            }
+        }
+    }
+}